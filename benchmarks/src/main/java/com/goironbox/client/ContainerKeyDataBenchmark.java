@@ -0,0 +1,56 @@
+package com.goironbox.client;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parse and serialize throughput of the ContainerKeyData response, which is
+ * fetched once per transfer.
+ * 
+ * Run with {@code -prof gc} to also report the allocation per operation
+ * ({@code gc.alloc.rate.norm}).
+ * 
+ * @since   2.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContainerKeyDataBenchmark {
+
+    private String jsonString;
+    private JSONObject jsonObject;
+
+    @Setup
+    public void setup() {
+        jsonString = Payloads.createContainerKeyData();
+        jsonObject = new JSONObject(jsonString);
+    }
+
+    @Benchmark
+    public JSONObject parseJSONObject() {
+        return new JSONObject(jsonString);
+    }
+
+    @Benchmark
+    public ContainerKeyData bindModel() {
+        return new ContainerKeyData(jsonString);
+    }
+
+    @Benchmark
+    public String serializeJSONObject() {
+        return jsonObject.toString();
+    }
+
+}
@@ -0,0 +1,83 @@
+package com.goironbox.client;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parse and serialize throughput of the JSON layer on listing responses.
+ * 
+ * Run with {@code -prof gc} to also report the allocation per operation
+ * ({@code gc.alloc.rate.norm}).
+ * 
+ * @since   2.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JSONBenchmark {
+
+    @Param({"BLOB_INFO_ARRAY", "CONTAINER_INFO_ARRAY"})
+    private Payloads payload;
+
+    @Param({"1", "10", "100", "1000"})
+    private int size;
+
+    private String jsonString;
+    private String jsonArrayString;
+    private JSONObject jsonObject;
+    private JSONArray jsonArray;
+
+    @Setup
+    public void setup() {
+        jsonString = payload.create(size);
+        jsonArrayString = payload.createArray(size);
+        jsonObject = new JSONObject(jsonString);
+        jsonArray = new JSONArray(jsonArrayString);
+    }
+
+    @Benchmark
+    public JSONObject parseJSONObject() {
+        return new JSONObject(jsonString);
+    }
+
+    @Benchmark
+    public JSONArray parseJSONArray() {
+        return new JSONArray(jsonArrayString);
+    }
+
+    @Benchmark
+    public JSONTokener tokenize() {
+        JSONTokener x = new JSONTokener(jsonString);
+        x.skipValue();
+        return x;
+    }
+
+    @Benchmark
+    public Object bindModel() {
+        return payload.bind(jsonString);
+    }
+
+    @Benchmark
+    public String serializeJSONObject() {
+        return jsonObject.toString();
+    }
+
+    @Benchmark
+    public String serializeJSONArray() {
+        return jsonArray.toString();
+    }
+
+}
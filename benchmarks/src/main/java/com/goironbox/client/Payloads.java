@@ -0,0 +1,121 @@
+package com.goironbox.client;
+
+import java.util.Base64;
+import java.util.Random;
+
+/**
+ * Synthetic API responses for benchmarking.
+ * 
+ * Payloads are shaped like the real responses and generated from a fixed
+ * seed, so that every run parses exactly the same input.
+ * 
+ * @since   2.0
+ */
+public enum Payloads {
+
+    /**
+     * GetContainerBlobInfoListByState response.
+     */
+    BLOB_INFO_ARRAY("BlobInfoArray") {
+        @Override
+        void appendElement(StringBuilder sb, Random random, int i) {
+            sb.append("{\"BlobID\":\"");
+            appendBlobID(sb, random);
+            sb.append("\",\"BlobName\":\"report-").append(100000 + i).append(".pdf\"}");
+        }
+
+        @Override
+        Object bind(String jsonString) {
+            return BlobInfoArray.getInstance(jsonString).getBlobInfoList();
+        }
+    },
+
+    /**
+     * GetContainerInfoListByContext response.
+     */
+    CONTAINER_INFO_ARRAY("ContainerInfoArray") {
+        @Override
+        void appendElement(StringBuilder sb, Random random, int i) {
+            sb.append("{\"ContainerID\":").append(1000000000L + random.nextInt(Integer.MAX_VALUE));
+            sb.append(",\"ContainerName\":\"Customer container ").append(i).append("\"}");
+        }
+
+        @Override
+        Object bind(String jsonString) {
+            return ContainerInfoArray.getInstance(jsonString).getContainerInfoList();
+        }
+    };
+
+    private static final long SEED = 0x1B0C5EEDL;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final String arrayKey;
+
+    private Payloads(String arrayKey) {
+        this.arrayKey = arrayKey;
+    }
+
+    abstract void appendElement(StringBuilder sb, Random random, int i);
+
+    /**
+     * Binds the payload to its response model.
+     */
+    abstract Object bind(String jsonString);
+
+    /**
+     * Creates a response holding the given number of elements.
+     */
+    String create(int size) {
+        Random random = new Random(SEED);
+        StringBuilder sb = new StringBuilder(64 + size * 96);
+        sb.append("{\"").append(arrayKey).append("\":");
+        appendArray(sb, random, size);
+        sb.append('}');
+        return sb.toString();
+    }
+
+    /**
+     * Creates the bare array of a response holding the given number of elements.
+     */
+    String createArray(int size) {
+        StringBuilder sb = new StringBuilder(16 + size * 96);
+        appendArray(sb, new Random(SEED), size);
+        return sb.toString();
+    }
+
+    private void appendArray(StringBuilder sb, Random random, int size) {
+        sb.append('[');
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            appendElement(sb, random, i);
+        }
+        sb.append(']');
+    }
+
+    private static void appendBlobID(StringBuilder sb, Random random) {
+        // Blob IDs are GUID-like strings.
+        for (int i = 0; i < 32; i++) {
+            if (8 == i || 12 == i || 16 == i || 20 == i) {
+                sb.append('-');
+            }
+            sb.append(HEX[random.nextInt(16)]);
+        }
+    }
+
+    /**
+     * Creates a ContainerKeyData response for an AES-256 container.
+     */
+    static String createContainerKeyData() {
+        Random random = new Random(SEED);
+        byte[] key = new byte[32];
+        byte[] iv = new byte[16];
+        random.nextBytes(key);
+        random.nextBytes(iv);
+        return "{\"SessionIVBase64\":\"" + Base64.getEncoder().encodeToString(iv)
+            + "\",\"SessionKeyBase64\":\"" + Base64.getEncoder().encodeToString(key)
+            + "\",\"SymmetricKeyStrength\":2}";
+    }
+
+}
@@ -17,19 +17,65 @@ public class BlobCheckOutData {
     private final String storageType;
     private final URI storageURI;
 
-    private BlobCheckOutData(String jsonString) throws URISyntaxException {
-        JSONObject jo = new JSONObject(jsonString);
-
-        checkInToken = jo.get("CheckInToken").toString();
-        containerStorageName = jo.get("ContainerStorageName").toString();
-        sharedAccessSignature = jo.get("SharedAccessSignature").toString();
-        sharedAccessSignatureURI = new URI(jo.get("SharedAccessSignatureUri").toString());
-        storageType = jo.get("StorageType").toString();
-        storageURI = new URI(jo.get("StorageUri").toString());
+    private BlobCheckOutData(
+        String checkInToken,
+        String containerStorageName,
+        String sharedAccessSignature,
+        URI sharedAccessSignatureURI,
+        String storageType,
+        URI storageURI
+    ) {
+        this.checkInToken = checkInToken;
+        this.containerStorageName = containerStorageName;
+        this.sharedAccessSignature = sharedAccessSignature;
+        this.sharedAccessSignatureURI = sharedAccessSignatureURI;
+        this.storageType = storageType;
+        this.storageURI = storageURI;
     }
     
     static BlobCheckOutData getInstance(String jsonString) throws URISyntaxException {
-        return new BlobCheckOutData(jsonString);
+        JSONTokener x = new JSONTokener(jsonString);
+        String checkInToken = null;
+        String containerStorageName = null;
+        String sharedAccessSignature = null;
+        String sharedAccessSignatureURI = null;
+        String storageType = null;
+        String storageURI = null;
+
+        x.beginObject();
+        for (String key = x.nextKey(); null != key; key = x.nextKey()) {
+            switch (key) {
+                case "CheckInToken":
+                    checkInToken = x.nextScalar();
+                    break;
+                case "ContainerStorageName":
+                    containerStorageName = x.nextScalar();
+                    break;
+                case "SharedAccessSignature":
+                    sharedAccessSignature = x.nextScalar();
+                    break;
+                case "SharedAccessSignatureUri":
+                    sharedAccessSignatureURI = x.nextScalar();
+                    break;
+                case "StorageType":
+                    storageType = x.nextScalar();
+                    break;
+                case "StorageUri":
+                    storageURI = x.nextScalar();
+                    break;
+                default:
+                    x.skipValue();
+            }
+        }
+
+        return new BlobCheckOutData(
+            JSONTokener.required(checkInToken, "CheckInToken"),
+            JSONTokener.required(containerStorageName, "ContainerStorageName"),
+            JSONTokener.required(sharedAccessSignature, "SharedAccessSignature"),
+            new URI(JSONTokener.required(sharedAccessSignatureURI, "SharedAccessSignatureUri")),
+            JSONTokener.required(storageType, "StorageType"),
+            new URI(JSONTokener.required(storageURI, "StorageUri"))
+        );
     }
 
     /**
@@ -10,15 +10,37 @@ public class BlobInfo {
     private final String blobID;
     private final String blobName;
 
-    private BlobInfo(String jsonString) {
-        JSONObject jo = new JSONObject(jsonString);
-
-        blobID = jo.get("BlobID").toString();
-        blobName = jo.get("BlobName").toString();
+    private BlobInfo(String blobID, String blobName) {
+        this.blobID = blobID;
+        this.blobName = blobName;
     }
 
     static BlobInfo getInstance(String jsonString) {
-        return new BlobInfo(jsonString);
+        return getInstance(new JSONTokener(jsonString));
+    }
+
+    static BlobInfo getInstance(JSONTokener x) {
+        String blobID = null;
+        String blobName = null;
+
+        x.beginObject();
+        for (String key = x.nextKey(); null != key; key = x.nextKey()) {
+            switch (key) {
+                case "BlobID":
+                    blobID = x.nextScalar();
+                    break;
+                case "BlobName":
+                    blobName = x.nextScalar();
+                    break;
+                default:
+                    x.skipValue();
+            }
+        }
+
+        return new BlobInfo(
+            JSONTokener.required(blobID, "BlobID"),
+            JSONTokener.required(blobName, "BlobName")
+        );
     }
     
     /**
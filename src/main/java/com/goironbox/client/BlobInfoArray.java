@@ -10,19 +10,32 @@ import java.util.List;
 
 class BlobInfoArray {
     
-    private final List<BlobInfo> blobInfoList = new ArrayList<>();
+    private final List<BlobInfo> blobInfoList;
 
-    private BlobInfoArray(String jsonString) {
-        JSONObject jo = new JSONObject(jsonString);
-
-        JSONArray ja = jo.getJSONArray("BlobInfoArray");
-        for (int i = 0; i < ja.length(); i++) {
-            blobInfoList.add(BlobInfo.getInstance(ja.getJSONObject(i).toString()));
-        }
+    private BlobInfoArray(List<BlobInfo> blobInfoList) {
+        this.blobInfoList = blobInfoList;
     }
 
     static BlobInfoArray getInstance(String jsonString) {
-        return new BlobInfoArray(jsonString);
+        JSONTokener x = new JSONTokener(jsonString);
+        List<BlobInfo> blobInfoList = null;
+
+        x.beginObject();
+        for (String key = x.nextKey(); null != key; key = x.nextKey()) {
+            switch (key) {
+                case "BlobInfoArray":
+                    blobInfoList = new ArrayList<>();
+                    x.beginArray();
+                    while (x.nextElement()) {
+                        blobInfoList.add(BlobInfo.getInstance(x));
+                    }
+                    break;
+                default:
+                    x.skipValue();
+            }
+        }
+
+        return new BlobInfoArray(JSONTokener.required(blobInfoList, "BlobInfoArray"));
     }
     
     /**
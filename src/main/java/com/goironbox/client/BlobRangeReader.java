@@ -0,0 +1,112 @@
+package com.goironbox.client;
+
+import java.net.URL;
+import java.security.GeneralSecurityException;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.IvParameterSpec;
+
+/**
+ * Reads plaintext ranges of an encrypted blob.
+ *
+ * With CBC every ciphertext block is decrypted using the block before it as
+ * IV, so a plaintext range can be read by fetching only its ciphertext blocks
+ * plus the preceding one. One more block is fetched after the range to tell
+ * whether the range reaches the end of the blob, where the padding has to be
+ * removed.
+ *
+ * Not safe for use by multiple threads.
+ *
+ * @since   2.0
+ */
+class BlobRangeReader {
+
+    private static final int BLOCK = Crypt.CRYPT_BLOCK_SIZE;
+
+    private final RESTHandler rh;
+    private final URL sasURL;
+    private final SecretKey key;
+    private final IvParameterSpec iv;
+    private final Cipher cipher;
+    private byte[] buf = new byte[0];
+
+    /**
+     * @param rh The handler sending the requests.
+     * @param sasURL Shared access signature URL of the blob.
+     * @param ckd The key data of the blob's container.
+     * @throws GeneralSecurityException If no cipher is available.
+     */
+    BlobRangeReader(RESTHandler rh, URL sasURL, ContainerKeyData ckd) throws GeneralSecurityException {
+        this.rh = rh;
+        this.sasURL = sasURL;
+        this.key = ckd.getSessionKey();
+        this.iv = ckd.getSessionIV();
+        this.cipher = Crypt.newRawCipher();
+    }
+
+    /**
+     * Reads plaintext starting at the given position.
+     *
+     * @param position Plaintext offset of the first byte to read.
+     * @param dst Buffer receiving the plaintext.
+     * @param off Offset in dst.
+     * @param len The number of bytes to read.
+     * @return the number of bytes read, fewer than len if the blob ends
+     *         within the range and -1 if it ends before position
+     * @throws Exception
+     */
+    int read(long position, byte[] dst, int off, int len) throws Exception {
+        if (position < 0) {
+            throw new IllegalArgumentException("Negative position: " + position);
+        }
+        if (len > Integer.MAX_VALUE - 4 * BLOCK) {
+            throw new IllegalArgumentException("Range too large: " + len);
+        }
+        if (0 == len) {
+            return 0;
+        }
+
+        long firstBlock = position / BLOCK;
+        long lastBlock = (position + len - 1) / BLOCK;
+        // The block before the range is the IV, except for the first block.
+        int ivLength = (0 == firstBlock) ? 0 : BLOCK;
+        long start = firstBlock * BLOCK - ivLength;
+        int rangeLength = (int)(lastBlock - firstBlock + 2) * BLOCK + ivLength;
+        if (buf.length < rangeLength) {
+            buf = new byte[rangeLength];
+        }
+
+        int bytesRead = rh.doHttpGetRange(sasURL, start, buf, 0, rangeLength);
+        if (0 != bytesRead % BLOCK) {
+            throw new Exception("Encrypted blob size is not a multiple of the cipher block size.");
+        }
+        int cipherLength = bytesRead - ivLength;
+        if (cipherLength <= 0) {
+            return -1;
+        }
+        boolean atEnd = bytesRead < rangeLength;
+        if (!atEnd) {
+            // Leave out the block fetched only to look for the end.
+            cipherLength -= BLOCK;
+        }
+
+        long decryptStart = System.nanoTime();
+        Object event = FlightRecorderEvents.beginCrypt();
+        cipher.init(Cipher.DECRYPT_MODE, key, (0 == ivLength) ? iv : new IvParameterSpec(buf, 0, BLOCK));
+        int plainLength = cipher.doFinal(buf, ivLength, cipherLength, buf, ivLength);
+        rh.getMetrics().decrypted(plainLength, System.nanoTime() - decryptStart);
+        FlightRecorderEvents.endCrypt(event, Cipher.DECRYPT_MODE, cipherLength);
+        if (atEnd) {
+            plainLength = Crypt.unpad(buf, ivLength, plainLength);
+        }
+
+        int skip = (int)(position - firstBlock * BLOCK);
+        if (skip >= plainLength) {
+            return -1;
+        }
+        int count = Math.min(len, plainLength - skip);
+        System.arraycopy(buf, ivLength + skip, dst, off, count);
+        return count;
+    }
+
+}
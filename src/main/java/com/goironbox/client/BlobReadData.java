@@ -16,18 +16,58 @@ public class BlobReadData {
     private final String storageType;
     private final URI storageUri;
 
-    private BlobReadData(String jsonString) throws URISyntaxException {
-        JSONObject jo = new JSONObject(jsonString);
-
-        containerStorageName = jo.get("ContainerStorageName").toString();
-        sharedAccessSignature = jo.get("SharedAccessSignature").toString();
-        sharedAccessSignatureUri = new URI(jo.get("SharedAccessSignatureUri").toString());
-        storageType = jo.get("StorageType").toString();
-        storageUri = new URI(jo.get("StorageUri").toString());
+    private BlobReadData(
+        String containerStorageName,
+        String sharedAccessSignature,
+        URI sharedAccessSignatureUri,
+        String storageType,
+        URI storageUri
+    ) {
+        this.containerStorageName = containerStorageName;
+        this.sharedAccessSignature = sharedAccessSignature;
+        this.sharedAccessSignatureUri = sharedAccessSignatureUri;
+        this.storageType = storageType;
+        this.storageUri = storageUri;
     }
 
     static BlobReadData getInstance(String jsonString) throws URISyntaxException {
-        return new BlobReadData(jsonString);
+        JSONTokener x = new JSONTokener(jsonString);
+        String containerStorageName = null;
+        String sharedAccessSignature = null;
+        String sharedAccessSignatureUri = null;
+        String storageType = null;
+        String storageUri = null;
+
+        x.beginObject();
+        for (String key = x.nextKey(); null != key; key = x.nextKey()) {
+            switch (key) {
+                case "ContainerStorageName":
+                    containerStorageName = x.nextScalar();
+                    break;
+                case "SharedAccessSignature":
+                    sharedAccessSignature = x.nextScalar();
+                    break;
+                case "SharedAccessSignatureUri":
+                    sharedAccessSignatureUri = x.nextScalar();
+                    break;
+                case "StorageType":
+                    storageType = x.nextScalar();
+                    break;
+                case "StorageUri":
+                    storageUri = x.nextScalar();
+                    break;
+                default:
+                    x.skipValue();
+            }
+        }
+
+        return new BlobReadData(
+            JSONTokener.required(containerStorageName, "ContainerStorageName"),
+            JSONTokener.required(sharedAccessSignature, "SharedAccessSignature"),
+            new URI(JSONTokener.required(sharedAccessSignatureUri, "SharedAccessSignatureUri")),
+            JSONTokener.required(storageType, "StorageType"),
+            new URI(JSONTokener.required(storageUri, "StorageUri"))
+        );
     }
     
     /**
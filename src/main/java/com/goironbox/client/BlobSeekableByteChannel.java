@@ -0,0 +1,188 @@
+package com.goironbox.client;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Read-only channel over the decrypted content of a remote blob.
+ *
+ * The plaintext is fetched in chunks aligned to the cipher block size, each
+ * with a single ranged GET, and the most recently used chunks are kept
+ * decrypted in memory. Readers that jump around a file, such as zip readers
+ * looking for the central directory, only cause a request for each chunk
+ * they touch.
+ *
+ * The size is known once the last chunk has been read; otherwise
+ * {@link #size()} asks the storage server for the ciphertext size and reads
+ * the final block.
+ *
+ * @since   2.0
+ */
+class BlobSeekableByteChannel implements SeekableByteChannel {
+
+    static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+    static final int DEFAULT_CACHE_CHUNKS = 16;
+
+    private final RESTHandler rh;
+    private final URL sasURL;
+    private final BlobRangeReader reader;
+    private final int chunkSize;
+    private final Map<Long, Chunk> cache;
+    private long position = 0;
+    private long size = -1;
+    private boolean open = true;
+
+    private static final class Chunk {
+        final byte[] data;
+        final int length;
+
+        Chunk(byte[] data, int length) {
+            this.data = data;
+            this.length = length;
+        }
+    }
+
+    /**
+     * @param rh The handler sending the requests.
+     * @param sasURL Shared access signature URL of the blob.
+     * @param ckd The key data of the blob's container.
+     * @param chunkSize The number of plaintext bytes fetched at once, a
+     *        multiple of the cipher block size.
+     * @param cacheChunks The number of chunks kept in memory.
+     * @throws Exception
+     */
+    BlobSeekableByteChannel(RESTHandler rh, URL sasURL, ContainerKeyData ckd, int chunkSize, final int cacheChunks) throws Exception {
+        if (chunkSize <= 0 || 0 != chunkSize % Crypt.CRYPT_BLOCK_SIZE) {
+            throw new IllegalArgumentException("Chunk size must be a positive multiple of " + Crypt.CRYPT_BLOCK_SIZE + ": " + chunkSize);
+        }
+        if (cacheChunks <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive: " + cacheChunks);
+        }
+        this.rh = rh;
+        this.sasURL = sasURL;
+        this.reader = new BlobRangeReader(rh, sasURL, ckd);
+        this.chunkSize = chunkSize;
+        this.cache = new LinkedHashMap<Long, Chunk>(cacheChunks + 1, 1.0f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Chunk> eldest) {
+                return size() > cacheChunks;
+            }
+        };
+    }
+
+    @Override
+    public synchronized int read(ByteBuffer dst) throws IOException {
+        checkOpen();
+        int total = 0;
+        while (dst.hasRemaining() && (size < 0 || position < size)) {
+            long index = position / chunkSize;
+            int offset = (int)(position - index * chunkSize);
+            Chunk chunk = getChunk(index);
+            if (offset >= chunk.length) {
+                break;
+            }
+            int n = Math.min(dst.remaining(), chunk.length - offset);
+            dst.put(chunk.data, offset, n);
+            position += n;
+            total += n;
+            if (chunk.length < chunkSize) {
+                // This was the last chunk.
+                break;
+            }
+        }
+        return (0 == total && dst.hasRemaining()) ? -1 : total;
+    }
+
+    private Chunk getChunk(long index) throws IOException {
+        Chunk chunk = cache.get(index);
+        if (null != chunk) {
+            return chunk;
+        }
+        try {
+            byte[] data = new byte[chunkSize];
+            long start = index * chunkSize;
+            int length = Math.max(0, reader.read(start, data, 0, chunkSize));
+            if (length < chunkSize) {
+                size = start + length;
+            }
+            chunk = new Chunk(data, length);
+            cache.put(index, chunk);
+            return chunk;
+        }
+        catch (IOException e) {
+            throw e;
+        }
+        catch (Exception e) {
+            throw new IOException("Unable to read blob range.", e);
+        }
+    }
+
+    @Override
+    public synchronized long position() throws IOException {
+        checkOpen();
+        return position;
+    }
+
+    @Override
+    public synchronized SeekableByteChannel position(long newPosition) throws IOException {
+        checkOpen();
+        if (newPosition < 0) {
+            throw new IllegalArgumentException("Negative position: " + newPosition);
+        }
+        position = newPosition;
+        return this;
+    }
+
+    @Override
+    public synchronized long size() throws IOException {
+        checkOpen();
+        if (size < 0) {
+            try {
+                // The final ciphertext block holds the last plaintext bytes,
+                // if any, followed by the padding.
+                long encryptedSize = rh.doHttpHead(sasURL);
+                long lastBlock = encryptedSize - Crypt.CRYPT_BLOCK_SIZE;
+                byte[] buf = new byte[Crypt.CRYPT_BLOCK_SIZE];
+                size = lastBlock + Math.max(0, reader.read(lastBlock, buf, 0, buf.length));
+            }
+            catch (Exception e) {
+                throw new IOException("Unable to get blob size.", e);
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public SeekableByteChannel truncate(long size) throws IOException {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public synchronized boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        open = false;
+        cache.clear();
+    }
+
+    private void checkOpen() throws ClosedChannelException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+    }
+
+}
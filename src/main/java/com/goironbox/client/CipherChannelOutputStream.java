@@ -0,0 +1,69 @@
+package com.goironbox.client;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import javax.crypto.Cipher;
+
+/**
+ * Stream passing the data written to it through a cipher into another
+ * stream, by way of a {@link CipherWritableByteChannel}.
+ *
+ * The final block is written when this stream is closed, which also closes
+ * the wrapped stream.
+ *
+ * @since   2.0
+ */
+class CipherChannelOutputStream extends OutputStream {
+
+    private final OutputStream out;
+    private final CipherWritableByteChannel channel;
+    private final byte[] single = new byte[1];
+
+    /**
+     * @param out The stream to write to.
+     * @param cipher An initialized cipher owned by this stream.
+     * @param opmode The mode the cipher was initialized with.
+     * @param chunkSize The number of bytes passed to the cipher at once.
+     */
+    CipherChannelOutputStream(OutputStream out, Cipher cipher, int opmode, int chunkSize) {
+        this.out = out;
+        this.channel = new CipherWritableByteChannel(Channels.newChannel(out), cipher, opmode, chunkSize);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        single[0] = (byte) b;
+        write(single, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        channel.write(ByteBuffer.wrap(b, off, len));
+    }
+
+    /**
+     * Flushes the wrapped stream. Bytes the cipher holds back until it has a
+     * whole block are not written.
+     */
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!channel.isOpen()) {
+            return;
+        }
+        try {
+            channel.finish();
+            out.flush();
+        }
+        finally {
+            channel.close();
+        }
+    }
+
+}
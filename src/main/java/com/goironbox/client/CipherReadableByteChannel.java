@@ -0,0 +1,110 @@
+package com.goironbox.client;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.security.GeneralSecurityException;
+import javax.crypto.Cipher;
+
+/**
+ * Channel yielding the data of another channel passed through a cipher.
+ *
+ * The wrapped channel is read a chunk at a time, so data of unknown length
+ * can be encrypted or decrypted while it is being consumed. The final block
+ * is yielded once the wrapped channel has reached its end.
+ *
+ * @since   2.0
+ */
+class CipherReadableByteChannel implements ReadableByteChannel {
+
+    private final ReadableByteChannel in;
+    private final Cipher cipher;
+    private final int opmode;
+    private final ByteBuffer src;
+    private final ByteBuffer dst;
+    private boolean done = false;
+    private boolean open = true;
+
+    /**
+     * @param in The channel to read from.
+     * @param cipher An initialized cipher owned by this channel.
+     * @param opmode The mode the cipher was initialized with.
+     * @param chunkSize The number of bytes passed to the cipher at once.
+     */
+    CipherReadableByteChannel(ReadableByteChannel in, Cipher cipher, int opmode, int chunkSize) {
+        Crypt.checkChunkSize(chunkSize);
+        this.in = in;
+        this.cipher = cipher;
+        this.opmode = opmode;
+        // Heap buffers, as callers may hold many of these channels for a
+        // long time, and direct memory is only released when they are
+        // collected.
+        src = ByteBuffer.allocate(chunkSize);
+        // The cipher may release a block it held back plus a padding block
+        // on top of the input.
+        dst = ByteBuffer.allocate(chunkSize + 2 * cipher.getBlockSize());
+        dst.flip();
+    }
+
+    @Override
+    public int read(ByteBuffer target) throws IOException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+        while (!dst.hasRemaining()) {
+            if (done) {
+                return -1;
+            }
+            fill();
+        }
+        int n = Math.min(dst.remaining(), target.remaining());
+        int limit = dst.limit();
+        dst.limit(dst.position() + n);
+        target.put(dst);
+        dst.limit(limit);
+        return n;
+    }
+
+    private void fill() throws IOException {
+        src.clear();
+        boolean eof = false;
+        while (src.hasRemaining()) {
+            int n = in.read(src);
+            if (n < 0) {
+                eof = true;
+                break;
+            }
+        }
+        src.flip();
+        dst.clear();
+        try {
+            Object event = FlightRecorderEvents.beginCrypt();
+            int chunk = src.remaining();
+            if (eof) {
+                cipher.doFinal(src, dst);
+                done = true;
+            }
+            else {
+                cipher.update(src, dst);
+            }
+            FlightRecorderEvents.endCrypt(event, opmode, chunk);
+        }
+        catch (GeneralSecurityException e) {
+            throw new IOException(e);
+        }
+        dst.flip();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() throws IOException {
+        open = false;
+        in.close();
+    }
+
+}
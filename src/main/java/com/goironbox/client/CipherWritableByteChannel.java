@@ -0,0 +1,157 @@
+package com.goironbox.client;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.WritableByteChannel;
+import java.security.GeneralSecurityException;
+import javax.crypto.Cipher;
+
+/**
+ * Channel passing the data written to it through a cipher into another
+ * channel.
+ *
+ * Data is passed to the cipher a chunk at a time, so data of unknown length
+ * can be decrypted while it is being received. The final block is only
+ * written by {@link #finish()} or {@link #close()}.
+ *
+ * @since   2.0
+ */
+class CipherWritableByteChannel implements WritableByteChannel {
+
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+    private final WritableByteChannel out;
+    private final Cipher cipher;
+    private final int opmode;
+    private final int chunkSize;
+    private final ByteBuffer dst;
+    private long outputSize = 0;
+    private long cipherNanos = 0;
+    private boolean finished = false;
+    private boolean open = true;
+
+    /**
+     * @param out The channel to write to.
+     * @param cipher An initialized cipher owned by this channel.
+     * @param opmode The mode the cipher was initialized with.
+     * @param chunkSize The number of bytes passed to the cipher at once.
+     */
+    CipherWritableByteChannel(WritableByteChannel out, Cipher cipher, int opmode, int chunkSize) {
+        Crypt.checkChunkSize(chunkSize);
+        this.out = out;
+        this.cipher = cipher;
+        this.opmode = opmode;
+        this.chunkSize = chunkSize;
+        // The cipher may release a block it held back plus a padding block
+        // on top of the input. A heap buffer like the input, as the cipher
+        // copies through a temporary array for every update mixing heap and
+        // direct buffers.
+        dst = ByteBuffer.allocate(chunkSize + 2 * cipher.getBlockSize());
+    }
+
+    /**
+     * Gets the number of bytes written to the wrapped channel so far, which
+     * is its total size once this channel has been finished.
+     *
+     * @return the number of bytes written to the wrapped channel
+     */
+    long getOutputSize() {
+        return outputSize;
+    }
+
+    /**
+     * Gets the time spent in the cipher so far, leaving out the time spent
+     * writing to the wrapped channel.
+     *
+     * @return the cipher time in nanoseconds
+     */
+    long getCipherNanos() {
+        return cipherNanos;
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+        if (finished) {
+            throw new IllegalStateException("Channel is finished");
+        }
+        int n = src.remaining();
+        int limit = src.limit();
+        try {
+            while (src.hasRemaining()) {
+                src.limit(src.position() + Math.min(chunkSize, src.remaining()));
+                dst.clear();
+                long start = System.nanoTime();
+                Object event = FlightRecorderEvents.beginCrypt();
+                int chunk = src.remaining();
+                cipher.update(src, dst);
+                FlightRecorderEvents.endCrypt(event, opmode, chunk);
+                cipherNanos += System.nanoTime() - start;
+                src.limit(limit);
+                drain();
+            }
+        }
+        catch (GeneralSecurityException e) {
+            throw new IOException(e);
+        }
+        finally {
+            src.limit(limit);
+        }
+        return n;
+    }
+
+    /**
+     * Writes the final block to the wrapped channel without closing it.
+     *
+     * @throws IOException If the data written is not valid for the cipher,
+     *         e.g. because of wrong padding when decrypting.
+     */
+    void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        dst.clear();
+        try {
+            long start = System.nanoTime();
+            Object event = FlightRecorderEvents.beginCrypt();
+            cipher.doFinal(EMPTY.duplicate(), dst);
+            FlightRecorderEvents.endCrypt(event, opmode, 0);
+            cipherNanos += System.nanoTime() - start;
+        }
+        catch (GeneralSecurityException e) {
+            throw new IOException(e);
+        }
+        drain();
+    }
+
+    private void drain() throws IOException {
+        dst.flip();
+        while (dst.hasRemaining()) {
+            outputSize += out.write(dst);
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!open) {
+            return;
+        }
+        try {
+            finish();
+        }
+        finally {
+            open = false;
+            out.close();
+        }
+    }
+
+}
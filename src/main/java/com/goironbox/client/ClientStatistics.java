@@ -0,0 +1,118 @@
+package com.goironbox.client;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Running totals of a client, for its MBean.
+ *
+ * Installed as the metrics collector of the client's REST handler, it keeps
+ * its own counters and passes every measurement on to the collector set by
+ * the application.
+ *
+ * @since   2.0
+ */
+class ClientStatistics extends MetricsCollector {
+
+    private static final int HTTP_RANGE_NOT_SATISFIABLE = 416;
+
+    private volatile MetricsCollector delegate = MetricsCollector.NONE;
+    private final AtomicInteger inFlightRequests = new AtomicInteger();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong failedRequests = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final RateMeter bytesSent = new RateMeter();
+    private final RateMeter bytesReceived = new RateMeter();
+    private final AtomicLong completedTransfers = new AtomicLong();
+    private final AtomicLong failedTransfers = new AtomicLong();
+
+    void setDelegate(MetricsCollector delegate) {
+        this.delegate = (null == delegate) ? MetricsCollector.NONE : delegate;
+    }
+
+    MetricsCollector getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public void requestStarted(String operation) {
+        inFlightRequests.incrementAndGet();
+        delegate.requestStarted(operation);
+    }
+
+    @Override
+    public void requestCompleted(String operation, int statusCode, long durationNanos) {
+        inFlightRequests.decrementAndGet();
+        requests.incrementAndGet();
+        // Range reads past the end of a blob are expected to be refused.
+        if (NO_RESPONSE == statusCode || (statusCode >= 400 && HTTP_RANGE_NOT_SATISFIABLE != statusCode)) {
+            failedRequests.incrementAndGet();
+        }
+        delegate.requestCompleted(operation, statusCode, durationNanos);
+    }
+
+    @Override
+    public void requestRetried(String operation) {
+        retries.incrementAndGet();
+        delegate.requestRetried(operation);
+    }
+
+    @Override
+    public void bytesSent(long bytes) {
+        bytesSent.add(bytes);
+        delegate.bytesSent(bytes);
+    }
+
+    @Override
+    public void bytesReceived(long bytes) {
+        bytesReceived.add(bytes);
+        delegate.bytesReceived(bytes);
+    }
+
+    @Override
+    public void encrypted(long bytes, long durationNanos) {
+        delegate.encrypted(bytes, durationNanos);
+    }
+
+    @Override
+    public void decrypted(long bytes, long durationNanos) {
+        delegate.decrypted(bytes, durationNanos);
+    }
+
+    void transferEnded(boolean success) {
+        (success ? completedTransfers : failedTransfers).incrementAndGet();
+    }
+
+    int getInFlightRequests() {
+        return inFlightRequests.get();
+    }
+
+    long getRequests() {
+        return requests.get();
+    }
+
+    long getFailedRequests() {
+        return failedRequests.get();
+    }
+
+    long getRetries() {
+        return retries.get();
+    }
+
+    RateMeter getBytesSent() {
+        return bytesSent;
+    }
+
+    RateMeter getBytesReceived() {
+        return bytesReceived;
+    }
+
+    long getCompletedTransfers() {
+        return completedTransfers.get();
+    }
+
+    long getFailedTransfers() {
+        return failedTransfers.get();
+    }
+
+}
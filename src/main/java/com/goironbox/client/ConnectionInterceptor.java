@@ -0,0 +1,34 @@
+package com.goironbox.client;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+
+/**
+ * Hook between a {@link RESTHandler} and the HTTP connections it opens, so
+ * that tests can observe or disturb its traffic, e.g. to inject network
+ * faults.
+ *
+ * @since   2.0
+ */
+interface ConnectionInterceptor {
+
+    /**
+     * Passes connections through unchanged.
+     */
+    ConnectionInterceptor NONE = new ConnectionInterceptor() {
+        @Override
+        public HttpURLConnection intercept(HttpURLConnection con) {
+            return con;
+        }
+    };
+
+    /**
+     * Called for every connection before the request is set up.
+     *
+     * @param con The connection, opened but not connected yet.
+     * @return the connection for the handler to use in its place
+     * @throws IOException If the connection cannot be used.
+     */
+    HttpURLConnection intercept(HttpURLConnection con) throws IOException;
+
+}
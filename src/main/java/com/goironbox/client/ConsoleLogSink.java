@@ -0,0 +1,37 @@
+package com.goironbox.client;
+
+import java.io.PrintStream;
+import java.util.Date;
+
+/**
+ * Logs to the console, errors and warnings to standard error and everything
+ * else to standard output.
+ * 
+ * @since   2.0
+ */
+public class ConsoleLogSink implements LogSink {
+
+    private final LogLevel threshold;
+
+    /**
+     * @param threshold The least severe level to log.
+     */
+    public ConsoleLogSink(LogLevel threshold) {
+        this.threshold = threshold;
+    }
+
+    @Override
+    public boolean isEnabled(LogLevel level) {
+        return threshold.includes(level);
+    }
+
+    @Override
+    public void log(LogLevel level, String message, Throwable thrown) {
+        PrintStream ps = LogLevel.WARN.includes(level) ? System.err : System.out;
+        ps.println(String.format("%s: %s", new Date(), message));
+        if (null != thrown) {
+            thrown.printStackTrace(ps);
+        }
+    }
+
+}
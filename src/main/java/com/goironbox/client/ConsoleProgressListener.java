@@ -0,0 +1,55 @@
+package com.goironbox.client;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+
+/**
+ * Shows transfer progress as a bar on the console.
+ *
+ * This is the listener used by clients created with verbose logging.
+ *
+ * @since   2.0
+ */
+public class ConsoleProgressListener implements TransferProgressListener {
+
+    private static final int BAR_WIDTH = 50;
+
+    private final PrintStream out;
+    private final char[] bar = new char[BAR_WIDTH + 2];
+
+    /**
+     * Creates a listener printing to standard output.
+     */
+    public ConsoleProgressListener() {
+        this(System.out);
+    }
+
+    /**
+     * @param out The stream to print to.
+     */
+    public ConsoleProgressListener(PrintStream out) {
+        this.out = out;
+        bar[0] = '[';
+        bar[BAR_WIDTH + 1] = ']';
+    }
+
+    @Override
+    public synchronized void progressChanged(Direction direction, long bytesTransferred, long totalBytes) {
+        out.print('\r');
+        if (totalBytes > 0) {
+            int done = (int)Math.min(BAR_WIDTH, (BAR_WIDTH * bytesTransferred) / totalBytes);
+            Arrays.fill(bar, 1, 1 + done, '=');
+            Arrays.fill(bar, 1 + done, 1 + BAR_WIDTH, ' ');
+            out.print(bar);
+            out.print(' ');
+        }
+        out.print(bytesTransferred);
+        out.print((Direction.UPLOAD == direction) ? " byte(s) sent" : " byte(s) received");
+    }
+
+    @Override
+    public synchronized void transferCompleted(Direction direction, long bytesTransferred) {
+        out.println();
+    }
+
+}
@@ -10,15 +10,37 @@ public class ContainerInfo {
     private final Long containerID;
     private final String containerName;
     
-    private ContainerInfo(String jsonString) {
-        JSONObject jo = new JSONObject(jsonString);
-       
-        containerID = Long.parseLong(jo.get("ContainerID").toString());
-        containerName = jo.get("ContainerName").toString();
+    private ContainerInfo(Long containerID, String containerName) {
+        this.containerID = containerID;
+        this.containerName = containerName;
     }
 
     static ContainerInfo getInstance(String jsonString) {
-        return new ContainerInfo(jsonString);
+        return getInstance(new JSONTokener(jsonString));
+    }
+
+    static ContainerInfo getInstance(JSONTokener x) {
+        String containerID = null;
+        String containerName = null;
+
+        x.beginObject();
+        for (String key = x.nextKey(); null != key; key = x.nextKey()) {
+            switch (key) {
+                case "ContainerID":
+                    containerID = x.nextScalar();
+                    break;
+                case "ContainerName":
+                    containerName = x.nextScalar();
+                    break;
+                default:
+                    x.skipValue();
+            }
+        }
+
+        return new ContainerInfo(
+            Long.parseLong(JSONTokener.required(containerID, "ContainerID")),
+            JSONTokener.required(containerName, "ContainerName")
+        );
     }
     
     /**
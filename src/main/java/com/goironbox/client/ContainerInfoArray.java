@@ -10,19 +10,32 @@ import java.util.List;
  */
 class ContainerInfoArray {
     
-    private final List<ContainerInfo> containerInfoList = new ArrayList<>();
+    private final List<ContainerInfo> containerInfoList;
 
-    private ContainerInfoArray(String jsonString) {
-        JSONObject jo = new JSONObject(jsonString);
-
-        JSONArray ja = jo.getJSONArray("ContainerInfoArray");
-        for (int i = 0; i < ja.length(); i++) {
-            containerInfoList.add(ContainerInfo.getInstance(ja.getJSONObject(i).toString()));
-        }
+    private ContainerInfoArray(List<ContainerInfo> containerInfoList) {
+        this.containerInfoList = containerInfoList;
     }
 
     static ContainerInfoArray getInstance(String jsonString) {
-        return new ContainerInfoArray(jsonString);
+        JSONTokener x = new JSONTokener(jsonString);
+        List<ContainerInfo> containerInfoList = null;
+
+        x.beginObject();
+        for (String key = x.nextKey(); null != key; key = x.nextKey()) {
+            switch (key) {
+                case "ContainerInfoArray":
+                    containerInfoList = new ArrayList<>();
+                    x.beginArray();
+                    while (x.nextElement()) {
+                        containerInfoList.add(ContainerInfo.getInstance(x));
+                    }
+                    break;
+                default:
+                    x.skipValue();
+            }
+        }
+
+        return new ContainerInfoArray(JSONTokener.required(containerInfoList, "ContainerInfoArray"));
     }
     
     /**
@@ -1,5 +1,8 @@
 package com.goironbox.client;
 
+import javax.crypto.SecretKey;
+import javax.crypto.spec.IvParameterSpec;
+
 /**
  * Container's key data.
  * 
@@ -10,13 +13,41 @@ public class ContainerKeyData {
     private final String sessionIVBase64;
     private final String sessionKeyBase64;
     private final SymmetricKeyStrength symmetricKeyStrength;
+    private final SecretKey sessionKey;
+    private final IvParameterSpec sessionIV;
 
     public ContainerKeyData(String jsonString) {
-        JSONObject jo = new JSONObject(jsonString);
+        JSONTokener x = new JSONTokener(jsonString);
+        String sessionIVBase64 = null;
+        String sessionKeyBase64 = null;
+        String symmetricKeyStrength = null;
+
+        x.beginObject();
+        for (String key = x.nextKey(); null != key; key = x.nextKey()) {
+            switch (key) {
+                case "SessionIVBase64":
+                    sessionIVBase64 = x.nextScalar();
+                    break;
+                case "SessionKeyBase64":
+                    sessionKeyBase64 = x.nextScalar();
+                    break;
+                case "SymmetricKeyStrength":
+                    symmetricKeyStrength = x.nextScalar();
+                    break;
+                default:
+                    x.skipValue();
+            }
+        }
 
-        sessionIVBase64 = jo.get("SessionIVBase64").toString();
-        sessionKeyBase64 = jo.get("SessionKeyBase64").toString();
-        symmetricKeyStrength = SymmetricKeyStrength.getFromRESTString(jo.get("SymmetricKeyStrength").toString());
+        this.sessionIVBase64 = JSONTokener.required(sessionIVBase64, "SessionIVBase64");
+        this.sessionKeyBase64 = JSONTokener.required(sessionKeyBase64, "SessionKeyBase64");
+        this.symmetricKeyStrength = SymmetricKeyStrength.getFromRESTString(
+            JSONTokener.required(symmetricKeyStrength, "SymmetricKeyStrength")
+        );
+
+        // Decode the key material once, ready to initialize ciphers with.
+        this.sessionKey = this.sessionKeyBase64.isEmpty() ? null : Crypt.decodeKey(this.sessionKeyBase64);
+        this.sessionIV = this.sessionIVBase64.isEmpty() ? null : Crypt.decodeIV(this.sessionIVBase64);
     }
 
     static ContainerKeyData getInstance(String jsonString) {
@@ -41,6 +72,24 @@ public class ContainerKeyData {
         return sessionKeyBase64;
     }
 
+    /**
+     * Gets the decoded session key, ready to initialize a cipher with.
+     * 
+     * @return the decoded session key, or null if the container has no key
+     */
+    public SecretKey getSessionKey() {
+        return sessionKey;
+    }
+
+    /**
+     * Gets the decoded session IV, ready to initialize a cipher with.
+     * 
+     * @return the decoded session IV, or null if the container has no key
+     */
+    public IvParameterSpec getSessionIV() {
+        return sessionIV;
+    }
+
     /**
      * Gets the symmetric key strength.
      * 
@@ -1,32 +1,231 @@
 package com.goironbox.client;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
-import javax.crypto.CipherOutputStream;
+import javax.crypto.SecretKey;
 import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
 import javax.xml.bind.DatatypeConverter;
 
 class Crypt {
 
-    private static final Logger logger = Logger.getInstance();
-
     private final static String CRYPT_ALGORITHM = "AES";
     private final static String CRYPT_TRANSFORMATION = "AES/CBC/PKCS5Padding";
+    private final static String CRYPT_RAW_TRANSFORMATION = "AES/CBC/NoPadding";
+    final static int CRYPT_BLOCK_SIZE = 16;
+
+    /**
+     * Default number of bytes passed to the cipher at once.
+     */
+    static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
+
+    /**
+     * Number of bytes passed to the cipher at once by channels handed out to
+     * callers, which hold their buffers for as long as they are open.
+     */
+    static final int CHANNEL_CHUNK_SIZE = 64 * 1024;
+
+    // Looking up the provider for every file is expensive, so every thread
+    // keeps one cipher and only re-initializes it. Re-initializing with the
+    // key it already holds skips the key expansion as well.
+    private static final ThreadLocal<Cipher> threadCipher = new ThreadLocal<>();
+
+    static SecretKey decodeKey(String keyBase64) {
+        return new SecretKeySpec(DatatypeConverter.parseBase64Binary(keyBase64), CRYPT_ALGORITHM);
+    }
+
+    static IvParameterSpec decodeIV(String ivBase64) {
+        return new IvParameterSpec(DatatypeConverter.parseBase64Binary(ivBase64));
+    }
+
+    /**
+     * Gets this thread's cipher, initialized for the given mode, key and IV.
+     * 
+     * The cipher is re-initialized by the next call on the same thread, so it
+     * must not outlive the operation it was obtained for, and that operation
+     * must not call code of the caller, which could come back here on the
+     * same thread. Use {@link #newCipher} for those.
+     */
+    static Cipher getThreadCipher(int mode, SecretKey key, IvParameterSpec iv) throws GeneralSecurityException {
+        Cipher cipher = threadCipher.get();
+        if (null == cipher) {
+            cipher = Cipher.getInstance(CRYPT_TRANSFORMATION);
+            threadCipher.set(cipher);
+        }
+        cipher.init(mode, key, iv);
+        return cipher;
+    }
+
+    /**
+     * Creates a new cipher, initialized for the given mode, key and IV.
+     * 
+     * Used for ciphers that outlive the call that set them up, such as those
+     * wrapped in streams handed out to callers, and for operations calling
+     * into channels of the caller.
+     */
+    static Cipher newCipher(int mode, SecretKey key, IvParameterSpec iv) throws GeneralSecurityException {
+        Cipher cipher = Cipher.getInstance(CRYPT_TRANSFORMATION);
+        cipher.init(mode, key, iv);
+        return cipher;
+    }
+
+    /**
+     * Creates a new cipher that leaves padding alone, for decrypting slices
+     * of a ciphertext. It has to be initialized by the caller.
+     */
+    static Cipher newRawCipher() throws GeneralSecurityException {
+        return Cipher.getInstance(CRYPT_RAW_TRANSFORMATION);
+    }
+
+    /**
+     * Gets the length of decrypted data without its PKCS#5 padding.
+     * 
+     * @param buf The decrypted data, ending with the final block.
+     * @param off Offset of the data.
+     * @param len Length of the data, including the padding.
+     * @return the length of the data without the padding
+     * @throws BadPaddingException If the data does not end with valid padding.
+     */
+    static int unpad(byte[] buf, int off, int len) throws BadPaddingException {
+        int padLength = (len > 0) ? buf[off + len - 1] & 0xff : 0;
+        if (padLength < 1 || padLength > CRYPT_BLOCK_SIZE || padLength > len) {
+            throw new BadPaddingException("Invalid padding");
+        }
+        for (int i = len - padLength; i < len; i++) {
+            if ((buf[off + i] & 0xff) != padLength) {
+                throw new BadPaddingException("Invalid padding");
+            }
+        }
+        return len - padLength;
+    }
+
+    /**
+     * Gets the ciphertext size for a plaintext of the given size, which
+     * PKCS#5 padding always extends to the next full block.
+     */
+    static long getEncryptedSize(long plaintextSize) {
+        return (plaintextSize / CRYPT_BLOCK_SIZE + 1) * CRYPT_BLOCK_SIZE;
+    }
+
+    static void checkChunkSize(int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+    }
+
+    /**
+     * Passes all bytes from the input channel through the cipher to the
+     * output channel, including the final block.
+     * 
+     * The input is read into a buffer until a whole chunk is available, so
+     * that every cipher update and every write covers a whole chunk rather
+     * than whatever a single read returned. The buffers live for this call
+     * only and are no larger than the input where its size is known.
+     * 
+     * @param opmode The mode the cipher was initialized with.
+     * @param inputSize The number of bytes in the input channel, or -1 if unknown.
+     * @param direct true for direct buffers, which file channels read and
+     *        write without copying, false for heap buffers, which suit
+     *        channels over streams and arrays.
+     */
+    static void transform(ReadableByteChannel in, WritableByteChannel out, Cipher cipher, int opmode, int chunkSize, long inputSize, boolean direct) throws IOException, GeneralSecurityException {
+        checkChunkSize(chunkSize);
+        int srcSize = (inputSize < 0) ? chunkSize : (int) Math.max(1, Math.min(chunkSize, inputSize));
+        // The cipher may release a block it held back plus a padding block
+        // on top of the input.
+        int dstSize = srcSize + 2 * CRYPT_BLOCK_SIZE;
+        ByteBuffer src = direct ? ByteBuffer.allocateDirect(srcSize) : ByteBuffer.allocate(srcSize);
+        ByteBuffer dst = direct ? ByteBuffer.allocateDirect(dstSize) : ByteBuffer.allocate(dstSize);
+
+        boolean eof = false;
+        while (!eof) {
+            while (src.hasRemaining()) {
+                if (in.read(src) < 0) {
+                    eof = true;
+                    break;
+                }
+            }
+            src.flip();
+            dst.clear();
+            Object event = FlightRecorderEvents.beginCrypt();
+            int chunk = src.remaining();
+            if (eof) {
+                cipher.doFinal(src, dst);
+            }
+            else {
+                cipher.update(src, dst);
+            }
+            FlightRecorderEvents.endCrypt(event, opmode, chunk);
+            dst.flip();
+            while (dst.hasRemaining()) {
+                out.write(dst);
+            }
+            src.clear();
+        }
+    }
+
+    /**
+     * Encrypts or decrypts a whole buffer in one call.
+     * 
+     * @return A new heap buffer holding the output, ready for reading.
+     */
+    static ByteBuffer doFinal(int mode, ByteBuffer input, SecretKey key, IvParameterSpec iv) throws GeneralSecurityException {
+        Cipher cipher = getThreadCipher(mode, key, iv);
+        ByteBuffer output = ByteBuffer.allocate(cipher.getOutputSize(input.remaining()));
+        Object event = FlightRecorderEvents.beginCrypt();
+        int length = input.remaining();
+        cipher.doFinal(input, output);
+        FlightRecorderEvents.endCrypt(event, mode, length);
+        output.flip();
+        return output;
+    }
+
+    static byte[] doFinal(int mode, byte[] input, SecretKey key, IvParameterSpec iv) throws GeneralSecurityException {
+        Cipher cipher = getThreadCipher(mode, key, iv);
+        Object event = FlightRecorderEvents.beginCrypt();
+        byte[] output = cipher.doFinal(input);
+        FlightRecorderEvents.endCrypt(event, mode, input.length);
+        return output;
+    }
+
+    public static void encrypt(ReadableByteChannel in, WritableByteChannel out, SecretKey key, IvParameterSpec iv, int chunkSize, Logger logger) throws Exception {
+        try {
+            transform(in, out, newCipher(Cipher.ENCRYPT_MODE, key, iv), Cipher.ENCRYPT_MODE, chunkSize, -1, false);
+        }
+        catch (Exception e) {
+            String msg = "Unable to encrypt data.";
+            logger.error(msg);
+            throw new Exception(msg, e);
+        }
+    }
+
+    public static void decrypt(ReadableByteChannel in, WritableByteChannel out, SecretKey key, IvParameterSpec iv, int chunkSize, Logger logger) throws Exception {
+        try {
+            transform(in, out, newCipher(Cipher.DECRYPT_MODE, key, iv), Cipher.DECRYPT_MODE, chunkSize, -1, false);
+        }
+        catch (Exception e) {
+            String msg = "Unable to decrypt data.";
+            logger.error(msg);
+            throw new Exception(msg, e);
+        }
+    }
 
-    public static void encryptFile(File inputFile, File outputFile, String keyBase64, String ivBase64) throws Exception {
-        FileInputStream is = null;
-        CipherOutputStream os = null;
+    public static void encryptFile(File inputFile, File outputFile, SecretKey key, IvParameterSpec iv, int chunkSize, Logger logger) throws Exception {
+        FileChannel in = null;
+        FileChannel out = null;
         try {
-            byte[] key = DatatypeConverter.parseBase64Binary(keyBase64);
-            byte[] iv = DatatypeConverter.parseBase64Binary(ivBase64);
-            Cipher cipher = Cipher.getInstance(CRYPT_TRANSFORMATION);
-            cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(key, CRYPT_ALGORITHM), new IvParameterSpec(iv));
-            is = new FileInputStream(inputFile);
-            os = new CipherOutputStream(new FileOutputStream(outputFile), cipher);
-            Helper.copyStream(is, os, 1024);
+            Cipher cipher = getThreadCipher(Cipher.ENCRYPT_MODE, key, iv);
+            in = FileChannel.open(inputFile.toPath(), StandardOpenOption.READ);
+            out = FileChannel.open(outputFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            transform(in, out, cipher, Cipher.ENCRYPT_MODE, chunkSize, in.size(), true);
         }
         catch (Exception e) {
             String msg = ("Unable to encrypt file: " + inputFile.getAbsolutePath());
@@ -34,22 +233,19 @@ class Crypt {
             throw new Exception(msg, e);
         }
         finally {
-            Helper.closeStream(is);
-            Helper.closeStream(os);
+            Helper.closeStream(in);
+            Helper.closeStream(out);
         }
     }
 
-    public static void decryptFile(File inputFile, File outputFile, String keyBase64, String ivBase64) throws Exception {
-        FileInputStream is = null;
-        CipherOutputStream os = null;
+    public static void decryptFile(File inputFile, File outputFile, SecretKey key, IvParameterSpec iv, int chunkSize, Logger logger) throws Exception {
+        FileChannel in = null;
+        FileChannel out = null;
         try {
-            byte[] key = DatatypeConverter.parseBase64Binary(keyBase64);
-            byte[] iv = DatatypeConverter.parseBase64Binary(ivBase64);
-            Cipher cipher = Cipher.getInstance(CRYPT_TRANSFORMATION);
-            cipher.init(Cipher.DECRYPT_MODE, new SecretKeySpec(key, CRYPT_ALGORITHM), new IvParameterSpec(iv));
-            is = new FileInputStream(inputFile);
-            os = new CipherOutputStream(new FileOutputStream(outputFile), cipher);
-            Helper.copyStream(is, os, 1024);
+            Cipher cipher = getThreadCipher(Cipher.DECRYPT_MODE, key, iv);
+            in = FileChannel.open(inputFile.toPath(), StandardOpenOption.READ);
+            out = FileChannel.open(outputFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            transform(in, out, cipher, Cipher.DECRYPT_MODE, chunkSize, in.size(), true);
         }
         catch (Exception e) {
             String msg = ("Unable to decrypt file: " + inputFile.getAbsolutePath());
@@ -57,8 +253,8 @@ class Crypt {
             throw new Exception(msg, e);
         }
         finally {
-            Helper.closeStream(is);
-            Helper.closeStream(os);
+            Helper.closeStream(in);
+            Helper.closeStream(out);
         }
     }
 
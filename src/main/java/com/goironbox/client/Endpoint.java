@@ -0,0 +1,35 @@
+package com.goironbox.client;
+
+/**
+ * IronBox REST API endpoints.
+ * 
+ * @since   2.0
+ */
+enum Endpoint {
+
+    CHECK_IN_ENTITY_CONTAINER_BLOB("CheckInEntityContainerBlob"),
+    CHECK_OUT_ENTITY_CONTAINER_BLOB("CheckOutEntityContainerBlob"),
+    CONTAINER_KEY_DATA("ContainerKeyData"),
+    CREATE_ENTITY_CONTAINER_BLOB("CreateEntityContainerBlob"),
+    CREATE_ENTITY_SFT_CONTAINER("CreateEntitySFTContainer"),
+    GET_CONTAINER_BLOB_INFO_LIST_BY_STATE("GetContainerBlobInfoListByState"),
+    GET_CONTAINER_ID_FROM_FRIENDLY_ID("GetContainerIDFromFriendlyID"),
+    GET_CONTAINER_IDS_FROM_NAME("GetContainerIDsFromName"),
+    GET_CONTAINER_INFO_LIST_BY_CONTEXT("GetContainerInfoListByContext"),
+    GET_CONTEXT_SETTING("GetContextSetting"),
+    PING("Ping"),
+    READ_ENTITY_CONTAINER_BLOB("ReadEntityContainerBlob"),
+    REMOVE_ENTITY_CONTAINER("RemoveEntityContainer"),
+    REMOVE_ENTITY_CONTAINER_BLOB("RemoveEntityContainerBlob");
+
+    private final String restString;
+
+    private Endpoint(String s) {
+        restString = s;
+    }
+
+    String getRESTString() {
+        return restString;
+    }
+
+}
@@ -0,0 +1,68 @@
+package com.goironbox.client;
+
+/**
+ * Emits Java Flight Recorder events for requests and cipher work.
+ * 
+ * This version does nothing, as Java 7 has no Flight Recorder API. On Java 11
+ * and later the version in the multi-release layer of the JAR replaces it and
+ * emits events that show client stalls next to GC and I/O in a recording.
+ * 
+ * Callers keep the object returned by a begin method and pass it to the
+ * matching end method.
+ * 
+ * @since   2.0
+ */
+class FlightRecorderEvents {
+
+    private FlightRecorderEvents() {
+    }
+
+    /**
+     * Called before a request to the IronBox API.
+     * 
+     * @return the event to end, or null
+     */
+    static Object beginApiCall() {
+        return null;
+    }
+
+    /**
+     * Called before a request to blob storage, such as a block PUT.
+     * 
+     * @return the event to end, or null
+     */
+    static Object beginBlobRequest() {
+        return null;
+    }
+
+    /**
+     * Called when a request has completed or failed.
+     * 
+     * @param event The event returned by the begin method, or null.
+     * @param operation The name of the request.
+     * @param statusCode The HTTP status code, or {@link MetricsCollector#NO_RESPONSE}.
+     * @param bytes The number of body bytes sent and received.
+     */
+    static void endRequest(Object event, String operation, int statusCode, long bytes) {
+    }
+
+    /**
+     * Called before a segment is passed through a cipher.
+     * 
+     * @return the event to end, or null
+     */
+    static Object beginCrypt() {
+        return null;
+    }
+
+    /**
+     * Called when a segment has been passed through a cipher.
+     * 
+     * @param event The event returned by {@link #beginCrypt()}, or null.
+     * @param opmode The cipher mode, Cipher.ENCRYPT_MODE or Cipher.DECRYPT_MODE.
+     * @param bytes The number of bytes passed through the cipher.
+     */
+    static void endCrypt(Object event, int opmode, long bytes) {
+    }
+
+}
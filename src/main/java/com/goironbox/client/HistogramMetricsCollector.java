@@ -0,0 +1,205 @@
+package com.goironbox.client;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps latency histograms per request name and status code, and counters
+ * of bytes, retries, requests in flight and cipher throughput.
+ * 
+ * @since   2.0
+ */
+public class HistogramMetricsCollector extends MetricsCollector {
+
+    private final ConcurrentMap<String, ConcurrentMap<Integer, LatencyHistogram>> latencies = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AtomicLong> retries = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlightRequests = new AtomicInteger();
+    private final AtomicLong bytesSent = new AtomicLong();
+    private final AtomicLong bytesReceived = new AtomicLong();
+    private final AtomicLong encryptedBytes = new AtomicLong();
+    private final AtomicLong encryptNanos = new AtomicLong();
+    private final AtomicLong decryptedBytes = new AtomicLong();
+    private final AtomicLong decryptNanos = new AtomicLong();
+
+    @Override
+    public void requestStarted(String operation) {
+        inFlightRequests.incrementAndGet();
+    }
+
+    @Override
+    public void requestCompleted(String operation, int statusCode, long durationNanos) {
+        inFlightRequests.decrementAndGet();
+        ConcurrentMap<Integer, LatencyHistogram> byStatus = latencies.get(operation);
+        if (null == byStatus) {
+            ConcurrentMap<Integer, LatencyHistogram> created = new ConcurrentHashMap<>();
+            byStatus = latencies.putIfAbsent(operation, created);
+            if (null == byStatus) {
+                byStatus = created;
+            }
+        }
+        LatencyHistogram histogram = byStatus.get(statusCode);
+        if (null == histogram) {
+            LatencyHistogram created = new LatencyHistogram();
+            histogram = byStatus.putIfAbsent(statusCode, created);
+            if (null == histogram) {
+                histogram = created;
+            }
+        }
+        histogram.record(durationNanos);
+    }
+
+    @Override
+    public void requestRetried(String operation) {
+        AtomicLong counter = retries.get(operation);
+        if (null == counter) {
+            AtomicLong created = new AtomicLong();
+            counter = retries.putIfAbsent(operation, created);
+            if (null == counter) {
+                counter = created;
+            }
+        }
+        counter.incrementAndGet();
+    }
+
+    @Override
+    public void bytesSent(long bytes) {
+        bytesSent.addAndGet(bytes);
+    }
+
+    @Override
+    public void bytesReceived(long bytes) {
+        bytesReceived.addAndGet(bytes);
+    }
+
+    @Override
+    public void encrypted(long bytes, long durationNanos) {
+        encryptedBytes.addAndGet(bytes);
+        encryptNanos.addAndGet(durationNanos);
+    }
+
+    @Override
+    public void decrypted(long bytes, long durationNanos) {
+        decryptedBytes.addAndGet(bytes);
+        decryptNanos.addAndGet(durationNanos);
+    }
+
+    /**
+     * Gets the latency histogram of a request and status code.
+     * 
+     * @param operation The name of the request.
+     * @param statusCode The HTTP status code, or {@link #NO_RESPONSE}.
+     * @return the histogram, or null if no such request completed
+     */
+    public LatencyHistogram getLatencyHistogram(String operation, int statusCode) {
+        Map<Integer, LatencyHistogram> byStatus = latencies.get(operation);
+        return (null == byStatus) ? null : byStatus.get(statusCode);
+    }
+
+    /**
+     * Gets all latency histograms, by request name and status code.
+     * 
+     * @return a sorted snapshot of the histograms, which keep being updated
+     */
+    public Map<String, Map<Integer, LatencyHistogram>> getLatencyHistograms() {
+        Map<String, Map<Integer, LatencyHistogram>> snapshot = new TreeMap<>();
+        for (Map.Entry<String, ConcurrentMap<Integer, LatencyHistogram>> e : latencies.entrySet()) {
+            snapshot.put(e.getKey(), Collections.unmodifiableMap(new TreeMap<>(e.getValue())));
+        }
+        return Collections.unmodifiableMap(snapshot);
+    }
+
+    /**
+     * @param operation The name of the request.
+     * @return the number of times the request was repeated after a failure
+     */
+    public long getRetries(String operation) {
+        AtomicLong counter = retries.get(operation);
+        return (null == counter) ? 0 : counter.get();
+    }
+
+    /**
+     * @return the number of times any request was repeated after a failure
+     */
+    public long getRetries() {
+        long total = 0;
+        for (AtomicLong counter : retries.values()) {
+            total += counter.get();
+        }
+        return total;
+    }
+
+    /**
+     * @return the number of requests currently running
+     */
+    public int getInFlightRequests() {
+        return inFlightRequests.get();
+    }
+
+    /**
+     * @return the number of request body bytes sent
+     */
+    public long getBytesSent() {
+        return bytesSent.get();
+    }
+
+    /**
+     * @return the number of response body bytes received
+     */
+    public long getBytesReceived() {
+        return bytesReceived.get();
+    }
+
+    /**
+     * @return the number of plaintext bytes encrypted
+     */
+    public long getEncryptedBytes() {
+        return encryptedBytes.get();
+    }
+
+    /**
+     * @return the encryption throughput in bytes per second of cipher time
+     */
+    public double getEncryptThroughput() {
+        return throughput(encryptedBytes.get(), encryptNanos.get());
+    }
+
+    /**
+     * @return the number of plaintext bytes decrypted
+     */
+    public long getDecryptedBytes() {
+        return decryptedBytes.get();
+    }
+
+    /**
+     * @return the decryption throughput in bytes per second of cipher time
+     */
+    public double getDecryptThroughput() {
+        return throughput(decryptedBytes.get(), decryptNanos.get());
+    }
+
+    private static double throughput(long bytes, long nanos) {
+        return (0 == nanos) ? 0 : bytes * 1e9 / nanos;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Map<Integer, LatencyHistogram>> e : getLatencyHistograms().entrySet()) {
+            for (Map.Entry<Integer, LatencyHistogram> s : e.getValue().entrySet()) {
+                sb.append(String.format("%s %d: %s%n", e.getKey(), s.getKey(), s.getValue()));
+            }
+        }
+        sb.append(String.format(
+            "inFlight=%d, retries=%d, bytesSent=%d, bytesReceived=%d, encrypt=%.1fMB/s, decrypt=%.1fMB/s",
+            getInFlightRequests(), getRetries(), getBytesSent(), getBytesReceived(),
+            getEncryptThroughput() / 1e6, getDecryptThroughput() / 1e6
+        ));
+        return sb.toString();
+    }
+
+}
@@ -2,8 +2,22 @@ package com.goironbox.client;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.crypto.Cipher;
+import javax.management.ObjectName;
 
 /**
  * IronBox REST API client.
@@ -12,8 +26,18 @@ import java.util.List;
  */
 public class IronBoxClient {
 
-    private Logger logger;
+    private final Logger logger;
     private RESTHandler rh;
+    private int cryptChunkSize = Crypt.DEFAULT_CHUNK_SIZE;
+    private volatile int uploadQueueCapacity = UploadPipeline.DEFAULT_QUEUE_CAPACITY;
+    private final PipelineStatistics pipelineStatistics = new PipelineStatistics();
+    private final ClientStatistics statistics = new ClientStatistics();
+    private final TransferGate transferGate = new TransferGate();
+    private ObjectName mbeanName;
+    private static final AtomicInteger mbeanCount = new AtomicInteger();
+    private TransferProgressListener progressListener;
+    private long progressMinBytes = ProgressTracker.DEFAULT_MIN_BYTES;
+    private long progressMinIntervalMillis = ProgressTracker.DEFAULT_MIN_INTERVAL_MILLIS;
 
     /**
      * 
@@ -22,7 +46,7 @@ public class IronBoxClient {
      * @param entityType The {@link com.goironbox.client.EntityType}.
      * @param apiVersion The {@link com.goironbox.client.ApiVersion} to use.
      * @param contentFormat The {@link com.goironbox.client.ContentFormat} to use.
-     * @param verbose Enable verbose logging.
+     * @param verbose Enable verbose logging, including progress bars on the console.
      * @param verifySSLCert Verify SSL certificates.
      * @throws Exception 
      */
@@ -35,11 +59,16 @@ public class IronBoxClient {
         boolean verbose,
         boolean verifySSLCert
     ) throws Exception {
-        logger = Logger.getInstance(verbose);
+        logger = new Logger(new ConsoleLogSink(verbose ? LogLevel.INFO : LogLevel.ERROR));
         rh = new RESTHandler(
             entity, entityPassword, entityType,
-            apiVersion, contentFormat, verifySSLCert
+            apiVersion, contentFormat, verifySSLCert,
+            logger
         );
+        rh.setMetrics(statistics);
+        if (verbose) {
+            progressListener = new ConsoleProgressListener();
+        }
     }
 
     /**
@@ -73,8 +102,287 @@ public class IronBoxClient {
         rh.setAPIBaseURL(apiBaseUrl);
     }
 
-    private boolean uploadBlobWithSharedAccessSignatureUri(File localFile, URI sasURI) throws Exception {
-        return rh.uploadBlobWithSharedAccessSignatureUri(localFile, sasURI);
+    /**
+     * Sets where log messages go, such as an adapter to the logging framework
+     * of the application. By default messages go to the console, with info
+     * messages only when the client was created verbose.
+     * 
+     * @param logSink The destination of log messages.
+     */
+    public void setLogSink(LogSink logSink) {
+        if (null == logSink) {
+            throw new IllegalArgumentException("Log sink must not be null.");
+        }
+        logger.setSink(logSink);
+    }
+
+    /**
+     * Sets where the static encryption and decryption methods, which run
+     * outside of any client, log their errors. By default they go to the
+     * console.
+     * 
+     * @param logSink The destination of log messages.
+     */
+    public static void setDefaultLogSink(LogSink logSink) {
+        if (null == logSink) {
+            throw new IllegalArgumentException("Log sink must not be null.");
+        }
+        Logger.DEFAULT.setSink(logSink);
+    }
+
+    /**
+     * Sets the collector receiving request latencies, byte counts and cipher
+     * throughput, such as a {@link HistogramMetricsCollector}. No metrics
+     * are collected by default.
+     * 
+     * @param metricsCollector The collector, or null to stop collecting.
+     */
+    public void setMetricsCollector(MetricsCollector metricsCollector) {
+        statistics.setDelegate(metricsCollector);
+    }
+
+    /**
+     * Sets a hook wrapping every HTTP connection of this client, for tests.
+     * 
+     * @param connectionInterceptor The hook, or null to remove it.
+     */
+    void setConnectionInterceptor(ConnectionInterceptor connectionInterceptor) {
+        rh.setConnectionInterceptor(connectionInterceptor);
+    }
+
+    /**
+     * Lets this client talk plain HTTP to local stand-in servers, for tests.
+     * Otherwise every request goes over HTTPS.
+     * 
+     * @param plainHttpAllowed true to accept http:// URLs
+     */
+    void setPlainHttpAllowed(boolean plainHttpAllowed) {
+        rh.setPlainHttpAllowed(plainHttpAllowed);
+    }
+
+    /**
+     * Sets the number of bytes encrypted or decrypted at once by downloads
+     * and file encryption. Larger chunks mean fewer cipher calls and fewer, larger
+     * writes; every download holds a buffer of about this size while it runs.
+     * 
+     * @param cryptChunkSize The chunk size in bytes, 1 MB by default.
+     */
+    public void setCryptChunkSize(int cryptChunkSize) {
+        Crypt.checkChunkSize(cryptChunkSize);
+        this.cryptChunkSize = cryptChunkSize;
+    }
+
+    /**
+     * Sets how often the upload of a block is repeated after a connection
+     * failure, a timeout, throttling or a server error. Repeating a block
+     * replaces it, so retries are safe; they are counted in the
+     * {@link TransferResult} of the upload.
+     * 
+     * @param maxBlockRetries The number of retries per block, 0 by default.
+     */
+    public void setMaxBlockRetries(int maxBlockRetries) {
+        rh.setMaxBlockRetries(maxBlockRetries);
+    }
+
+    /**
+     * @return The number of retries per block.
+     */
+    public int getMaxBlockRetries() {
+        return rh.getMaxBlockRetries();
+    }
+
+    /**
+     * Sets the delay before the first retry of a block, which doubles with
+     * every further retry of the same block up to the maximum set by
+     * {@link #setMaxBlockRetryBackoffMillis}. Each delay is shortened by a
+     * random amount of up to half, so that blocks failing at the same time
+     * are not all repeated at the same time.
+     * 
+     * @param blockRetryBackoffMillis The delay in milliseconds, 500 by default.
+     */
+    public void setBlockRetryBackoffMillis(long blockRetryBackoffMillis) {
+        rh.setBlockRetryBackoffMillis(blockRetryBackoffMillis);
+    }
+
+    /**
+     * @return The delay before the first retry of a block, in milliseconds.
+     */
+    public long getBlockRetryBackoffMillis() {
+        return rh.getBlockRetryBackoffMillis();
+    }
+
+    /**
+     * Sets the upper limit of the delay before a retry of a block.
+     * 
+     * @param maxBlockRetryBackoffMillis The delay in milliseconds, 30000 by default.
+     */
+    public void setMaxBlockRetryBackoffMillis(long maxBlockRetryBackoffMillis) {
+        rh.setMaxBlockRetryBackoffMillis(maxBlockRetryBackoffMillis);
+    }
+
+    /**
+     * @return The upper limit of the delay before a retry of a block, in milliseconds.
+     */
+    public long getMaxBlockRetryBackoffMillis() {
+        return rh.getMaxBlockRetryBackoffMillis();
+    }
+
+    /**
+     * Sets the number of blocks that may wait between the stages of an
+     * upload. Uploads read, encrypt and send blocks concurrently; a larger
+     * queue smooths out uneven stages at the cost of up to 4 MB of memory per
+     * additional block, for the input and for each target container. Blocks
+     * are only allocated when needed, and no larger than the input.
+     * 
+     * @param uploadQueueCapacity The queue capacity in blocks, 1 by default.
+     */
+    public void setUploadQueueCapacity(int uploadQueueCapacity) {
+        UploadPipeline.checkQueueCapacity(uploadQueueCapacity);
+        this.uploadQueueCapacity = uploadQueueCapacity;
+    }
+
+    /**
+     * @return The number of blocks that may wait between the stages of an upload.
+     */
+    public int getUploadQueueCapacity() {
+        return uploadQueueCapacity;
+    }
+
+    /**
+     * Sets the number of uploads and downloads allowed to run at once.
+     * Transfers over the limit wait until others end.
+     * 
+     * @param maxConcurrentTransfers The limit, unlimited by default.
+     */
+    public void setMaxConcurrentTransfers(int maxConcurrentTransfers) {
+        transferGate.setMaxActive(maxConcurrentTransfers);
+        logger.info("Concurrent transfers limited to %d.", maxConcurrentTransfers);
+    }
+
+    /**
+     * Holds back new uploads and downloads until {@link #resumeTransfers()}
+     * is called; they wait instead of starting. Running transfers are not
+     * affected.
+     */
+    public void pauseTransfers() {
+        transferGate.setPaused(true);
+        logger.info("Transfers paused.");
+    }
+
+    /**
+     * Lets transfers held back by {@link #pauseTransfers()} start.
+     */
+    public void resumeTransfers() {
+        transferGate.setPaused(false);
+        logger.info("Transfers resumed.");
+    }
+
+    /**
+     * Registers an {@link IronBoxClientMXBean} for this client with the
+     * platform MBean server, as
+     * com.goironbox.client:type=IronBoxClient,name=client-N. Call
+     * {@link #unregisterMBean()} when done with the client.
+     * 
+     * @return The name the MBean was registered under.
+     * @throws Exception 
+     */
+    public ObjectName registerMBean() throws Exception {
+        return registerMBean("client-" + mbeanCount.incrementAndGet());
+    }
+
+    /**
+     * Registers an {@link IronBoxClientMXBean} for this client with the
+     * platform MBean server, so that its transfers can be watched and
+     * controlled with JConsole or other JMX tools. Nothing is registered
+     * unless this is called.
+     * <p>
+     * The MBean server holds on to the MBean, and the MBean to this client,
+     * so a registered client is never garbage collected. Callers must call
+     * {@link #unregisterMBean()} when done with the client.
+     * 
+     * @param name The value of the name key of the MBean's object name.
+     * @return The name the MBean was registered under,
+     *         com.goironbox.client:type=IronBoxClient,name=...
+     * @throws Exception 
+     */
+    public synchronized ObjectName registerMBean(String name) throws Exception {
+        if (null != mbeanName) {
+            throw new IllegalStateException("MBean is registered already: " + mbeanName);
+        }
+        try {
+            ObjectName objectName = new ObjectName("com.goironbox.client:type=IronBoxClient,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(
+                new IronBoxClientMonitor(this, statistics, pipelineStatistics, transferGate),
+                objectName
+            );
+            mbeanName = objectName;
+            return objectName;
+        }
+        catch (Exception e) {
+            String msg = "Unable to register MBean.";
+            logger.error(msg);
+            throw new Exception(msg, e);
+        }
+    }
+
+    /**
+     * Unregisters the MBean registered by {@link #registerMBean(String)}, if any.
+     * 
+     * @throws Exception 
+     */
+    public synchronized void unregisterMBean() throws Exception {
+        if (null == mbeanName) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(mbeanName);
+            mbeanName = null;
+        }
+        catch (Exception e) {
+            String msg = "Unable to unregister MBean.";
+            logger.error(msg);
+            throw new Exception(msg, e);
+        }
+    }
+
+    /**
+     * Sets the listener receiving progress updates of transfers, at most every
+     * 256 KB and 200 ms.
+     * 
+     * @param progressListener The listener, or null to not track progress.
+     */
+    public void setProgressListener(TransferProgressListener progressListener) {
+        setProgressListener(progressListener, ProgressTracker.DEFAULT_MIN_BYTES, ProgressTracker.DEFAULT_MIN_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Sets the listener receiving progress updates of transfers.
+     * 
+     * @param progressListener The listener, or null to not track progress.
+     * @param minBytes The number of bytes to transfer between updates.
+     * @param minIntervalMillis The time to pass between updates.
+     */
+    public void setProgressListener(TransferProgressListener progressListener, long minBytes, long minIntervalMillis) {
+        if (minBytes < 0 || minIntervalMillis < 0) {
+            throw new IllegalArgumentException("Progress intervals must not be negative.");
+        }
+        this.progressListener = progressListener;
+        this.progressMinBytes = minBytes;
+        this.progressMinIntervalMillis = minIntervalMillis;
+    }
+
+    private ProgressTracker newProgressTracker(TransferProgressListener.Direction direction) {
+        return ProgressTracker.create(progressListener, direction, progressMinBytes, progressMinIntervalMillis);
+    }
+
+    /**
+     * Gets the live statistics of the uploads of this client, such as the
+     * queue depths and busy time of each upload stage.
+     * 
+     * @return The upload pipeline statistics.
+     */
+    public PipelineStatistics getPipelineStatistics() {
+        return pipelineStatistics;
     }
 
     /**
@@ -83,62 +391,263 @@ public class IronBoxClient {
      * @param containerID A 64-bit integer container ID.
      * @param srcFile File to upload.
      * @param blobName Blob ID to be used.
-     * @return
+     * @return The outcome, including the SHA-256 digest of the uploaded plaintext.
      * @throws Exception 
      */
-    public boolean uploadFileToContainer(Long containerID, File srcFile, String blobName) throws Exception {
+    public TransferResult uploadFileToContainer(long containerID, File srcFile, String blobName) throws Exception {
         if (!srcFile.exists() || !srcFile.isFile()) {
             String msg = "File not found: " + srcFile.getAbsolutePath();
             logger.error(msg);
             throw new FileNotFoundException(msg);
         }
 
+        FileChannel src = null;
+        try {
+            logger.info("Uploading file: %s", srcFile.getAbsolutePath());
+            src = FileChannel.open(srcFile.toPath(), StandardOpenOption.READ);
+            return uploadToContainer(containerID, src, srcFile.length(), blobName);
+        }
+        finally {
+            Helper.closeStream(src);
+        }
+    }
+
+    /**
+     * Uploads everything read from a channel to a container.
+     * 
+     * The data is encrypted and sent block by block while it is being read,
+     * so its length does not need to be known up front. The channel is not closed.
+     * 
+     * @param containerID A 64-bit integer container ID.
+     * @param src Channel to upload, read up to its end.
+     * @param blobName Blob ID to be used.
+     * @return The outcome, including the SHA-256 digest of the uploaded plaintext.
+     * @throws Exception 
+     */
+    public TransferResult uploadToContainer(long containerID, ReadableByteChannel src, String blobName) throws Exception {
+        return uploadToContainer(containerID, src, -1, blobName);
+    }
+
+    /**
+     * Uploads everything read from a stream to a container.
+     * 
+     * The data is encrypted and sent block by block while it is being read,
+     * so its length does not need to be known up front. The stream is not closed.
+     * 
+     * @param containerID A 64-bit integer container ID.
+     * @param src Stream to upload, read up to its end.
+     * @param blobName Blob ID to be used.
+     * @return The outcome, including the SHA-256 digest of the uploaded plaintext.
+     * @throws Exception 
+     */
+    public TransferResult uploadToContainer(long containerID, InputStream src, String blobName) throws Exception {
+        return uploadToContainer(containerID, Channels.newChannel(src), -1, blobName);
+    }
+
+    private TransferResult uploadToContainer(long containerID, ReadableByteChannel src, long srcSize, String blobName) throws Exception {
+        return uploadToContainers(LongList.of(containerID), src, srcSize, blobName);
+    }
+
+    private TransferResult uploadToContainers(LongList containerIDs, ReadableByteChannel src, long srcSize, String blobName) throws Exception {
+        if (containerIDs.isEmpty()) {
+            throw new IllegalArgumentException("No container IDs given.");
+        }
+
+        transferGate.enter();
+        boolean success = false;
+        try {
+            TransferResult result = upload(containerIDs, src, srcSize, blobName);
+            success = result.isSuccess();
+            return result;
+        }
+        finally {
+            transferGate.exit();
+            statistics.transferEnded(success);
+        }
+    }
+
+    private TransferResult upload(LongList containerIDs, ReadableByteChannel src, long srcSize, String blobName) throws Exception {
+
+        TransferRecorder recorder = new TransferRecorder();
+
         // Step 1:
         // Test to make sure that the API server is accessible.
         if (!ping()) {
             throw new Exception("IronBox API server is not accessible from this network location!");
         }
+        recorder.endPhase(TransferResult.Phase.PING);
         logger.info("IronBox API is up, starting transfer.");
 
-        // Step 2:
-        // Get the container key data.
-        ContainerKeyData ckd = getContainerKeyData(containerID);
-        logger.info("Retrieved container symmetric key data.");
+        int targets = containerIDs.size();
+        String[] blobIDs = new String[targets];
+        BlobCheckOutData[] checkOuts = new BlobCheckOutData[targets];
+        Cipher[] ciphers = new Cipher[targets];
+        URI[] sasURIs = new URI[targets];
+        for (int i = 0; i < targets; i++) {
+            long containerID = containerIDs.getLong(i);
 
-        // Step 3:
-        // Create a container blob and check it out.
-        // This doesn't actually upload the contents, just creates the entry,
-        // and does a "check out" which lets IronBox know you're going to upload
-        // contents soon. As part of the checkout process you'll get a check in
-        // token that is your way to check the blob back in.
-        String blobID = createEntityContainerBlob(containerID, blobName);
-        BlobCheckOutData bcod = checkOutEntityContainerBlob(containerID, blobID);
+            // Step 2:
+            // Get the container key data.
+            ContainerKeyData ckd = getContainerKeyData(containerID);
+            recorder.endPhase(TransferResult.Phase.KEY_FETCH);
+            logger.info("Retrieved container symmetric key data.");
+
+            // Step 3:
+            // Create a container blob and check it out.
+            // This doesn't actually upload the contents, just creates the entry,
+            // and does a "check out" which lets IronBox know you're going to upload
+            // contents soon. As part of the checkout process you'll get a check in
+            // token that is your way to check the blob back in.
+            blobIDs[i] = createEntityContainerBlob(containerID, blobName);
+            recorder.endPhase(TransferResult.Phase.CREATE);
+            checkOuts[i] = checkOutEntityContainerBlob(containerID, blobIDs[i]);
+            recorder.endPhase(TransferResult.Phase.CHECK_OUT);
+            ciphers[i] = Crypt.newCipher(Cipher.ENCRYPT_MODE, ckd.getSessionKey(), ckd.getSessionIV());
+            sasURIs[i] = checkOuts[i].getSharedAccessSignatureURI();
+        }
 
         // Step 4:
-        // Encrypt the input file.
-        logger.info("Encrypting file: " + srcFile.getAbsolutePath());
-        File encryptedFile = new File(srcFile.getAbsolutePath() + ".ironbox");
-        IronBoxClient.encryptFile(srcFile, encryptedFile, ckd);
+        // Encrypt the input while uploading it using the shared acccess
+        // signatures we got at checkout. The input is read only once.
+        UploadPipeline pipeline = new UploadPipeline(rh, pipelineStatistics, uploadQueueCapacity, srcSize);
+        ProgressTracker progress = newProgressTracker(TransferProgressListener.Direction.UPLOAD);
+        if (srcSize >= 0) {
+            progress.setTotalBytes(Crypt.getEncryptedSize(srcSize) * targets);
+        }
+        boolean uploaded = pipeline.upload(src, progress, ciphers, sasURIs);
+        recorder.addPhaseNanos(TransferResult.Phase.ENCRYPT, pipeline.getEncryptNanos());
+        recorder.addPhaseNanos(TransferResult.Phase.TRANSFER, pipeline.getTransferNanos());
+        recorder.addPhaseNanos(TransferResult.Phase.COMMIT, pipeline.getCommitNanos());
+        recorder.addBytesTransferred(pipeline.getBytesSent());
+        recorder.addBlocks(pipeline.getBlocksSent());
+        recorder.addRetries(pipeline.getRetries());
+        if (!uploaded) {
+            logger.error("Failed to upload encrypted data.");
+            return recorder.toResult(false, pipeline.getInputSize(), null);
+        }
 
         // Step 5:
-        // Upload the encrypted file using the shared acccess signature we got
-        // at checkout.
-        logger.info("Uploading encrypted file: " + encryptedFile.getAbsolutePath());
-        if (!uploadBlobWithSharedAccessSignatureUri(encryptedFile, bcod.getSharedAccessSignatureURI())) {
-	    logger.error("Failed to upload encrypted file.");
-            return false;
+        // Mark the blobs as ready to download by checking them back in with
+        // the plaintext size counted while encrypting. If one of them cannot
+        // be checked in, the ones already checked in are removed again, so
+        // that the upload fails for all containers rather than some.
+        for (int i = 0; i < targets; i++) {
+            long containerID = containerIDs.getLong(i);
+            boolean checkedIn = false;
+            try {
+                checkedIn = checkInEntityContainerBlob(containerID, blobIDs[i], pipeline.getInputSize(), checkOuts[i].getCheckInToken());
+            }
+            finally {
+                if (!checkedIn) {
+                    removeBlobs(containerIDs, blobIDs, i);
+                }
+            }
+            recorder.endPhase(TransferResult.Phase.CHECK_IN);
+            if (!checkedIn) {
+                logger.error("Failed to check-in blob.");
+                return recorder.toResult(false, pipeline.getInputSize(), null);
+            }
         }
 
-        // Step 6:
-        // Mark the file as ready to download by checking it back in.
-        if (!checkInEntityContainerBlob(containerID, blobID, srcFile.length(), bcod.getCheckInToken())) {
-	    logger.error("Failed to check-in blob.");
-            return false;
+        TransferResult result = recorder.toResult(true, pipeline.getInputSize(), pipeline.getPlaintextSHA256());
+        logger.info("Upload completed: %s", result);
+        return result;
+    }
+
+    /**
+     * Removes the first blobs of an upload to several containers, as far as
+     * possible. Failures are only logged.
+     */
+    private void removeBlobs(LongList containerIDs, String[] blobIDs, int count) {
+        for (int i = 0; i < count; i++) {
+            long containerID = containerIDs.getLong(i);
+            boolean removed = false;
+            try {
+                removed = removeEntityContainerBlob(containerID, blobIDs[i]);
+            }
+            catch (Exception e) {
+                // Logged below.
+            }
+            if (!removed) {
+                logger.warn("Failed to remove blob %s from container %d.", blobIDs[i], containerID);
+            }
         }
+    }
 
-        // Delete encrypted file.
-        logger.info("Upload completed, cleaning up.");
-        return encryptedFile.delete();
+    /**
+     * Same as {@link #uploadFileToContainer(long, File, String)}, for a boxed container ID.
+     */
+    public TransferResult uploadFileToContainer(Long containerID, File srcFile, String blobName) throws Exception {
+        return uploadFileToContainer(containerID.longValue(), srcFile, blobName);
+    }
+
+    /**
+     * Uploads a file to several containers, for example to share it with
+     * different parties.
+     * 
+     * The file is read only once and encrypted separately with the key of
+     * each container. If the upload to any container fails, the uploads to
+     * all of them are cancelled, and blobs already checked in to some
+     * containers are removed again.
+     * 
+     * @param containerIDs The 64-bit integer container IDs.
+     * @param srcFile File to upload.
+     * @param blobName Blob ID to be used.
+     * @return The outcome, including the SHA-256 digest of the uploaded plaintext.
+     * @throws Exception 
+     */
+    public TransferResult uploadFileToContainers(LongList containerIDs, File srcFile, String blobName) throws Exception {
+        if (!srcFile.exists() || !srcFile.isFile()) {
+            String msg = "File not found: " + srcFile.getAbsolutePath();
+            logger.error(msg);
+            throw new FileNotFoundException(msg);
+        }
+
+        FileChannel src = null;
+        try {
+            logger.info("Uploading file: %s", srcFile.getAbsolutePath());
+            src = FileChannel.open(srcFile.toPath(), StandardOpenOption.READ);
+            return uploadToContainers(containerIDs, src, srcFile.length(), blobName);
+        }
+        finally {
+            Helper.closeStream(src);
+        }
+    }
+
+    /**
+     * Uploads everything read from a channel to several containers.
+     * 
+     * The channel is read only once and encrypted separately with the key of
+     * each container. If the upload to any container fails, the uploads to
+     * all of them are cancelled, and blobs already checked in to some
+     * containers are removed again. The channel is not closed.
+     * 
+     * @param containerIDs The 64-bit integer container IDs.
+     * @param src Channel to upload, read up to its end.
+     * @param blobName Blob ID to be used.
+     * @return The outcome, including the SHA-256 digest of the uploaded plaintext.
+     * @throws Exception 
+     */
+    public TransferResult uploadToContainers(LongList containerIDs, ReadableByteChannel src, String blobName) throws Exception {
+        return uploadToContainers(containerIDs, src, -1, blobName);
+    }
+
+    /**
+     * Uploads everything read from a stream to several containers.
+     * 
+     * The stream is read only once and encrypted separately with the key of
+     * each container. If the upload to any container fails, the uploads to
+     * all of them are cancelled, and blobs already checked in to some
+     * containers are removed again. The stream is not closed.
+     * 
+     * @param containerIDs The 64-bit integer container IDs.
+     * @param src Stream to upload, read up to its end.
+     * @param blobName Blob ID to be used.
+     * @return The outcome, including the SHA-256 digest of the uploaded plaintext.
+     * @throws Exception 
+     */
+    public TransferResult uploadToContainers(LongList containerIDs, InputStream src, String blobName) throws Exception {
+        return uploadToContainers(containerIDs, Channels.newChannel(src), -1, blobName);
     }
 
     /**
@@ -146,40 +655,194 @@ public class IronBoxClient {
      * @param containerID A 64-bit integer container ID.
      * @param blobID Blob ID to be downloaded.
      * @param localFile File to save to.
-     * @return
+     * @return The outcome, including the time spent in each phase.
+     * @throws Exception 
+     */
+    public TransferResult downloadBlobFromContainer(long containerID, String blobID, File localFile) throws Exception {
+        if (!localFile.createNewFile()) {
+            String msg = "File already exists: " + localFile.getAbsolutePath();
+            logger.error(msg);
+            throw new Exception(msg);
+        }
+
+        FileChannel dest = null;
+        boolean done = false;
+        try {
+            logger.info("Downloading to file: %s", localFile.getAbsolutePath());
+            dest = FileChannel.open(localFile.toPath(), StandardOpenOption.WRITE);
+            TransferResult result = downloadBlobFromContainer(containerID, blobID, dest);
+            done = result.isSuccess();
+            return result;
+        }
+        finally {
+            Helper.closeStream(dest);
+            // Do not leave partial plaintext behind.
+            if (!done) {
+                localFile.delete();
+            }
+        }
+    }
+
+    /**
+     * Downloads a blob and writes its decrypted content to a stream.
+     * 
+     * The blob is decrypted while it is being received, nothing is written
+     * to disk. The stream is flushed, but not closed.
+     * 
+     * @param containerID A 64-bit integer container ID.
+     * @param blobID Blob ID to be downloaded.
+     * @param dest Stream to write the plaintext to.
+     * @return The outcome, including the time spent in each phase.
      * @throws Exception 
      */
-    public boolean downloadBlobFromContainer(Long containerID, String blobID, File localFile) throws Exception {
+    public TransferResult downloadBlobFromContainer(long containerID, String blobID, OutputStream dest) throws Exception {
+        TransferResult result = downloadBlobFromContainer(containerID, blobID, Channels.newChannel(dest));
+        dest.flush();
+        return result;
+    }
+
+    /**
+     * Downloads a blob and writes its decrypted content to a channel.
+     * 
+     * The blob is decrypted while it is being received, nothing is written
+     * to disk. The channel is not closed.
+     * 
+     * @param containerID A 64-bit integer container ID.
+     * @param blobID Blob ID to be downloaded.
+     * @param dest Channel to write the plaintext to.
+     * @return The outcome, including the time spent in each phase.
+     * @throws Exception 
+     */
+    public TransferResult downloadBlobFromContainer(long containerID, String blobID, WritableByteChannel dest) throws Exception {
+        transferGate.enter();
+        boolean success = false;
+        try {
+            TransferResult result = download(containerID, blobID, dest);
+            success = result.isSuccess();
+            return result;
+        }
+        finally {
+            transferGate.exit();
+            statistics.transferEnded(success);
+        }
+    }
+
+    private TransferResult download(long containerID, String blobID, WritableByteChannel dest) throws Exception {
+        TransferRecorder recorder = new TransferRecorder();
+
         // Step 1:
         // Test to make sure that the API server is accessible.
         if (!ping()) {
             throw new Exception("IronBox API server is not accessible from this network location!");
         }
-        logger.info("IronBox API is up, starting transfer.");
-        logger.info("IronBox API is up, starting download of target file %s", localFile.getAbsolutePath());
+        recorder.endPhase(TransferResult.Phase.PING);
+        logger.info("IronBox API is up, starting download of blob %s", blobID);
 
         // Step 2:
         // Get the container key data.
         ContainerKeyData ckd = getContainerKeyData(containerID);
+        recorder.endPhase(TransferResult.Phase.KEY_FETCH);
         logger.info("Retrieved container symmetric key data.");
 
         // Step 3:
         // Download the blob read data, specifically we need a shared access
         // signature URI to the encrypted blob .
-	BlobReadData brd = readEntityContainerBlob(containerID, blobID);
-	logger.info("Retrieved blob download Shared Access Signature URI");
-        File encryptedFile = new File(localFile.getAbsolutePath() + ".encrypted");
-        rh.doHttpGet(brd.getSharedAccessSignatureURI().toURL(), encryptedFile);
+        BlobReadData brd = readEntityContainerBlob(containerID, blobID);
+        recorder.endPhase(TransferResult.Phase.CHECK_OUT);
+        logger.info("Retrieved blob download Shared Access Signature URI");
 
         // Step 4:
-	// Decrypt the downloaded blob
-	logger.info("Decrypting encrypted blob");
-        decryptFile(encryptedFile, localFile, ckd);
+        // Download the blob, decrypting it on the way.
+        CipherWritableByteChannel decrypted = new CipherWritableByteChannel(
+            dest,
+            Crypt.newCipher(Cipher.DECRYPT_MODE, ckd.getSessionKey(), ckd.getSessionIV()),
+            Cipher.DECRYPT_MODE,
+            cryptChunkSize
+        );
+        ProgressTracker progress = newProgressTracker(TransferProgressListener.Direction.DOWNLOAD);
+        recorder.addBytesTransferred(rh.doHttpGet(brd.getSharedAccessSignatureURI().toURL(), decrypted, progress));
+        decrypted.finish();
+        recorder.endPhase(TransferResult.Phase.TRANSFER);
+        recorder.addPhaseNanos(TransferResult.Phase.DECRYPT, decrypted.getCipherNanos());
+        rh.getMetrics().decrypted(decrypted.getOutputSize(), decrypted.getCipherNanos());
 
-        // Step 5:
-	// Done, clean up 
-	logger.info("Done, cleaning up %s", encryptedFile.getAbsolutePath());
-        return encryptedFile.delete();
+        TransferResult result = recorder.toResult(true, decrypted.getOutputSize(), null);
+        logger.info("Download completed: %s", result);
+        return result;
+    }
+
+    /**
+     * Same as {@link #downloadBlobFromContainer(long, String, File)}, for a boxed container ID.
+     */
+    public TransferResult downloadBlobFromContainer(Long containerID, String blobID, File localFile) throws Exception {
+        return downloadBlobFromContainer(containerID.longValue(), blobID, localFile);
+    }
+
+    /**
+     * Reads a range of the decrypted content of a blob.
+     * 
+     * Only the ciphertext blocks covering the range are downloaded, plus one
+     * block before it needed to decrypt them and one after it to detect the
+     * end of the blob.
+     * 
+     * @param containerID A 64-bit integer container ID.
+     * @param blobID Blob ID to be read.
+     * @param offset Plaintext offset of the first byte to read.
+     * @param length The number of bytes to read.
+     * @return The bytes read, fewer than length if the blob ends within the
+     *         range and none if it ends before offset.
+     * @throws Exception 
+     */
+    public byte[] readBlobRange(long containerID, String blobID, long offset, int length) throws Exception {
+        if (offset < 0 || length < 0) {
+            throw new IllegalArgumentException(String.format("Invalid range: offset=%d, length=%d", offset, length));
+        }
+
+        ContainerKeyData ckd = getContainerKeyData(containerID);
+        BlobReadData brd = readEntityContainerBlob(containerID, blobID);
+        BlobRangeReader reader = new BlobRangeReader(rh, brd.getSharedAccessSignatureURI().toURL(), ckd);
+
+        byte[] buf = new byte[length];
+        int bytesRead = reader.read(offset, buf, 0, length);
+        return (bytesRead == length) ? buf : Arrays.copyOf(buf, Math.max(0, bytesRead));
+    }
+
+    /**
+     * Opens a read-only channel over the decrypted content of a blob.
+     * 
+     * The channel fetches the content in 64 KB chunks with ranged GETs as it
+     * is read, and keeps the 16 most recently used chunks in memory. It
+     * relies on a shared access signature URI, so it stops working once
+     * that expires.
+     * 
+     * @param containerID A 64-bit integer container ID.
+     * @param blobID Blob ID to be read.
+     * @return A seekable channel over the blob's plaintext.
+     * @throws Exception 
+     */
+    public SeekableByteChannel openBlobChannel(long containerID, String blobID) throws Exception {
+        return openBlobChannel(
+            containerID, blobID,
+            BlobSeekableByteChannel.DEFAULT_CHUNK_SIZE,
+            BlobSeekableByteChannel.DEFAULT_CACHE_CHUNKS
+        );
+    }
+
+    /**
+     * Opens a read-only channel over the decrypted content of a blob.
+     * 
+     * @param containerID A 64-bit integer container ID.
+     * @param blobID Blob ID to be read.
+     * @param chunkSize The number of bytes fetched at once, a multiple of 16.
+     * @param cacheChunks The number of chunks kept in memory.
+     * @return A seekable channel over the blob's plaintext.
+     * @throws Exception 
+     * @see #openBlobChannel(long, String)
+     */
+    public SeekableByteChannel openBlobChannel(long containerID, String blobID, int chunkSize, int cacheChunks) throws Exception {
+        ContainerKeyData ckd = getContainerKeyData(containerID);
+        BlobReadData brd = readEntityContainerBlob(containerID, blobID);
+        return new BlobSeekableByteChannel(rh, brd.getSharedAccessSignatureURI().toURL(), ckd, chunkSize, cacheChunks);
     }
 
     /**
@@ -194,10 +857,17 @@ public class IronBoxClient {
      * @return true if successful, false else
      * @throws Exception 
      */
-    public boolean checkInEntityContainerBlob(Long containerID, String blobIDName, Long blobSizeBytes, String checkInToken) throws Exception {
+    public boolean checkInEntityContainerBlob(long containerID, String blobIDName, long blobSizeBytes, String checkInToken) throws Exception {
         return rh.checkInEntityContainerBlob(containerID, blobIDName, blobSizeBytes, checkInToken);
     }
 
+    /**
+     * Same as {@link #checkInEntityContainerBlob(long, String, long, String)}, for a boxed container ID and blob size.
+     */
+    public boolean checkInEntityContainerBlob(Long containerID, String blobIDName, Long blobSizeBytes, String checkInToken) throws Exception {
+        return checkInEntityContainerBlob(containerID.longValue(), blobIDName, blobSizeBytes.longValue(), checkInToken);
+    }
+
     /**
      * 
      * @param containerID A 64-bit integer container ID.
@@ -205,10 +875,17 @@ public class IronBoxClient {
      * @return A BlobCheckOutData object if successful.
      * @throws Exception 
      */
-    public BlobCheckOutData checkOutEntityContainerBlob(Long containerID, String blobIDName) throws Exception {
+    public BlobCheckOutData checkOutEntityContainerBlob(long containerID, String blobIDName) throws Exception {
         return rh.checkOutEntityContainerBlob(containerID, blobIDName);
     }
 
+    /**
+     * Same as {@link #checkOutEntityContainerBlob(long, String)}, for a boxed container ID.
+     */
+    public BlobCheckOutData checkOutEntityContainerBlob(Long containerID, String blobIDName) throws Exception {
+        return checkOutEntityContainerBlob(containerID.longValue(), blobIDName);
+    }
+
     /**
      * Returns the symmetric key material for the requested container.
      * 
@@ -219,10 +896,17 @@ public class IronBoxClient {
      * @return A ContainerKeyData object if successful.
      * @throws Exception 
      */
-    public ContainerKeyData getContainerKeyData(Long containerID) throws Exception {
+    public ContainerKeyData getContainerKeyData(long containerID) throws Exception {
         return rh.getContainerKeyData(containerID);
     }
 
+    /**
+     * Same as {@link #getContainerKeyData(long)}, for a boxed container ID.
+     */
+    public ContainerKeyData getContainerKeyData(Long containerID) throws Exception {
+        return getContainerKeyData(containerID.longValue());
+    }
+
     /**
      * Create a blob entry within an IronBox container.
      * 
@@ -231,10 +915,17 @@ public class IronBoxClient {
      * @return A unique blob ID that the caller can reference.
      * @throws Exception 
      */
-    public String createEntityContainerBlob(Long containerID, String blobName) throws Exception {
+    public String createEntityContainerBlob(long containerID, String blobName) throws Exception {
         return rh.createEntityContainerBlob(containerID, blobName);
     }
 
+    /**
+     * Same as {@link #createEntityContainerBlob(long, String)}, for a boxed container ID.
+     */
+    public String createEntityContainerBlob(Long containerID, String blobName) throws Exception {
+        return createEntityContainerBlob(containerID.longValue(), blobName);
+    }
+
     /**
      * Encrypts a file.
      * 
@@ -245,11 +936,25 @@ public class IronBoxClient {
      * @throws Exception 
      */
     public static void encryptFile(File inputFile, File outputFile, ContainerKeyData containerKeyData) throws Exception {
-        Crypt.encryptFile(inputFile, outputFile, containerKeyData.getSessionKeyBase64(), containerKeyData.getSessionIVBase64());
+        encryptFile(inputFile, outputFile, containerKeyData, Crypt.DEFAULT_CHUNK_SIZE);
     }
 
     /**
-     * Encrypts a file.
+     * Encrypts a file, passing the given number of bytes to the cipher at once.
+     * 
+     * @param inputFile The input file.
+     * @param outputFile The output file.
+     * @param containerKeyData A ContainerKeyData object containing encryption key material.
+     * @param chunkSize The chunk size in bytes.
+     * 
+     * @throws Exception 
+     */
+    public static void encryptFile(File inputFile, File outputFile, ContainerKeyData containerKeyData, int chunkSize) throws Exception {
+        Crypt.encryptFile(inputFile, outputFile, containerKeyData.getSessionKey(), containerKeyData.getSessionIV(), chunkSize, Logger.DEFAULT);
+    }
+
+    /**
+     * Decrypts a file.
      * 
      * @param inputFile The input file.
      * @param outputFile The output file.
@@ -258,7 +963,195 @@ public class IronBoxClient {
      * @throws Exception 
      */
     public static void decryptFile(File inputFile, File outputFile, ContainerKeyData containerKeyData) throws Exception {
-        Crypt.decryptFile(inputFile, outputFile, containerKeyData.getSessionKeyBase64(), containerKeyData.getSessionIVBase64());
+        decryptFile(inputFile, outputFile, containerKeyData, Crypt.DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Decrypts a file, passing the given number of bytes to the cipher at once.
+     * 
+     * @param inputFile The input file.
+     * @param outputFile The output file.
+     * @param containerKeyData A ContainerKeyData object containing decryption key material.
+     * @param chunkSize The chunk size in bytes.
+     * 
+     * @throws Exception 
+     */
+    public static void decryptFile(File inputFile, File outputFile, ContainerKeyData containerKeyData, int chunkSize) throws Exception {
+        Crypt.decryptFile(inputFile, outputFile, containerKeyData.getSessionKey(), containerKeyData.getSessionIV(), chunkSize, Logger.DEFAULT);
+    }
+
+    /**
+     * Encrypts all data read from a channel and writes the ciphertext to another channel.
+     * 
+     * The output has the same format as {@link #encryptFile(File, File, ContainerKeyData)}.
+     * Neither channel is closed.
+     * 
+     * @param in The plaintext channel, read up to its end.
+     * @param out The ciphertext channel.
+     * @param containerKeyData A ContainerKeyData object containing encryption key material.
+     * 
+     * @throws Exception 
+     */
+    public static void encrypt(ReadableByteChannel in, WritableByteChannel out, ContainerKeyData containerKeyData) throws Exception {
+        Crypt.encrypt(in, out, containerKeyData.getSessionKey(), containerKeyData.getSessionIV(), Crypt.DEFAULT_CHUNK_SIZE, Logger.DEFAULT);
+    }
+
+    /**
+     * Decrypts all data read from a channel and writes the plaintext to another channel.
+     * 
+     * Neither channel is closed.
+     * 
+     * @param in The ciphertext channel, read up to its end.
+     * @param out The plaintext channel.
+     * @param containerKeyData A ContainerKeyData object containing decryption key material.
+     * 
+     * @throws Exception 
+     */
+    public static void decrypt(ReadableByteChannel in, WritableByteChannel out, ContainerKeyData containerKeyData) throws Exception {
+        Crypt.decrypt(in, out, containerKeyData.getSessionKey(), containerKeyData.getSessionIV(), Crypt.DEFAULT_CHUNK_SIZE, Logger.DEFAULT);
+    }
+
+    /**
+     * Encrypts all data read from a stream and writes the ciphertext to another stream.
+     * 
+     * The output has the same format as {@link #encryptFile(File, File, ContainerKeyData)}.
+     * Neither stream is closed, the output stream is flushed.
+     * 
+     * @param in The plaintext stream, read up to its end.
+     * @param out The ciphertext stream.
+     * @param containerKeyData A ContainerKeyData object containing encryption key material.
+     * 
+     * @throws Exception 
+     */
+    public static void encrypt(InputStream in, OutputStream out, ContainerKeyData containerKeyData) throws Exception {
+        encrypt(Channels.newChannel(in), Channels.newChannel(out), containerKeyData);
+        out.flush();
+    }
+
+    /**
+     * Decrypts all data read from a stream and writes the plaintext to another stream.
+     * 
+     * Neither stream is closed, the output stream is flushed.
+     * 
+     * @param in The ciphertext stream, read up to its end.
+     * @param out The plaintext stream.
+     * @param containerKeyData A ContainerKeyData object containing decryption key material.
+     * 
+     * @throws Exception 
+     */
+    public static void decrypt(InputStream in, OutputStream out, ContainerKeyData containerKeyData) throws Exception {
+        decrypt(Channels.newChannel(in), Channels.newChannel(out), containerKeyData);
+        out.flush();
+    }
+
+    /**
+     * Encrypts the remaining bytes of a buffer.
+     * 
+     * @param plaintext The plaintext, consumed up to its limit.
+     * @param containerKeyData A ContainerKeyData object containing encryption key material.
+     * @return A new buffer holding the ciphertext, ready for reading.
+     * 
+     * @throws Exception 
+     */
+    public static ByteBuffer encrypt(ByteBuffer plaintext, ContainerKeyData containerKeyData) throws Exception {
+        return Crypt.doFinal(Cipher.ENCRYPT_MODE, plaintext, containerKeyData.getSessionKey(), containerKeyData.getSessionIV());
+    }
+
+    /**
+     * Decrypts the remaining bytes of a buffer.
+     * 
+     * @param ciphertext The ciphertext, consumed up to its limit.
+     * @param containerKeyData A ContainerKeyData object containing decryption key material.
+     * @return A new buffer holding the plaintext, ready for reading.
+     * 
+     * @throws Exception 
+     */
+    public static ByteBuffer decrypt(ByteBuffer ciphertext, ContainerKeyData containerKeyData) throws Exception {
+        return Crypt.doFinal(Cipher.DECRYPT_MODE, ciphertext, containerKeyData.getSessionKey(), containerKeyData.getSessionIV());
+    }
+
+    /**
+     * Encrypts a byte array.
+     * 
+     * @param plaintext The plaintext.
+     * @param containerKeyData A ContainerKeyData object containing encryption key material.
+     * @return The ciphertext.
+     * 
+     * @throws Exception 
+     */
+    public static byte[] encrypt(byte[] plaintext, ContainerKeyData containerKeyData) throws Exception {
+        return Crypt.doFinal(Cipher.ENCRYPT_MODE, plaintext, containerKeyData.getSessionKey(), containerKeyData.getSessionIV());
+    }
+
+    /**
+     * Decrypts a byte array.
+     * 
+     * @param ciphertext The ciphertext.
+     * @param containerKeyData A ContainerKeyData object containing decryption key material.
+     * @return The plaintext.
+     * 
+     * @throws Exception 
+     */
+    public static byte[] decrypt(byte[] ciphertext, ContainerKeyData containerKeyData) throws Exception {
+        return Crypt.doFinal(Cipher.DECRYPT_MODE, ciphertext, containerKeyData.getSessionKey(), containerKeyData.getSessionIV());
+    }
+
+    /**
+     * Wraps a stream so that plaintext written to the returned stream reaches it encrypted.
+     * 
+     * The final block is written when the returned stream is closed, which also closes the wrapped stream.
+     * 
+     * @param out The ciphertext stream.
+     * @param containerKeyData A ContainerKeyData object containing encryption key material.
+     * @return A stream accepting plaintext.
+     * 
+     * @throws Exception 
+     */
+    public static OutputStream newEncryptingOutputStream(OutputStream out, ContainerKeyData containerKeyData) throws Exception {
+        return new CipherChannelOutputStream(out, Crypt.newCipher(Cipher.ENCRYPT_MODE, containerKeyData.getSessionKey(), containerKeyData.getSessionIV()), Cipher.ENCRYPT_MODE, Crypt.CHANNEL_CHUNK_SIZE);
+    }
+
+    /**
+     * Wraps a stream of ciphertext so that the returned stream yields the plaintext.
+     * 
+     * @param in The ciphertext stream.
+     * @param containerKeyData A ContainerKeyData object containing decryption key material.
+     * @return A stream yielding plaintext.
+     * 
+     * @throws Exception 
+     */
+    public static InputStream newDecryptingInputStream(InputStream in, ContainerKeyData containerKeyData) throws Exception {
+        return Channels.newInputStream(newDecryptingChannel(Channels.newChannel(in), containerKeyData));
+    }
+
+    /**
+     * Wraps a channel of plaintext so that the returned channel yields the ciphertext.
+     * 
+     * The wrapped channel is read a chunk at a time. Closing the returned channel closes the wrapped channel.
+     * 
+     * @param in The plaintext channel.
+     * @param containerKeyData A ContainerKeyData object containing encryption key material.
+     * @return A channel yielding ciphertext.
+     * 
+     * @throws Exception 
+     */
+    public static ReadableByteChannel newEncryptingChannel(ReadableByteChannel in, ContainerKeyData containerKeyData) throws Exception {
+        return new CipherReadableByteChannel(in, Crypt.newCipher(Cipher.ENCRYPT_MODE, containerKeyData.getSessionKey(), containerKeyData.getSessionIV()), Cipher.ENCRYPT_MODE, Crypt.CHANNEL_CHUNK_SIZE);
+    }
+
+    /**
+     * Wraps a channel of ciphertext so that the returned channel yields the plaintext.
+     * 
+     * The wrapped channel is read a chunk at a time. Closing the returned channel closes the wrapped channel.
+     * 
+     * @param in The ciphertext channel.
+     * @param containerKeyData A ContainerKeyData object containing decryption key material.
+     * @return A channel yielding plaintext.
+     * 
+     * @throws Exception 
+     */
+    public static ReadableByteChannel newDecryptingChannel(ReadableByteChannel in, ContainerKeyData containerKeyData) throws Exception {
+        return new CipherReadableByteChannel(in, Crypt.newCipher(Cipher.DECRYPT_MODE, containerKeyData.getSessionKey(), containerKeyData.getSessionIV()), Cipher.DECRYPT_MODE, Crypt.CHANNEL_CHUNK_SIZE);
     }
 
     /**
@@ -286,10 +1179,17 @@ public class IronBoxClient {
      * @return A list of BlobInfo objects.
      * @throws Exception 
      */
-    public List<BlobInfo> getContainerBlobInfoListByState(Long containerID, BlobState blobState) throws Exception {
+    public List<BlobInfo> getContainerBlobInfoListByState(long containerID, BlobState blobState) throws Exception {
         return rh.getContainerBlobInfoListByState(containerID, blobState);
     }
 
+    /**
+     * Same as {@link #getContainerBlobInfoListByState(long, BlobState)}, for a boxed container ID.
+     */
+    public List<BlobInfo> getContainerBlobInfoListByState(Long containerID, BlobState blobState) throws Exception {
+        return getContainerBlobInfoListByState(containerID.longValue(), blobState);
+    }
+
     /**
      * Gets a list of container IDs and container names that an entity is a member of by context.
      * 
@@ -322,11 +1222,25 @@ public class IronBoxClient {
      * @param containerName The name of the container
      * @return List of containers IDs that match the container name provided
      * @throws Exception
+     * @see #getContainerIDListFromName(String)
      */
     public List<Long> getContainerIDsFromName(String containerName) throws Exception {
         return rh.getContainerIDsFromName(containerName);
     }
 
+    /**
+     * Gets a list of container IDs for container name, readable without
+     * boxing through {@link LongList#getLong(int)}.
+     * Only IDs for containers that the calling entity is an owner or member of will be returned.
+     *
+     * @param containerName The name of the container
+     * @return List of containers IDs that match the container name provided
+     * @throws Exception
+     */
+    public LongList getContainerIDListFromName(String containerName) throws Exception {
+        return rh.getContainerIDsFromName(containerName);
+    }
+
     /**
      * Get context setting.
      * The requesting entity must be a member of the context in order to make this call.
@@ -361,10 +1275,17 @@ public class IronBoxClient {
      * @return BlobReadData object
      * @throws Exception
      */
-    public BlobReadData readEntityContainerBlob(Long containerID, String blobID) throws Exception {
+    public BlobReadData readEntityContainerBlob(long containerID, String blobID) throws Exception {
         return rh.readEntityContainerBlob(containerID, blobID);
     }
 
+    /**
+     * Same as {@link #readEntityContainerBlob(long, String)}, for a boxed container ID.
+     */
+    public BlobReadData readEntityContainerBlob(Long containerID, String blobID) throws Exception {
+        return readEntityContainerBlob(containerID.longValue(), blobID);
+    }
+
     /**
      * Removes an IronBox entity container.
      * Caller must be the owner of the container being removed.
@@ -373,10 +1294,17 @@ public class IronBoxClient {
      * @return true if successful, false else
      * @throws Exception
      */
-    public boolean removeEntityContainer(Long containerID) throws Exception {
+    public boolean removeEntityContainer(long containerID) throws Exception {
         return rh.removeEntityContainer(containerID);
     }
 
+    /**
+     * Same as {@link #removeEntityContainer(long)}, for a boxed container ID.
+     */
+    public boolean removeEntityContainer(Long containerID) throws Exception {
+        return removeEntityContainer(containerID.longValue());
+    }
+
     /**
      * Removes a blob from an entity container.
      *
@@ -385,8 +1313,15 @@ public class IronBoxClient {
      * @return true if successful, false else
      * @throws Exception
      */
-    public boolean removeEntityContainerBlob(Long containerID, String blobID) throws Exception {
+    public boolean removeEntityContainerBlob(long containerID, String blobID) throws Exception {
         return rh.removeEntityContainerBlob(containerID, blobID);
     }
 
+    /**
+     * Same as {@link #removeEntityContainerBlob(long, String)}, for a boxed container ID.
+     */
+    public boolean removeEntityContainerBlob(Long containerID, String blobID) throws Exception {
+        return removeEntityContainerBlob(containerID.longValue(), blobID);
+    }
+
 }
@@ -0,0 +1,156 @@
+package com.goironbox.client;
+
+/**
+ * Management interface of an {@link IronBoxClient}, for monitoring tools
+ * such as JConsole or VisualVM.
+ * 
+ * Counters run from the creation of the client. Rates are measured between
+ * reads at least a second apart, so a tool polling them sees the rate since
+ * its previous poll.
+ * 
+ * @since   2.0
+ * @see IronBoxClient#registerMBean(String)
+ */
+public interface IronBoxClientMXBean {
+
+    /**
+     * @return the number of uploads and downloads running
+     */
+    int getActiveTransfers();
+
+    /**
+     * @return the number of transfers waiting to start, because transfers
+     *         are paused or the limit is reached
+     */
+    int getWaitingTransfers();
+
+    /**
+     * @return the number of transfers that succeeded
+     */
+    long getCompletedTransfers();
+
+    /**
+     * @return the number of transfers that failed or were rejected
+     */
+    long getFailedTransfers();
+
+    /**
+     * @return the number of uploads, counted per target container, whose
+     *         blocks are being encrypted and sent
+     */
+    int getActiveUploads();
+
+    /**
+     * @return the number of plaintext segments waiting to be encrypted
+     */
+    int getEncryptQueueDepth();
+
+    /**
+     * @return the number of encrypted blocks waiting to be sent
+     */
+    int getUploadQueueDepth();
+
+    /**
+     * @return the number of blocks sent
+     */
+    long getBlocksUploaded();
+
+    /**
+     * @return the number of request body bytes sent
+     */
+    long getBytesSent();
+
+    /**
+     * @return the number of response body bytes received
+     */
+    long getBytesReceived();
+
+    /**
+     * @return the number of request body bytes sent per second
+     */
+    double getBytesSentPerSecond();
+
+    /**
+     * @return the number of response body bytes received per second
+     */
+    double getBytesReceivedPerSecond();
+
+    /**
+     * Gets the number of requests in flight, each holding an HTTP connection.
+     * Idle connections are kept for reuse by the JDK, up to
+     * {@link #getMaxIdleConnectionsPerHost()} per host.
+     * 
+     * @return the number of connections in use
+     */
+    int getInFlightRequests();
+
+    /**
+     * @return the number of idle connections the JDK keeps per host, as set
+     *         by the http.maxConnections system property
+     */
+    int getMaxIdleConnectionsPerHost();
+
+    /**
+     * @return the number of requests sent
+     */
+    long getRequests();
+
+    /**
+     * @return the number of requests that failed without a response or with
+     *         an error status
+     */
+    long getFailedRequests();
+
+    /**
+     * @return the share of requests that failed, between 0 and 1
+     */
+    double getRequestErrorRate();
+
+    /**
+     * @return the number of requests repeated after a transient failure
+     */
+    long getRetries();
+
+    /**
+     * @return true if new transfers are held back
+     */
+    boolean isTransfersPaused();
+
+    /**
+     * Holds back new transfers until {@link #resumeTransfers()} is called.
+     * Running transfers are not affected.
+     */
+    void pauseTransfers();
+
+    /**
+     * Lets transfers held back by {@link #pauseTransfers()} start.
+     */
+    void resumeTransfers();
+
+    /**
+     * @return the number of transfers allowed to run at once
+     */
+    int getMaxConcurrentTransfers();
+
+    /**
+     * Sets the number of transfers allowed to run at once. Transfers over
+     * the limit wait until others end.
+     * 
+     * @param maxConcurrentTransfers The limit, unlimited by default.
+     */
+    void setMaxConcurrentTransfers(int maxConcurrentTransfers);
+
+    /**
+     * @return the number of blocks queued between upload stages
+     */
+    int getUploadQueueCapacity();
+
+    /**
+     * Sets the number of blocks queued between upload stages, for uploads
+     * starting from now.
+     * 
+     * @param uploadQueueCapacity The queue capacity.
+     */
+    void setUploadQueueCapacity(int uploadQueueCapacity);
+
+}
@@ -0,0 +1,151 @@
+package com.goironbox.client;
+
+/**
+ * The MBean of a client, reading its statistics and controlling its
+ * transfer gate.
+ *
+ * @since   2.0
+ */
+class IronBoxClientMonitor implements IronBoxClientMXBean {
+
+    private static final int DEFAULT_MAX_CONNECTIONS = 5;
+
+    private final IronBoxClient client;
+    private final ClientStatistics statistics;
+    private final PipelineStatistics pipelineStatistics;
+    private final TransferGate transferGate;
+
+    IronBoxClientMonitor(IronBoxClient client, ClientStatistics statistics, PipelineStatistics pipelineStatistics, TransferGate transferGate) {
+        this.client = client;
+        this.statistics = statistics;
+        this.pipelineStatistics = pipelineStatistics;
+        this.transferGate = transferGate;
+    }
+
+    @Override
+    public int getActiveTransfers() {
+        return transferGate.getActive();
+    }
+
+    @Override
+    public int getWaitingTransfers() {
+        return transferGate.getWaiting();
+    }
+
+    @Override
+    public long getCompletedTransfers() {
+        return statistics.getCompletedTransfers();
+    }
+
+    @Override
+    public long getFailedTransfers() {
+        return statistics.getFailedTransfers();
+    }
+
+    @Override
+    public int getActiveUploads() {
+        return pipelineStatistics.getActiveUploads();
+    }
+
+    @Override
+    public int getEncryptQueueDepth() {
+        return pipelineStatistics.getEncryptQueueDepth();
+    }
+
+    @Override
+    public int getUploadQueueDepth() {
+        return pipelineStatistics.getUploadQueueDepth();
+    }
+
+    @Override
+    public long getBlocksUploaded() {
+        return pipelineStatistics.getBlocksUploaded();
+    }
+
+    @Override
+    public long getBytesSent() {
+        return statistics.getBytesSent().getTotal();
+    }
+
+    @Override
+    public long getBytesReceived() {
+        return statistics.getBytesReceived().getTotal();
+    }
+
+    @Override
+    public double getBytesSentPerSecond() {
+        return statistics.getBytesSent().getRatePerSecond();
+    }
+
+    @Override
+    public double getBytesReceivedPerSecond() {
+        return statistics.getBytesReceived().getRatePerSecond();
+    }
+
+    @Override
+    public int getInFlightRequests() {
+        return statistics.getInFlightRequests();
+    }
+
+    @Override
+    public int getMaxIdleConnectionsPerHost() {
+        return Integer.getInteger("http.maxConnections", DEFAULT_MAX_CONNECTIONS);
+    }
+
+    @Override
+    public long getRequests() {
+        return statistics.getRequests();
+    }
+
+    @Override
+    public long getFailedRequests() {
+        return statistics.getFailedRequests();
+    }
+
+    @Override
+    public double getRequestErrorRate() {
+        long requests = statistics.getRequests();
+        return (0 == requests) ? 0 : (double)statistics.getFailedRequests() / requests;
+    }
+
+    @Override
+    public long getRetries() {
+        return statistics.getRetries();
+    }
+
+    @Override
+    public boolean isTransfersPaused() {
+        return transferGate.isPaused();
+    }
+
+    @Override
+    public void pauseTransfers() {
+        client.pauseTransfers();
+    }
+
+    @Override
+    public void resumeTransfers() {
+        client.resumeTransfers();
+    }
+
+    @Override
+    public int getMaxConcurrentTransfers() {
+        return transferGate.getMaxActive();
+    }
+
+    @Override
+    public void setMaxConcurrentTransfers(int maxConcurrentTransfers) {
+        client.setMaxConcurrentTransfers(maxConcurrentTransfers);
+    }
+
+    @Override
+    public int getUploadQueueCapacity() {
+        return client.getUploadQueueCapacity();
+    }
+
+    @Override
+    public void setUploadQueueCapacity(int uploadQueueCapacity) {
+        client.setUploadQueueCapacity(uploadQueueCapacity);
+    }
+
+}
@@ -40,12 +40,24 @@ SOFTWARE.
  */
 class JSONTokener {
 
+    /**
+     * Strings up to this length are resolved through the symbol table.
+     */
+    private static final int SYMBOL_MAX_LENGTH = 32;
+
+    /**
+     * Number of symbol table slots, must be a power of two.
+     */
+    private static final int SYMBOL_TABLE_SIZE = 256;
+
+    private char[]  buffer;
     private long    character;
     private boolean eof;
     private long    index;
     private long    line;
     private char    previous;
     private Reader  reader;
+    private String[] symbols;
     private boolean usePrevious;
 
 
@@ -64,6 +76,8 @@ class JSONTokener {
         this.index = 0;
         this.character = 1;
         this.line = 1;
+        this.buffer = new char[64];
+        this.symbols = new String[SYMBOL_TABLE_SIZE];
     }
 
 
@@ -250,7 +264,7 @@ class JSONTokener {
      */
     public String nextString(char quote) throws JSONException {
         char c;
-        StringBuffer sb = new StringBuffer();
+        int length = 0;
         for (;;) {
             c = this.next();
             switch (c) {
@@ -262,28 +276,27 @@ class JSONTokener {
                 c = this.next();
                 switch (c) {
                 case 'b':
-                    sb.append('\b');
+                    c = '\b';
                     break;
                 case 't':
-                    sb.append('\t');
+                    c = '\t';
                     break;
                 case 'n':
-                    sb.append('\n');
+                    c = '\n';
                     break;
                 case 'f':
-                    sb.append('\f');
+                    c = '\f';
                     break;
                 case 'r':
-                    sb.append('\r');
+                    c = '\r';
                     break;
                 case 'u':
-                    sb.append((char)Integer.parseInt(this.next(4), 16));
+                    c = (char)Integer.parseInt(this.next(4), 16);
                     break;
                 case '"':
                 case '\'':
                 case '\\':
                 case '/':
-                    sb.append(c);
                     break;
                 default:
                     throw this.syntaxError("Illegal escape.");
@@ -291,11 +304,61 @@ class JSONTokener {
                 break;
             default:
                 if (c == quote) {
-                    return sb.toString();
+                    return this.symbol(length);
                 }
-                sb.append(c);
+            }
+            length = this.append(length, c);
+        }
+    }
+
+
+    /**
+     * Append a character to the string buffer, growing it if needed.
+     * @param length The number of buffered characters.
+     * @param c The character to append.
+     * @return The new number of buffered characters.
+     */
+    private int append(int length, char c) {
+        if (length == this.buffer.length) {
+            char[] grown = new char[length << 1];
+            System.arraycopy(this.buffer, 0, grown, 0, length);
+            this.buffer = grown;
+        }
+        this.buffer[length] = c;
+        return length + 1;
+    }
+
+
+    /**
+     * Return the first length characters of the string buffer as a String.
+     * Short strings are looked up in a small direct-mapped symbol table that
+     * lives as long as this tokener, so that keys and values repeated across
+     * the elements of a listing share a single instance.
+     * @param length The number of buffered characters.
+     * @return      A String.
+     */
+    private String symbol(int length) {
+        if (length > SYMBOL_MAX_LENGTH) {
+            return new String(this.buffer, 0, length);
+        }
+        int hash = 0;
+        for (int i = 0; i < length; i += 1) {
+            hash = 31 * hash + this.buffer[i];
+        }
+        int slot = (hash ^ (hash >>> 16)) & (SYMBOL_TABLE_SIZE - 1);
+        String symbol = this.symbols[slot];
+        if (symbol != null && symbol.length() == length && symbol.hashCode() == hash) {
+            int i = 0;
+            while (i < length && symbol.charAt(i) == this.buffer[i]) {
+                i += 1;
+            }
+            if (i == length) {
+                return symbol;
             }
         }
+        symbol = new String(this.buffer, 0, length);
+        this.symbols[slot] = symbol;
+        return symbol;
     }
 
 
@@ -390,6 +453,199 @@ class JSONTokener {
     }
 
 
+    /**
+     * Check that the next value is an object without consuming anything.
+     * Use nextKey() to walk its keys.
+     * @throws JSONException If the next value is not an object.
+     */
+    public void beginObject() throws JSONException {
+        if (this.nextClean() != '{') {
+            throw this.syntaxError("A JSONObject text must begin with '{'");
+        }
+        this.back();
+    }
+
+
+    /**
+     * Get the next key of the object started by beginObject(), consuming the
+     * separator that precedes it and the ':' that follows it. The caller must
+     * consume the value with nextScalar(), skipValue() or a nested binder
+     * before asking for the next key.
+     * @throws JSONException If syntax error.
+     *
+     * @return The key, or null if the end of the object was reached.
+     */
+    public String nextKey() throws JSONException {
+        char c = this.nextClean();
+        switch (c) {
+        case 0:
+            throw this.syntaxError("A JSONObject text must end with '}'");
+        case '}':
+            return null;
+        case '{':
+        case ',':
+        case ';':
+            break;
+        default:
+            throw this.syntaxError("Expected a ',' or '}'");
+        }
+        c = this.nextClean();
+        String key;
+        switch (c) {
+        case 0:
+            throw this.syntaxError("A JSONObject text must end with '}'");
+        case '}':
+            return null;
+        case '"':
+        case '\'':
+            key = this.nextString(c);
+            break;
+        default:
+            key = this.nextUnquoted(c);
+        }
+        if (this.nextClean() != ':') {
+            throw this.syntaxError("Expected a ':' after a key");
+        }
+        return key;
+    }
+
+
+    /**
+     * Check that the next value is an array without consuming anything.
+     * Use nextElement() to walk its elements.
+     * @throws JSONException If the next value is not an array.
+     */
+    public void beginArray() throws JSONException {
+        if (this.nextClean() != '[') {
+            throw this.syntaxError("A JSONArray text must start with '['");
+        }
+        this.back();
+    }
+
+
+    /**
+     * Advance to the next element of the array started by beginArray(),
+     * consuming the separator that precedes it. The caller must consume the
+     * element before asking for the next one.
+     * @throws JSONException If syntax error.
+     *
+     * @return true if an element follows, false if the end of the array was
+     * reached.
+     */
+    public boolean nextElement() throws JSONException {
+        switch (this.nextClean()) {
+        case ']':
+            return false;
+        case '[':
+        case ',':
+            break;
+        default:
+            throw this.syntaxError("Expected a ',' or ']'");
+        }
+        if (this.nextClean() == ']') {
+            return false;
+        }
+        this.back();
+        return true;
+    }
+
+
+    /**
+     * Get the next value as text without converting it. The value must be a
+     * string, number, boolean or null; quoted strings are returned without
+     * their quotes and other values exactly as written.
+     * @throws JSONException If the value is an object or an array.
+     *
+     * @return A String.
+     */
+    public String nextScalar() throws JSONException {
+        char c = this.nextClean();
+        switch (c) {
+        case '"':
+        case '\'':
+            return this.nextString(c);
+        case '{':
+        case '[':
+            throw this.syntaxError("Expected a string, number, boolean or null");
+        }
+        return this.nextUnquoted(c);
+    }
+
+
+    /**
+     * Skip the next value, including any nested objects and arrays.
+     * @throws JSONException If syntax error.
+     */
+    public void skipValue() throws JSONException {
+        char c = this.nextClean();
+        if (c != '{' && c != '[') {
+            this.back();
+            this.nextScalar();
+            return;
+        }
+        int depth = 1;
+        while (depth > 0) {
+            c = this.next();
+            switch (c) {
+            case 0:
+                throw this.syntaxError("Unterminated value");
+            case '"':
+            case '\'':
+                this.nextString(c);
+                break;
+            case '{':
+            case '[':
+                depth += 1;
+                break;
+            case '}':
+            case ']':
+                depth -= 1;
+                break;
+            }
+        }
+    }
+
+
+    /**
+     * Check that a key was found while binding an object.
+     * @param value The bound value, or null if its key was not found.
+     * @param key   The key.
+     * @return The value.
+     * @throws JSONException If the value is null.
+     */
+    public static <T> T required(T value, String key) throws JSONException {
+        if (value == null) {
+            throw new JSONException("JSONObject[" + JSONObject.quote(key) +
+                    "] not found.");
+        }
+        return value;
+    }
+
+
+    /**
+     * Accumulate unquoted text starting with c until a formatting character
+     * is reached, as nextValue() does.
+     * @param c The first character.
+     * @return The trimmed text.
+     */
+    private String nextUnquoted(char c) throws JSONException {
+        int length = 0;
+        while (c >= ' ' && ",:]}/\\\"[{;=#".indexOf(c) < 0) {
+            length = this.append(length, c);
+            c = this.next();
+        }
+        this.back();
+
+        while (length > 0 && this.buffer[length - 1] <= ' ') {
+            length -= 1;
+        }
+        if (length == 0) {
+            throw this.syntaxError("Missing value");
+        }
+        return this.symbol(length);
+    }
+
+
     /**
      * Skip characters until the next character is the requested character.
      * If the requested character is not found, no characters are skipped.
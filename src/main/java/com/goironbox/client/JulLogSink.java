@@ -0,0 +1,53 @@
+package com.goironbox.client;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Passes log messages on to java.util.logging, and through its bridges to
+ * other logging frameworks.
+ * 
+ * @since   2.0
+ */
+public class JulLogSink implements LogSink {
+
+    private final Logger logger;
+
+    /**
+     * Creates a sink logging to the "com.goironbox.client" logger.
+     */
+    public JulLogSink() {
+        this(Logger.getLogger("com.goironbox.client"));
+    }
+
+    /**
+     * @param logger The logger to log to.
+     */
+    public JulLogSink(Logger logger) {
+        this.logger = logger;
+    }
+
+    private static Level toLevel(LogLevel level) {
+        switch (level) {
+            case ERROR:
+                return Level.SEVERE;
+            case WARN:
+                return Level.WARNING;
+            case INFO:
+                return Level.INFO;
+            default:
+                return Level.FINE;
+        }
+    }
+
+    @Override
+    public boolean isEnabled(LogLevel level) {
+        return logger.isLoggable(toLevel(level));
+    }
+
+    @Override
+    public void log(LogLevel level, String message, Throwable thrown) {
+        logger.log(toLevel(level), message, thrown);
+    }
+
+}
@@ -0,0 +1,132 @@
+package com.goironbox.client;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of durations in nanoseconds.
+ * 
+ * Values are counted in buckets whose width grows with the value, eight per
+ * power of two, so every value is recorded with a relative error below 12.5%
+ * in a fixed 4 KB of memory. Recording is a handful of atomic additions and
+ * never allocates.
+ * 
+ * @since   2.0
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (63 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int)value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int)(value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int shift = exponent - SUB_BUCKET_BITS;
+        long lowerBound = (long)(SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        return lowerBound + (1L << shift) - 1;
+    }
+
+    /**
+     * Records a duration.
+     * 
+     * @param nanos The duration in nanoseconds, negative values count as 0.
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        counts.incrementAndGet(bucketIndex(nanos));
+        count.incrementAndGet();
+        totalNanos.addAndGet(nanos);
+        long max;
+        while (nanos > (max = maxNanos.get()) && !maxNanos.compareAndSet(max, nanos)) {
+            // Retry with the maximum another thread has set.
+        }
+    }
+
+    /**
+     * @return the number of recorded durations
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * @return the sum of the recorded durations in nanoseconds
+     */
+    public long getTotalNanos() {
+        return totalNanos.get();
+    }
+
+    /**
+     * @return the mean of the recorded durations in nanoseconds, 0 if none were recorded
+     */
+    public long getMeanNanos() {
+        long n = count.get();
+        return (0 == n) ? 0 : totalNanos.get() / n;
+    }
+
+    /**
+     * @return the longest recorded duration in nanoseconds
+     */
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * Gets the duration below which the given share of recorded durations
+     * lie, such as 99.0 for the 99th percentile.
+     * 
+     * @param percentile The percentile, between 0 and 100.
+     * @return the duration in nanoseconds, 0 if none were recorded
+     */
+    public long getPercentileNanos(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile out of range: " + percentile);
+        }
+        long n = count.get();
+        if (0 == n) {
+            return 0;
+        }
+        long rank = Math.max(1, (long)Math.ceil(percentile / 100 * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(bucketUpperBound(i), maxNanos.get());
+            }
+        }
+        return maxNanos.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+            "count=%d, mean=%.3fms, p50=%.3fms, p99=%.3fms, p999=%.3fms, max=%.3fms",
+            getCount(),
+            getMeanNanos() / 1e6,
+            getPercentileNanos(50) / 1e6,
+            getPercentileNanos(99) / 1e6,
+            getPercentileNanos(99.9) / 1e6,
+            getMaxNanos() / 1e6
+        );
+    }
+
+}
@@ -0,0 +1,40 @@
+package com.goironbox.client;
+
+/**
+ * Log levels, from the most to the least severe.
+ * 
+ * @since   2.0
+ */
+public enum LogLevel {
+
+    /**
+     * Failed operations.
+     */
+    ERROR,
+
+    /**
+     * Unexpected conditions the client recovered from.
+     */
+    WARN,
+
+    /**
+     * Steps of transfers and other operations.
+     */
+    INFO,
+
+    /**
+     * Details of individual requests.
+     */
+    DEBUG;
+
+    /**
+     * Indicates if messages of the given level pass a threshold of this level.
+     * 
+     * @param level The level of a message.
+     * @return true if the message is at least as severe as this level
+     */
+    public boolean includes(LogLevel level) {
+        return level.ordinal() <= ordinal();
+    }
+
+}
@@ -0,0 +1,33 @@
+package com.goironbox.client;
+
+/**
+ * Destination of the log messages of a client.
+ * 
+ * Implement this to pass messages on to the logging framework of an
+ * application. The client asks {@link #isEnabled(LogLevel)} before it builds
+ * a message, so a sink that is disabled for a level costs nothing at that
+ * level.
+ * 
+ * @since   2.0
+ * @see IronBoxClient#setLogSink(LogSink)
+ */
+public interface LogSink {
+
+    /**
+     * Indicates if messages of the given level are logged.
+     * 
+     * @param level The level.
+     * @return true if messages of the level are logged, false else
+     */
+    boolean isEnabled(LogLevel level);
+
+    /**
+     * Logs a message. Only called for enabled levels.
+     * 
+     * @param level The level of the message.
+     * @param message The message.
+     * @param thrown The cause of the message, or null.
+     */
+    void log(LogLevel level, String message, Throwable thrown);
+
+}
@@ -1,71 +1,111 @@
 package com.goironbox.client;
 
-import java.io.PrintStream;
-import java.util.Date;
+/**
+ * Logging facade of a client.
+ * 
+ * Every method checks the level before it formats anything. Fixed arity
+ * overloads avoid the varargs array, and a {@link MessageSupplier} defers
+ * building a message with more values or computed ones entirely, so
+ * disabled log statements cost no more than the level check.
+ */
+class Logger {
 
-class Logger  {
-    
-    private static Logger instance = null;
-    private final boolean verbose;
-    
-    private Logger(boolean verbose) {
-        this.verbose = verbose;
+    /**
+     * Logger for code running outside of a client, which only logs errors
+     * unless given another sink by {@link IronBoxClient#setDefaultLogSink}.
+     */
+    static final Logger DEFAULT = new Logger(new ConsoleLogSink(LogLevel.ERROR));
+
+    private volatile LogSink sink;
+
+    Logger(LogSink sink) {
+        this.sink = sink;
+    }
+
+    void setSink(LogSink sink) {
+        this.sink = sink;
     }
 
-    public static Logger getInstance() {
-        if (null == instance) {
-            instance = new Logger(true);
+    boolean isEnabled(LogLevel level) {
+        return sink.isEnabled(level);
+    }
+
+    private void log(LogLevel level, String msg, Throwable thrown) {
+        LogSink s = sink;
+        if (s.isEnabled(level)) {
+            s.log(level, msg, thrown);
         }
-        return instance;        
     }
 
-    public static Logger getInstance(boolean verbose) {
-        if (null == instance) {
-            instance = new Logger(verbose);
+    private void log(LogLevel level, String format, Object arg1, Object arg2, int argCount) {
+        LogSink s = sink;
+        if (s.isEnabled(level)) {
+            String msg = (1 == argCount) ? String.format(format, arg1) : String.format(format, arg1, arg2);
+            s.log(level, msg, null);
         }
-        return instance;        
     }
 
-    private void log(PrintStream ps, String msg) {
-        ps.println(String.format("%s: %s", new Date(), msg));
+    private void log(LogLevel level, MessageSupplier msg) {
+        LogSink s = sink;
+        if (s.isEnabled(level)) {
+            s.log(level, msg.get(), null);
+        }
+    }
+
+    public void debug(String msg) {
+        log(LogLevel.DEBUG, msg, null);
+    }
+
+    public void debug(String format, Object arg) {
+        log(LogLevel.DEBUG, format, arg, null, 1);
+    }
+
+    public void debug(String format, Object arg1, Object arg2) {
+        log(LogLevel.DEBUG, format, arg1, arg2, 2);
     }
-    
+
+    public void debug(MessageSupplier msg) {
+        log(LogLevel.DEBUG, msg);
+    }
+
     public void info(String msg) {
-        if (verbose) {
-            log(System.out, msg);
-        }
+        log(LogLevel.INFO, msg, null);
     }
 
-    public void info(String format, Object ... args) {
-        if (verbose) {
-            log(System.out, String.format(format, args));
-        }
+    public void info(String format, Object arg) {
+        log(LogLevel.INFO, format, arg, null, 1);
     }
 
-    public void progress(String format, Object ... args) {
-        if (verbose) {
-            System.out.print(String.format(format, args));
-        }
+    public void info(String format, Object arg1, Object arg2) {
+        log(LogLevel.INFO, format, arg1, arg2, 2);
     }
 
-    public void progressDone() {
-        if (verbose) {
-            System.out.println("");
-        }
+    public void info(MessageSupplier msg) {
+        log(LogLevel.INFO, msg);
+    }
+
+    public void warn(String msg) {
+        log(LogLevel.WARN, msg, null);
+    }
+
+    public void warn(String format, Object arg1, Object arg2) {
+        log(LogLevel.WARN, format, arg1, arg2, 2);
+    }
+
+    public void warn(String msg, Throwable thrown) {
+        log(LogLevel.WARN, msg, thrown);
     }
 
     public void error(String msg) {
-        log(System.err, msg);
+        log(LogLevel.ERROR, msg, null);
     }
 
-    public void error(String format, Object ... args) {
-        log(System.err, String.format(format, args));
+    public void error(String format, Object arg1, Object arg2) {
+        log(LogLevel.ERROR, format, arg1, arg2, 2);
     }
 
-    public void exception(String msg, Exception e) {
-        log(System.err, msg);
-        log(System.err, String.format("%s: %s", e.getClass().getSimpleName(), e.getMessage()));
-        e.printStackTrace(System.err);
+    public void error(String msg, Throwable thrown) {
+        log(LogLevel.ERROR, msg, thrown);
     }
 
 }
@@ -0,0 +1,202 @@
+package com.goironbox.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * Immutable list of primitive 64-bit integers, such as container IDs.
+ *
+ * Values are stored in a {@code long[]} and can be read with
+ * {@link #getLong(int)} without boxing. The {@link java.util.List} view boxes
+ * values on access only.
+ *
+ * @since   2.0
+ */
+public final class LongList extends AbstractList<Long> implements RandomAccess {
+
+    private final long[] values;
+    private final int size;
+
+    private LongList(long[] values, int size) {
+        this.values = values;
+        this.size = size;
+    }
+
+    /**
+     * Creates a list holding a copy of the given values.
+     *
+     * @param values The values.
+     * @return A list of the given values.
+     */
+    public static LongList of(long... values) {
+        return new LongList(values.clone(), values.length);
+    }
+
+    /**
+     * Parses a comma separated list of integers, as returned by the API.
+     *
+     * Digits are accumulated straight from the response bytes. Quotation
+     * marks, whitespace and a trailing comma are ignored, an empty response
+     * yields an empty list. Digits separated by quotation marks or whitespace
+     * are not joined into one value.
+     *
+     * @param is The response stream.
+     * @return A list of the parsed values.
+     * @throws IOException
+     * @throws NumberFormatException If the response is not a list of integers.
+     */
+    static LongList parse(InputStream is) throws IOException {
+        long[] values = new long[8];
+        int size = 0;
+
+        // The value is accumulated negatively, like Long.parseLong does, so
+        // that Long.MIN_VALUE can be represented.
+        long value = 0;
+        int digits = 0;
+        boolean negative = false;
+        boolean closed = false;
+
+        byte[] buf = new byte[256];
+        int bytesRead;
+        while ((bytesRead = is.read(buf, 0, buf.length)) != -1) {
+            for (int i = 0; i < bytesRead; i++) {
+                byte b = buf[i];
+                if (b >= '0' && b <= '9') {
+                    if (closed) {
+                        throw new NumberFormatException("Missing separator");
+                    }
+                    int digit = b - '0';
+                    if (value < (Long.MIN_VALUE + digit) / 10) {
+                        throw new NumberFormatException("Value out of range");
+                    }
+                    value = value * 10 - digit;
+                    digits++;
+                }
+                else if (b == '-' && 0 == digits && !negative) {
+                    negative = true;
+                }
+                else if (b == ',') {
+                    if (size == values.length) {
+                        values = Arrays.copyOf(values, size << 1);
+                    }
+                    values[size++] = toValue(value, digits, negative);
+                    value = 0;
+                    digits = 0;
+                    negative = false;
+                    closed = false;
+                }
+                else if (b == '"' || b == ' ' || b == '\t' || b == '\r' || b == '\n') {
+                    closed = 0 != digits;
+                }
+                else {
+                    throw new NumberFormatException(String.format("Unexpected character: 0x%02x", b & 0xff));
+                }
+            }
+        }
+
+        if (0 != digits || negative) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size + 1);
+            }
+            values[size++] = toValue(value, digits, negative);
+        }
+        return new LongList(values, size);
+    }
+
+    private static long toValue(long value, int digits, boolean negative) {
+        if (0 == digits) {
+            throw new NumberFormatException("Missing value");
+        }
+        if (negative) {
+            return value;
+        }
+        if (Long.MIN_VALUE == value) {
+            throw new NumberFormatException("Value out of range");
+        }
+        return -value;
+    }
+
+    /**
+     * Gets the value at the given position without boxing.
+     *
+     * @param index Position of the value.
+     * @return The value.
+     */
+    public long getLong(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return values[index];
+    }
+
+    /**
+     * Returns the position of the first occurrence of the given value.
+     *
+     * @param value The value to search for.
+     * @return The position of the value, or -1 if it is not in the list.
+     */
+    public int indexOf(long value) {
+        for (int i = 0; i < size; i++) {
+            if (values[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Indicates if the list contains the given value.
+     *
+     * @param value The value to search for.
+     * @return true if the value is in the list, false else
+     */
+    public boolean contains(long value) {
+        return indexOf(value) >= 0;
+    }
+
+    /**
+     * Returns a copy of the values.
+     *
+     * @return A new array holding the values.
+     */
+    public long[] toLongArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    @Override
+    public Long get(int index) {
+        return getLong(index);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        return (o instanceof Long) ? indexOf(((Long)o).longValue()) : -1;
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        if (o instanceof Long) {
+            long value = (Long)o;
+            for (int i = size - 1; i >= 0; i--) {
+                if (values[i] == value) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+}
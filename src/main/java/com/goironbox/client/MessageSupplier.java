@@ -0,0 +1,15 @@
+package com.goironbox.client;
+
+/**
+ * Builds a log message on demand, only when its level is enabled.
+ * 
+ * @since   2.0
+ */
+interface MessageSupplier {
+
+    /**
+     * @return the message
+     */
+    String get();
+
+}
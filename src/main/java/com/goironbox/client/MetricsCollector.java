@@ -0,0 +1,117 @@
+package com.goironbox.client;
+
+/**
+ * Receives measurements of the requests and transfers of a client.
+ * 
+ * All methods do nothing by default; implementations override those they are
+ * interested in, for example to feed a monitoring system. They are called
+ * from the threads doing the work and should return quickly.
+ * 
+ * Requests are named after the IronBox API endpoint they call, such as
+ * "ContainerKeyData", or after the blob storage operation they perform, see
+ * the constants of this class.
+ * 
+ * @since   2.0
+ * @see HistogramMetricsCollector
+ * @see IronBoxClient#setMetricsCollector(MetricsCollector)
+ */
+public abstract class MetricsCollector {
+
+    /**
+     * Collector ignoring all measurements.
+     */
+    public static final MetricsCollector NONE = new MetricsCollector() {
+    };
+
+    /**
+     * Status code of requests that failed without a response.
+     */
+    public static final int NO_RESPONSE = -1;
+
+    /**
+     * Upload of a blob block.
+     */
+    public static final String PUT_BLOCK = "PutBlock";
+
+    /**
+     * Commit of the uploaded blocks of a blob.
+     */
+    public static final String PUT_BLOCK_LIST = "PutBlockList";
+
+    /**
+     * Download of a whole blob.
+     */
+    public static final String GET_BLOB = "GetBlob";
+
+    /**
+     * Download of a byte range of a blob.
+     */
+    public static final String GET_BLOB_RANGE = "GetBlobRange";
+
+    /**
+     * Request for the size of a blob.
+     */
+    public static final String GET_BLOB_PROPERTIES = "GetBlobProperties";
+
+    /**
+     * Called when a request is about to be sent.
+     * 
+     * @param operation The name of the request.
+     */
+    public void requestStarted(String operation) {
+    }
+
+    /**
+     * Called when a request has completed or failed, including the time
+     * taken to transfer the response body.
+     * 
+     * @param operation The name of the request.
+     * @param statusCode The HTTP status code, or {@link #NO_RESPONSE}.
+     * @param durationNanos The duration of the request.
+     */
+    public void requestCompleted(String operation, int statusCode, long durationNanos) {
+    }
+
+    /**
+     * Called when a request is about to be repeated after a failure.
+     * 
+     * @param operation The name of the request.
+     */
+    public void requestRetried(String operation) {
+    }
+
+    /**
+     * Called when request bodies have been sent.
+     * 
+     * @param bytes The number of bytes sent.
+     */
+    public void bytesSent(long bytes) {
+    }
+
+    /**
+     * Called when response bodies have been received.
+     * 
+     * @param bytes The number of bytes received.
+     */
+    public void bytesReceived(long bytes) {
+    }
+
+    /**
+     * Called when data has been encrypted for an upload.
+     * 
+     * @param bytes The number of plaintext bytes.
+     * @param durationNanos The time spent in the cipher.
+     */
+    public void encrypted(long bytes, long durationNanos) {
+    }
+
+    /**
+     * Called when data has been decrypted for a download.
+     * 
+     * @param bytes The number of plaintext bytes.
+     * @param durationNanos The time spent in the cipher.
+     */
+    public void decrypted(long bytes, long durationNanos) {
+    }
+
+}
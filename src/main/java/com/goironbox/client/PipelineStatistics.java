@@ -0,0 +1,125 @@
+package com.goironbox.client;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Live statistics of the upload pipelines of a client.
+ *
+ * Uploads run in three stages, connected by bounded queues: reading the
+ * plaintext on the uploading thread, then encrypting it and sending the
+ * ciphertext blocks on a thread pool shared by all uploads. Busy times are
+ * accumulated over all uploads and only count time spent working, not time
+ * spent waiting for a neighbouring stage. Queue depths are summed over the
+ * uploads currently running.
+ *
+ * A stage that is busy most of the time while its input queue stays empty is
+ * the one limiting throughput.
+ *
+ * @since   2.0
+ */
+public final class PipelineStatistics {
+
+    private final AtomicLong readBusyNanos = new AtomicLong();
+    private final AtomicLong encryptBusyNanos = new AtomicLong();
+    private final AtomicLong uploadBusyNanos = new AtomicLong();
+    private final AtomicInteger encryptQueueDepth = new AtomicInteger();
+    private final AtomicInteger uploadQueueDepth = new AtomicInteger();
+    private final AtomicInteger activeUploads = new AtomicInteger();
+    private final AtomicLong blocksUploaded = new AtomicLong();
+
+    PipelineStatistics() {
+    }
+
+    /**
+     * @return the time spent reading plaintext, in nanoseconds
+     */
+    public long getReadBusyNanos() {
+        return readBusyNanos.get();
+    }
+
+    /**
+     * @return the time spent encrypting, in nanoseconds
+     */
+    public long getEncryptBusyNanos() {
+        return encryptBusyNanos.get();
+    }
+
+    /**
+     * @return the time spent sending blocks, in nanoseconds
+     */
+    public long getUploadBusyNanos() {
+        return uploadBusyNanos.get();
+    }
+
+    /**
+     * @return the number of plaintext segments waiting to be encrypted
+     */
+    public int getEncryptQueueDepth() {
+        return encryptQueueDepth.get();
+    }
+
+    /**
+     * @return the number of ciphertext blocks waiting to be sent
+     */
+    public int getUploadQueueDepth() {
+        return uploadQueueDepth.get();
+    }
+
+    /**
+     * @return the number of uploads currently running
+     */
+    public int getActiveUploads() {
+        return activeUploads.get();
+    }
+
+    /**
+     * @return the number of blocks sent
+     */
+    public long getBlocksUploaded() {
+        return blocksUploaded.get();
+    }
+
+    void addReadBusyNanos(long nanos) {
+        readBusyNanos.addAndGet(nanos);
+    }
+
+    void addEncryptBusyNanos(long nanos) {
+        encryptBusyNanos.addAndGet(nanos);
+    }
+
+    void addUploadBusyNanos(long nanos) {
+        uploadBusyNanos.addAndGet(nanos);
+    }
+
+    void addEncryptQueueDepth(int delta) {
+        encryptQueueDepth.addAndGet(delta);
+    }
+
+    void addUploadQueueDepth(int delta) {
+        uploadQueueDepth.addAndGet(delta);
+    }
+
+    void addActiveUploads(int delta) {
+        activeUploads.addAndGet(delta);
+    }
+
+    void addBlocksUploaded(int count) {
+        blocksUploaded.addAndGet(count);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+            "PipelineStatistics[activeUploads=%d, blocksUploaded=%d, encryptQueueDepth=%d, uploadQueueDepth=%d, readBusyMs=%d, encryptBusyMs=%d, uploadBusyMs=%d]",
+            getActiveUploads(),
+            getBlocksUploaded(),
+            getEncryptQueueDepth(),
+            getUploadQueueDepth(),
+            getReadBusyNanos() / 1000000,
+            getEncryptBusyNanos() / 1000000,
+            getUploadBusyNanos() / 1000000
+        );
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.goironbox.client;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+
+/**
+ * URL encoded form body of an API POST request.
+ * 
+ * Every request starts with the entity credentials, which are encoded once
+ * per client and passed in as a ready-made prefix.
+ * 
+ * @since   2.0
+ */
+class PostQuery {
+
+    private final StringBuilder query;
+
+    PostQuery(String encodedPrefix) {
+        query = new StringBuilder(encodedPrefix.length() + 128);
+        query.append(encodedPrefix);
+    }
+
+    /**
+     * Encodes a key/value pair for use as a query prefix.
+     */
+    static String encode(String key, String value) throws UnsupportedEncodingException {
+        return key + "=" + URLEncoder.encode(value, "UTF-8");
+    }
+
+    PostQuery add(String key, String value) throws UnsupportedEncodingException {
+        query.append('&').append(key).append('=').append(URLEncoder.encode(value, "UTF-8"));
+        return this;
+    }
+
+    PostQuery add(String key, long value) {
+        query.append('&').append(key).append('=').append(value);
+        return this;
+    }
+
+    /**
+     * Gets the UTF-8 encoded request body.
+     * 
+     * Keys are ASCII and values are URL encoded, so every char maps to exactly
+     * one byte and the body can be copied into an array of its final size.
+     */
+    byte[] toBytes() {
+        int length = query.length();
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte)query.charAt(i);
+        }
+        return bytes;
+    }
+
+    @Override
+    public String toString() {
+        return query.toString();
+    }
+
+}
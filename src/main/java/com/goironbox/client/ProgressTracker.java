@@ -0,0 +1,107 @@
+package com.goironbox.client;
+
+/**
+ * Counts the bytes of a transfer and passes throttled updates to a
+ * {@link TransferProgressListener}.
+ *
+ * Without a listener nothing is counted and no time is taken, so transfer
+ * loops can report every chunk at no cost.
+ *
+ * @since   2.0
+ */
+class ProgressTracker {
+
+    static final long DEFAULT_MIN_BYTES = 256 * 1024;
+    static final long DEFAULT_MIN_INTERVAL_MILLIS = 200;
+
+    /**
+     * Tracker for transfers nobody listens to.
+     */
+    static final ProgressTracker NONE = new ProgressTracker(null, null, 0, 0);
+
+    private final TransferProgressListener listener;
+    private final TransferProgressListener.Direction direction;
+    private final long minBytes;
+    private final long minIntervalNanos;
+    private long totalBytes = -1;
+    private long bytesTransferred = 0;
+    private long reportedBytes = 0;
+    private long reportedNanos;
+
+    private ProgressTracker(
+        TransferProgressListener listener,
+        TransferProgressListener.Direction direction,
+        long minBytes,
+        long minIntervalMillis
+    ) {
+        this.listener = listener;
+        this.direction = direction;
+        this.minBytes = minBytes;
+        this.minIntervalNanos = minIntervalMillis * 1000000;
+        this.reportedNanos = System.nanoTime();
+    }
+
+    /**
+     * @param listener The listener, may be null.
+     * @param direction The direction of the transfer.
+     * @param minBytes The number of bytes between updates.
+     * @param minIntervalMillis The time between updates.
+     * @return a tracker for one transfer
+     */
+    static ProgressTracker create(
+        TransferProgressListener listener,
+        TransferProgressListener.Direction direction,
+        long minBytes,
+        long minIntervalMillis
+    ) {
+        return (null == listener) ? NONE : new ProgressTracker(listener, direction, minBytes, minIntervalMillis);
+    }
+
+    synchronized void setTotalBytes(long totalBytes) {
+        this.totalBytes = totalBytes;
+    }
+
+    /**
+     * Counts transferred bytes and updates the listener if enough bytes and
+     * time have passed since the last update.
+     *
+     * @param bytes The number of bytes just transferred.
+     */
+    void add(long bytes) {
+        if (null == listener) {
+            return;
+        }
+        synchronized (this) {
+            bytesTransferred += bytes;
+            if (bytesTransferred != totalBytes) {
+                if (bytesTransferred - reportedBytes < minBytes) {
+                    return;
+                }
+                long now = System.nanoTime();
+                if (now - reportedNanos < minIntervalNanos) {
+                    return;
+                }
+                reportedNanos = now;
+            }
+            reportedBytes = bytesTransferred;
+            listener.progressChanged(direction, bytesTransferred, totalBytes);
+        }
+    }
+
+    /**
+     * Tells the listener that the transfer has completed.
+     */
+    void done() {
+        if (null == listener) {
+            return;
+        }
+        synchronized (this) {
+            if (reportedBytes != bytesTransferred) {
+                reportedBytes = bytesTransferred;
+                listener.progressChanged(direction, bytesTransferred, totalBytes);
+            }
+            listener.transferCompleted(direction, bytesTransferred);
+        }
+    }
+
+}
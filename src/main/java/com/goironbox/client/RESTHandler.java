@@ -1,85 +1,275 @@
 package com.goironbox.client;
 
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
 import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URL;
-import java.net.URLEncoder;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.security.GeneralSecurityException;
 import java.security.SecureRandom;
-import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.net.ssl.HostnameVerifier;
 import javax.net.ssl.HttpsURLConnection;
 import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
 import javax.net.ssl.TrustManager;
 import javax.xml.bind.DatatypeConverter;
 
 class RESTHandler {
 
-    private final Logger logger = Logger.getInstance();
+    private final Logger logger;
 
     private final static String API_BASE_URL = "https://api.goironcloud.com";
+    private final static int DOWNLOAD_CHUNK_SIZE = 64 * 1024;
+
+    // Cloud storage only allows blocks of max 4MB, and max 50k blocks
+    // so 200 GB max per file
+    final static int BLOCK_SIZE = 4 * 1024 * 1024;
+    private final static int HTTP_RANGE_NOT_SATISFIABLE = 416;
+    private final static int HTTP_TOO_MANY_REQUESTS = 429;
+    private final static long DEFAULT_BLOCK_RETRY_BACKOFF_MILLIS = 500;
+    private final static long DEFAULT_MAX_BLOCK_RETRY_BACKOFF_MILLIS = 30 * 1000;
+    private final static Map<String, String> BLOCK_REQUEST_PROPERTIES = new HashMap<>();
+    static {
+        BLOCK_REQUEST_PROPERTIES.put("content-type", "application/octet-stream");
+        BLOCK_REQUEST_PROPERTIES.put("x-ms-blob-type", "BlockBlob");
+        BLOCK_REQUEST_PROPERTIES.put("x-ms-version", "2012-02-12");
+    }
 
-    private final String entity;
-    private final String entityPassword;
-    private final EntityType entityType;
     private final ApiVersion apiVersion;
     private final ContentFormat contentFormat;
     private final boolean verifySSLCert;
-    private URL apiUrl;
-    
+    private final String credentialsQuery;
+    private Map<Endpoint, URL> endpointURLs;
+    // Set only when certificates are not verified, shared by all connections.
+    private final SSLSocketFactory sslSocketFactory;
+    private final HostnameVerifier hostnameVerifier;
+    private volatile MetricsCollector metrics = MetricsCollector.NONE;
+    private volatile ConnectionInterceptor connectionInterceptor = ConnectionInterceptor.NONE;
+    private volatile boolean plainHttpAllowed = false;
+    private volatile int maxBlockRetries = 0;
+    private volatile long blockRetryBackoffMillis = DEFAULT_BLOCK_RETRY_BACKOFF_MILLIS;
+    private volatile long maxBlockRetryBackoffMillis = DEFAULT_MAX_BLOCK_RETRY_BACKOFF_MILLIS;
+
+    /**
+     * Counts the bytes read from a response body for a call, whether or not
+     * the server declared their number.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+        private final Call call;
+
+        CountingInputStream(InputStream in, Call call) {
+            super(in);
+            this.call = call;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b >= 0) {
+                call.received(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = in.read(b, off, len);
+            if (n > 0) {
+                call.received(n);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = in.skip(n);
+            if (skipped > 0) {
+                call.received(skipped);
+            }
+            return skipped;
+        }
+    }
+
+    /**
+     * Measures one request for the metrics collector and the flight recorder.
+     */
+    private final class Call {
+        final MetricsCollector metrics = RESTHandler.this.metrics;
+        final String operation;
+        final Object event;
+        final long start;
+        int status = MetricsCollector.NO_RESPONSE;
+        long bytes = 0;
+
+        /**
+         * @param endpoint The IronBox API endpoint called.
+         */
+        Call(Endpoint endpoint) {
+            this(endpoint.getRESTString(), FlightRecorderEvents.beginApiCall());
+        }
+
+        /**
+         * @param operation The blob storage operation, see {@link MetricsCollector}.
+         */
+        Call(String operation) {
+            this(operation, FlightRecorderEvents.beginBlobRequest());
+        }
+
+        private Call(String operation, Object event) {
+            this.operation = operation;
+            this.event = event;
+            metrics.requestStarted(operation);
+            start = System.nanoTime();
+        }
+
+        void sent(long n) {
+            bytes += n;
+            metrics.bytesSent(n);
+        }
+
+        void received(long n) {
+            bytes += n;
+            metrics.bytesReceived(n);
+        }
+
+        void end() {
+            metrics.requestCompleted(operation, status, System.nanoTime() - start);
+            FlightRecorderEvents.endRequest(event, operation, status, bytes);
+        }
+    }
+
     public RESTHandler(
         String entity,
         String entityPassword,
         EntityType entityType,
         ApiVersion apiVersion,
         ContentFormat contentFormat,
-        boolean verifySSLCert
-    ) throws MalformedURLException {
-        this.entity = entity;
-        this.entityPassword = entityPassword;
-        this.entityType = entityType;
+        boolean verifySSLCert,
+        Logger logger
+    ) throws MalformedURLException, UnsupportedEncodingException, GeneralSecurityException {
+        this.logger = logger;
         this.apiVersion = apiVersion;
         this.contentFormat = contentFormat;
         this.verifySSLCert = verifySSLCert;
 
-        apiUrl = new URL(String.format("%s/%s/", API_BASE_URL, apiVersion));
+        if (verifySSLCert) {
+            sslSocketFactory = null;
+            hostnameVerifier = null;
+        }
+        else {
+            SSLContext sc = SSLContext.getInstance("SSL");
+            sc.init(null, new TrustManager[] {new SSLInvalidCertificateTrustManager()}, new SecureRandom());
+            sslSocketFactory = sc.getSocketFactory();
+            hostnameVerifier = new SSLInvalidHostnameVerifier();
+        }
+
+        // The credentials are part of every request, encode them only once.
+        credentialsQuery = PostQuery.encode("Entity", entity)
+            + "&" + PostQuery.encode("EntityType", entityType.getRESTString())
+            + "&" + PostQuery.encode("EntityPassword", entityPassword);
+
+        endpointURLs = getEndpointURLs(new URL(String.format("%s/%s/", API_BASE_URL, apiVersion.getRESTString())));
+    }
+
+    Logger getLogger() {
+        return logger;
+    }
+
+    MetricsCollector getMetrics() {
+        return metrics;
+    }
+
+    void setMetrics(MetricsCollector metrics) {
+        this.metrics = (null == metrics) ? MetricsCollector.NONE : metrics;
+    }
+
+    void setConnectionInterceptor(ConnectionInterceptor connectionInterceptor) {
+        this.connectionInterceptor = (null == connectionInterceptor) ? ConnectionInterceptor.NONE : connectionInterceptor;
+    }
+
+    void setPlainHttpAllowed(boolean plainHttpAllowed) {
+        this.plainHttpAllowed = plainHttpAllowed;
+    }
+
+    void setMaxBlockRetries(int maxBlockRetries) {
+        if (maxBlockRetries < 0) {
+            throw new IllegalArgumentException("Block retries must not be negative: " + maxBlockRetries);
+        }
+        this.maxBlockRetries = maxBlockRetries;
+    }
+
+    int getMaxBlockRetries() {
+        return maxBlockRetries;
+    }
+
+    void setBlockRetryBackoffMillis(long blockRetryBackoffMillis) {
+        if (blockRetryBackoffMillis < 0) {
+            throw new IllegalArgumentException("Block retry backoff must not be negative: " + blockRetryBackoffMillis);
+        }
+        this.blockRetryBackoffMillis = blockRetryBackoffMillis;
+    }
+
+    long getBlockRetryBackoffMillis() {
+        return blockRetryBackoffMillis;
+    }
+
+    void setMaxBlockRetryBackoffMillis(long maxBlockRetryBackoffMillis) {
+        if (maxBlockRetryBackoffMillis < 0) {
+            throw new IllegalArgumentException("Maximum block retry backoff must not be negative: " + maxBlockRetryBackoffMillis);
+        }
+        this.maxBlockRetryBackoffMillis = maxBlockRetryBackoffMillis;
+    }
+
+    long getMaxBlockRetryBackoffMillis() {
+        return maxBlockRetryBackoffMillis;
     }
 
     protected void setAPIBaseURL(String apiBaseUrl) throws Exception {
         if (!apiBaseUrl.endsWith("/")) {
             apiBaseUrl += "/";
         }
-        apiUrl = new URL(String.format("%s/%s/", apiBaseUrl, apiVersion.getRESTString()));
+        endpointURLs = getEndpointURLs(new URL(String.format("%s/%s/", apiBaseUrl, apiVersion.getRESTString())));
     }
 
-    protected boolean checkInEntityContainerBlob(Long containerID, String blobIDName, Long blobSizeBytes, String blobCheckInToken) throws Exception {
+    private static Map<Endpoint, URL> getEndpointURLs(URL apiUrl) throws MalformedURLException {
+        Map<Endpoint, URL> urls = new EnumMap<>(Endpoint.class);
+        for (Endpoint endpoint : Endpoint.values()) {
+            urls.put(endpoint, new URL(apiUrl, endpoint.getRESTString()));
+        }
+        return urls;
+    }
+
+    private PostQuery newPostQuery() {
+        return new PostQuery(credentialsQuery);
+    }
+
+    protected boolean checkInEntityContainerBlob(long containerID, String blobIDName, long blobSizeBytes, String blobCheckInToken) throws Exception {
         try {
-            URL url = new URL(apiUrl.toString() + "CheckInEntityContainerBlob");
-
-            Map<String, String> postData = new HashMap<>();
-            postData.put("Entity", entity);
-            postData.put("EntityType", entityType.getRESTString());
-            postData.put("EntityPassword", entityPassword);
-            postData.put("ContainerID", Long.toString(containerID));
-            postData.put("BlobIDName", blobIDName);
-            postData.put("BlobSizeBytes", Long.toString(blobSizeBytes));
-            postData.put("BlobCheckInToken", blobCheckInToken);
-
-            String result = doHttpPost(url, postData);
+            PostQuery postData = newPostQuery()
+                .add("ContainerID", containerID)
+                .add("BlobIDName", blobIDName)
+                .add("BlobSizeBytes", blobSizeBytes)
+                .add("BlobCheckInToken", blobCheckInToken);
+
+            String result = doHttpPost(Endpoint.CHECK_IN_ENTITY_CONTAINER_BLOB, postData);
             return Boolean.parseBoolean(result);
         }
         catch (Exception e) {
@@ -89,18 +279,13 @@ class RESTHandler {
         }
     }
 
-    protected BlobCheckOutData checkOutEntityContainerBlob(Long containerID, String blobIDName) throws Exception {
+    protected BlobCheckOutData checkOutEntityContainerBlob(long containerID, String blobIDName) throws Exception {
         try {
-            URL url = new URL(apiUrl.toString() + "CheckOutEntityContainerBlob");
-
-            Map<String, String> postData = new HashMap<>();
-            postData.put("Entity", entity);
-            postData.put("EntityType", entityType.getRESTString());
-            postData.put("EntityPassword", entityPassword);
-            postData.put("ContainerID", Long.toString(containerID));
-            postData.put("BlobIDName", blobIDName);
+            PostQuery postData = newPostQuery()
+                .add("ContainerID", containerID)
+                .add("BlobIDName", blobIDName);
 
-            String result = doHttpPost(url, postData);
+            String result = doHttpPost(Endpoint.CHECK_OUT_ENTITY_CONTAINER_BLOB, postData);
             return BlobCheckOutData.getInstance(result);
         }
         catch (Exception e) {
@@ -110,18 +295,13 @@ class RESTHandler {
         }
     }
 
-    protected String createEntityContainerBlob(Long containerID, String blobName) throws Exception {
+    protected String createEntityContainerBlob(long containerID, String blobName) throws Exception {
         try {
-            URL url = new URL(apiUrl.toString() + "CreateEntityContainerBlob");
-
-            Map<String, String> postData = new HashMap<>();
-            postData.put("Entity", entity);
-            postData.put("EntityType", entityType.getRESTString());
-            postData.put("EntityPassword", entityPassword);
-            postData.put("ContainerID", Long.toString(containerID));
-            postData.put("BlobName", blobName);
+            PostQuery postData = newPostQuery()
+                .add("ContainerID", containerID)
+                .add("BlobName", blobName);
 
-            String result = doHttpPost(url, postData);
+            String result = doHttpPost(Endpoint.CREATE_ENTITY_CONTAINER_BLOB, postData);
             return result.replace("\"", "");
         }
         catch (Exception e) {
@@ -133,17 +313,12 @@ class RESTHandler {
 
     protected SFTContainerConfig createEntitySFTContainer(String context, String name, String description) throws Exception {
         try {
-            URL url = new URL(apiUrl.toString() + "CreateEntitySFTContainer");
+            PostQuery postData = newPostQuery()
+                .add("Context", context)
+                .add("Name", name)
+                .add("Description", description);
 
-            Map<String, String> postData = new HashMap<>();
-            postData.put("Entity", entity);
-            postData.put("EntityType", entityType.getRESTString());
-            postData.put("EntityPassword", entityPassword);
-            postData.put("Context", context);
-            postData.put("Name", name);
-            postData.put("Description", description);
-
-            String result = doHttpPost(url, postData);
+            String result = doHttpPost(Endpoint.CREATE_ENTITY_SFT_CONTAINER, postData);
             return SFTContainerConfig.getInstance(result);
         }
         catch (Exception e) {
@@ -153,18 +328,13 @@ class RESTHandler {
         }
     }
 
-    protected List<BlobInfo> getContainerBlobInfoListByState(Long containerID, BlobState blobState) throws Exception {
+    protected List<BlobInfo> getContainerBlobInfoListByState(long containerID, BlobState blobState) throws Exception {
         try {
-            URL url = new URL(apiUrl.toString() + "GetContainerBlobInfoListByState");
-
-            Map<String, String> postData = new HashMap<>();
-            postData.put("Entity", entity);
-            postData.put("EntityType", entityType.getRESTString());
-            postData.put("EntityPassword", entityPassword);
-            postData.put("ContainerID", Long.toString(containerID));
-            postData.put("BlobState", blobState.getRESTString());
+            PostQuery postData = newPostQuery()
+                .add("ContainerID", containerID)
+                .add("BlobState", blobState.getRESTString());
 
-            String result = doHttpPost(url, postData);
+            String result = doHttpPost(Endpoint.GET_CONTAINER_BLOB_INFO_LIST_BY_STATE, postData);
             return BlobInfoArray.getInstance(result).getBlobInfoList();
         }
         catch (Exception e) {
@@ -174,17 +344,12 @@ class RESTHandler {
         }
     }
 
-    protected Long getContainerIDFromFriendlyID(String containerFriendlyID) throws Exception {
+    protected long getContainerIDFromFriendlyID(String containerFriendlyID) throws Exception {
         try {
-            URL url = new URL(apiUrl.toString() + "GetContainerIDFromFriendlyID");
+            PostQuery postData = newPostQuery()
+                .add("ContainerFriendlyID", containerFriendlyID);
 
-            Map<String, String> postData = new HashMap<>();
-            postData.put("Entity", entity);
-            postData.put("EntityType", entityType.getRESTString());
-            postData.put("EntityPassword", entityPassword);
-            postData.put("ContainerFriendlyID", containerFriendlyID);
-
-            String result = doHttpPost(url, postData);
+            String result = doHttpPost(Endpoint.GET_CONTAINER_ID_FROM_FRIENDLY_ID, postData);
             return Long.parseLong(result);
         }
         catch (Exception e) {
@@ -194,26 +359,14 @@ class RESTHandler {
         }
     }
 
-    protected List<Long> getContainerIDsFromName(String containerName) throws Exception {
+    protected LongList getContainerIDsFromName(String containerName) throws Exception {
         try {
-            URL url = new URL(apiUrl.toString() + "GetContainerIDsFromName");
-
-            Map<String, String> postData = new HashMap<>();
-            postData.put("Entity", entity);
-            postData.put("EntityType", entityType.getRESTString());
-            postData.put("EntityPassword", entityPassword);
-            postData.put("ContainerName", containerName);
+            PostQuery postData = newPostQuery()
+                .add("ContainerName", containerName);
 
-            String result = doHttpPost(url, postData);
-
-            // Need to remove quotation marks from result string.
-            result = result.replace("\"", "");
-
-            List<Long> containerIDs = new ArrayList<>();
-            for (String token : result.split(",")) {
-                containerIDs.add(Long.parseLong(token));
-            }
-            return containerIDs;
+            // Parse the quoted, comma separated IDs straight from the
+            // response bytes.
+            return doHttpPostForLongList(Endpoint.GET_CONTAINER_IDS_FROM_NAME, postData);
         }
         catch (Exception e) {
             String msg = "Unable to get container IDs from name.";
@@ -224,16 +377,11 @@ class RESTHandler {
 
     protected List<ContainerInfo> getContainerInfoListByContext(String context, ContainerType containerType) throws Exception {
         try {
-            URL url = new URL(apiUrl.toString() + "GetContainerInfoListByContext");
-
-            Map<String, String> postData = new HashMap<>();
-            postData.put("Entity", entity);
-            postData.put("EntityType", entityType.getRESTString());
-            postData.put("EntityPassword", entityPassword);
-            postData.put("Context", context);
-            postData.put("ContainerType", containerType.getRESTString());
+            PostQuery postData = newPostQuery()
+                .add("Context", context)
+                .add("ContainerType", containerType.getRESTString());
 
-            String result = doHttpPost(url, postData);
+            String result = doHttpPost(Endpoint.GET_CONTAINER_INFO_LIST_BY_CONTEXT, postData);
             return ContainerInfoArray.getInstance(result).getContainerInfoList();
         }
         catch (Exception e) {
@@ -243,17 +391,12 @@ class RESTHandler {
         }
     }
 
-    protected ContainerKeyData getContainerKeyData(Long containerID) throws Exception {
+    protected ContainerKeyData getContainerKeyData(long containerID) throws Exception {
         try {
-            URL url = new URL(apiUrl.toString() + "ContainerKeyData");
+            PostQuery postData = newPostQuery()
+                .add("ContainerID", containerID);
 
-            Map<String, String> postData = new HashMap<>();
-            postData.put("Entity", entity);
-            postData.put("EntityType", entityType.getRESTString());
-            postData.put("EntityPassword", entityPassword);
-            postData.put("ContainerID", Long.toString(containerID));
-
-            String result = doHttpPost(url, postData);
+            String result = doHttpPost(Endpoint.CONTAINER_KEY_DATA, postData);
             return new ContainerKeyData(result);
         }
         catch (Exception e) {
@@ -265,16 +408,11 @@ class RESTHandler {
 
     protected String getContextSetting(String context, ContextSetting contextSetting) throws Exception {
         try {
-            URL url = new URL(apiUrl.toString() + "GetContextSetting");
-
-            Map<String, String> postData = new HashMap<>();
-            postData.put("Entity", entity);
-            postData.put("EntityType", entityType.getRESTString());
-            postData.put("EntityPassword", entityPassword);
-            postData.put("Context", context);
-            postData.put("ContextSetting", contextSetting.getRESTString());
+            PostQuery postData = newPostQuery()
+                .add("Context", context)
+                .add("ContextSetting", contextSetting.getRESTString());
 
-            String result = doHttpPost(url, postData);
+            String result = doHttpPost(Endpoint.GET_CONTEXT_SETTING, postData);
 
             // Need to remove quotation marks from result string.
             result = result.replace("\"", "");
@@ -288,47 +426,42 @@ class RESTHandler {
         }
     }
 
-    protected boolean doHttpGet(URL url, File destFile) throws Exception {
+    /**
+     * Downloads a blob.
+     * 
+     * @param url Shared access signature URL of the blob.
+     * @param dest Channel to write the blob to.
+     * @param progress The tracker to count the bytes received with.
+     * @return the number of bytes received
+     * @throws Exception 
+     */
+    protected long doHttpGet(URL url, WritableByteChannel dest, ProgressTracker progress) throws Exception {
         InputStream is = null;
-        OutputStream os = null;
+        long bytesReceived = 0;
+        Call call = new Call(MetricsCollector.GET_BLOB);
 
         try {
-            if (!destFile.createNewFile()) {
-                String msg = "File already exists: " + destFile;
-                logger.error(msg);
-                throw new Exception(msg);
-            }
-            os = new FileOutputStream(destFile);
-            HttpsURLConnection con = getConnection(url);
+            HttpURLConnection con = getConnection(url);
             con.setRequestMethod("GET");
-            int rc = con.getResponseCode();
-            if (HttpsURLConnection.HTTP_OK == rc) {
+            int rc = call.status = con.getResponseCode();
+            if (HttpURLConnection.HTTP_OK == rc) {
                 is = con.getInputStream();
-                long contentLength = con.getContentLengthLong();
-                long bytesRead = 0;
-                
-                
-                int chunkSize = 1024;
-                byte[] temp = new byte[chunkSize];
-                int chunkBytesRead = 0;
-                while (-1 != chunkBytesRead) {
-                    chunkBytesRead = is.read(temp, 0, chunkSize);
-                    bytesRead += chunkBytesRead;
-                    if (-1 != chunkBytesRead) {
-                        os.write(temp, 0 , chunkBytesRead);
-                        os.flush();
+                ReadableByteChannel in = Channels.newChannel(is);
+                progress.setTotalBytes(con.getContentLengthLong());
+
+                ByteBuffer buf = ByteBuffer.allocate(DOWNLOAD_CHUNK_SIZE);
+                int bytesRead;
+                while (-1 != (bytesRead = in.read(buf))) {
+                    call.received(bytesRead);
+                    bytesReceived += bytesRead;
+                    buf.flip();
+                    while (buf.hasRemaining()) {
+                        dest.write(buf);
                     }
-
-                    // Show progress if needed.
-                    int done = (int)((50 * bytesRead) / contentLength);
-                    logger.progress(
-                        "\r[%s%s] %d byte(s) received",
-                        new String(new char[done]).replace("\0", "="),
-                        new String(new char[50 - done]).replace("\0", " "),
-                        bytesRead
-                    );
+                    buf.clear();
+                    progress.add(bytesRead);
                 }
-                logger.progressDone();
+                progress.done();
             }
             else {
                 String msg = String.format("HTTP GET request failed! ERROR: %d (%s)", rc, con.getResponseMessage());
@@ -343,59 +476,150 @@ class RESTHandler {
         }
         finally {
             Helper.closeStream(is);
-            Helper.closeStream(os);
+            call.end();
         }
-        return true;
+        return bytesReceived;
     }
     
-    private String doHttpPost(URL url, Map<String, String> postData) throws Exception {
-        OutputStream os = null;
-        BufferedWriter writer = null;
+    /**
+     * Gets the size of a blob without downloading it.
+     * 
+     * @param url Shared access signature URL of the blob.
+     * @return the blob size in bytes
+     * @throws Exception 
+     */
+    protected long doHttpHead(URL url) throws Exception {
+        Call call = new Call(MetricsCollector.GET_BLOB_PROPERTIES);
         try {
-            String postQuery = getHttpPostQuery(postData);
+            HttpURLConnection con = getConnection(url);
+            con.setRequestMethod("HEAD");
+            con.setRequestProperty("x-ms-version", "2012-02-12");
+            int rc = call.status = con.getResponseCode();
+            if (HttpURLConnection.HTTP_OK != rc) {
+                String msg = String.format("HTTP HEAD request failed! ERROR: %d (%s)", rc, con.getResponseMessage());
+                logger.error(msg);
+                throw new Exception(msg);
+            }
+            return con.getContentLengthLong();
+        }
+        catch (Exception e) {
+            String msg = "HTTP HEAD request failed.";
+            logger.error(msg);
+            throw new Exception(msg, e);
+        }
+        finally {
+            call.end();
+        }
+    }
 
-            HttpsURLConnection con = getConnection(url);
-            con.setDoOutput(true);
-            con.setRequestMethod("POST");
-            con.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
-            con.setRequestProperty("Content-Length", Integer.toString(postQuery.length()));
-            con.setRequestProperty("Accept", contentFormat.getRESTString());
+    /**
+     * Reads a byte range of a blob.
+     * 
+     * @param url Shared access signature URL of the blob.
+     * @param start Offset of the first byte to read.
+     * @param buf Buffer receiving the bytes.
+     * @param off Offset in buf.
+     * @param len The number of bytes to read.
+     * @return the number of bytes read, fewer than len if the blob ends
+     *         within the range and 0 if it ends before it
+     * @throws Exception 
+     */
+    protected int doHttpGetRange(URL url, long start, byte[] buf, int off, int len) throws Exception {
+        InputStream is = null;
+        Call call = new Call(MetricsCollector.GET_BLOB_RANGE);
 
-            os = con.getOutputStream();
-            writer = new BufferedWriter(new OutputStreamWriter(os, "UTF-8"));
-            writer.write(postQuery);
-            writer.flush();
-
-            int rc = con.getResponseCode();
-            if (HttpsURLConnection.HTTP_OK == rc) {
-                InputStreamReader in = null;
-                BufferedReader br = null;
-                try {
-                    String contentEncoding = con.getContentEncoding();
-                    if (null == contentEncoding) {
-                        // Assume UTF-8 if encoding is not set explicitely.
-                        contentEncoding = "UTF-8";
-                    }
-                    in = new InputStreamReader(con.getInputStream(), contentEncoding);
-                    br = new BufferedReader(in);
+        try {
+            HttpURLConnection con = getConnection(url);
+            con.setRequestMethod("GET");
+            con.setRequestProperty("x-ms-range", String.format("bytes=%d-%d", start, start + len - 1));
+            con.setRequestProperty("x-ms-version", "2012-02-12");
+            int rc = call.status = con.getResponseCode();
+            if (HTTP_RANGE_NOT_SATISFIABLE == rc) {
+                return 0;
+            }
+            if (HttpURLConnection.HTTP_PARTIAL != rc && HttpURLConnection.HTTP_OK != rc) {
+                String msg = String.format("HTTP GET request failed! ERROR: %d (%s)", rc, con.getResponseMessage());
+                logger.error(msg);
+                throw new Exception(msg);
+            }
 
-                    StringBuilder result = new StringBuilder();
-                    String strLine;
-                    while ((strLine = br.readLine()) != null) {
-                        result.append(strLine);
+            is = con.getInputStream();
+            if (HttpURLConnection.HTTP_OK == rc) {
+                // The range was ignored, skip to its start.
+                for (long skipped = 0; skipped < start; ) {
+                    long n = is.skip(start - skipped);
+                    if (n <= 0) {
+                        if (is.read() < 0) {
+                            return 0;
+                        }
+                        n = 1;
                     }
-                    return result.toString();
+                    skipped += n;
                 }
-                finally {
-                    Helper.closeStream(br);
-                    Helper.closeStream(in);
+            }
+
+            int bytesRead = 0;
+            while (bytesRead < len) {
+                int n = is.read(buf, off + bytesRead, len - bytesRead);
+                if (n < 0) {
+                    break;
                 }
+                bytesRead += n;
             }
-            else {
-                String msg = String.format("HTTP POST request failed! ERROR: %d (%s)", rc, con.getResponseMessage());
-                logger.error(msg);
-                throw new Exception(msg);
+            call.received(bytesRead);
+            return bytesRead;
+        }
+        catch (Exception e) {
+            String msg = "HTTP GET range request failed.";
+            logger.error(msg);
+            throw new Exception(msg, e);
+        }
+        finally {
+            Helper.closeStream(is);
+            call.end();
+        }
+    }
+
+    private String doHttpPost(Endpoint endpoint, PostQuery postData) throws Exception {
+        InputStreamReader in = null;
+        BufferedReader br = null;
+        Call call = new Call(endpoint);
+        try {
+            HttpURLConnection con = sendHttpPost(call, endpointURLs.get(endpoint), postData);
+            String contentEncoding = con.getContentEncoding();
+            if (null == contentEncoding) {
+                // Assume UTF-8 if encoding is not set explicitely.
+                contentEncoding = "UTF-8";
             }
+            in = new InputStreamReader(new CountingInputStream(con.getInputStream(), call), contentEncoding);
+            br = new BufferedReader(in);
+
+            StringBuilder result = new StringBuilder();
+            String strLine;
+            while ((strLine = br.readLine()) != null) {
+                result.append(strLine);
+            }
+            return result.toString();
+        }
+        catch (Exception e) {
+            String msg = "HTTP POST request failed.";
+            logger.error(msg);
+            throw new Exception(msg, e);
+        }
+        finally {
+            Helper.closeStream(br);
+            Helper.closeStream(in);
+            call.end();
+        }
+    }
+
+    private LongList doHttpPostForLongList(Endpoint endpoint, PostQuery postData) throws Exception {
+        InputStream is = null;
+        Call call = new Call(endpoint);
+        try {
+            HttpURLConnection con = sendHttpPost(call, endpointURLs.get(endpoint), postData);
+            is = new CountingInputStream(con.getInputStream(), call);
+            return LongList.parse(is);
         }
         catch (Exception e) {
             String msg = "HTTP POST request failed.";
@@ -403,33 +627,75 @@ class RESTHandler {
             throw new Exception(msg, e);
         }
         finally {
-            Helper.closeStream(writer);
+            Helper.closeStream(is);
+            call.end();
+        }
+    }
+
+    /**
+     * Sends a form POST request and checks the response code.
+     *
+     * @return The connection, ready for reading the response body.
+     */
+    private HttpURLConnection sendHttpPost(Call call, URL url, PostQuery postData) throws Exception {
+        OutputStream os = null;
+        try {
+            byte[] body = postData.toBytes();
+            logger.debug("POST %s", url);
+
+            HttpURLConnection con = getConnection(url);
+            con.setDoOutput(true);
+            con.setRequestMethod("POST");
+            con.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
+            con.setRequestProperty("Accept", contentFormat.getRESTString());
+            con.setFixedLengthStreamingMode(body.length);
+
+            os = con.getOutputStream();
+            os.write(body);
+            os.flush();
+            call.sent(body.length);
+
+            int rc = call.status = con.getResponseCode();
+            if (HttpURLConnection.HTTP_OK != rc) {
+                String msg = String.format("HTTP POST request failed! ERROR: %d (%s)", rc, con.getResponseMessage());
+                logger.error(msg);
+                throw new Exception(msg);
+            }
+            return con;
+        }
+        finally {
             Helper.closeStream(os);
         }
     }
 
-    private boolean doHttpPut(URL url, Map<String, String> requestProperties, byte[] buf) throws Exception {
+    /**
+     * Sends a PUT request.
+     *
+     * @return The response code.
+     */
+    private int doHttpPut(String operation, URL url, Map<String, String> requestProperties, byte[] buf, int len) throws Exception {
         OutputStream os = null;
+        Call call = new Call(operation);
         try {
-            HttpsURLConnection con = getConnection(url);
+            HttpURLConnection con = getConnection(url);
             con.setDoOutput(true);
             con.setRequestMethod("PUT");
             for (Entry<String, String> e : requestProperties.entrySet()) {
                 con.setRequestProperty(e.getKey(), e.getValue());
             }
+            // Stream the body instead of having the connection buffer a copy.
+            con.setFixedLengthStreamingMode(len);
 
             os = con.getOutputStream();
-            os.write(buf);
+            os.write(buf, 0, len);
             os.flush();
+            call.sent(len);
 
-            int rc = con.getResponseCode();
-            if (HttpsURLConnection.HTTP_CREATED == rc) {
-                return true;
-            }
-            else {
+            int rc = call.status = con.getResponseCode();
+            if (HttpURLConnection.HTTP_CREATED != rc) {
                 logger.error("HTTP PUT request failed. ERROR: %d (%s)", rc, con.getResponseMessage());
-                return false;
             }
+            return rc;
         }
         catch (Exception e) {
             String msg = "HTTP PUT request failed.";
@@ -438,36 +704,17 @@ class RESTHandler {
         }
         finally {
             Helper.closeStream(os);
+            call.end();
         }
     }
 
-    private String getHttpPostQuery(Map<String, String> postData) throws UnsupportedEncodingException
-    {
-        StringBuilder result = new StringBuilder();
-
-        boolean first = true;
-        for (Entry<String, String> e : postData.entrySet()) {
-            if (first) {
-                first = false;
-            }
-            else {
-                result.append("&");
-            }
-
-            result.append(URLEncoder.encode(e.getKey(), "UTF-8"));
-            result.append("=");
-            result.append(URLEncoder.encode(e.getValue(), "UTF-8"));
-        }
-
-        return result.toString();
-    }
-
     protected boolean ping() throws Exception {
+        Call call = new Call(Endpoint.PING);
         try {
-            URL url = new URL(apiUrl.toString() + "Ping");
-            HttpsURLConnection con = getConnection(url);
-            int rc = con.getResponseCode();
-            if (HttpsURLConnection.HTTP_OK == rc) {
+            URL url = endpointURLs.get(Endpoint.PING);
+            HttpURLConnection con = getConnection(url);
+            int rc = call.status = con.getResponseCode();
+            if (HttpURLConnection.HTTP_OK == rc) {
                 return true;
             }
             else {
@@ -481,20 +728,18 @@ class RESTHandler {
             logger.error(msg);
             throw new Exception(msg, e);
         }
+        finally {
+            call.end();
+        }
     }
 
-    protected BlobReadData readEntityContainerBlob(Long containerID, String blobIDName) throws Exception {
+    protected BlobReadData readEntityContainerBlob(long containerID, String blobIDName) throws Exception {
         try {
-            URL url = new URL(apiUrl.toString() + "ReadEntityContainerBlob");
-
-            Map<String, String> postData = new HashMap<>();
-            postData.put("Entity", entity);
-            postData.put("EntityType", entityType.getRESTString());
-            postData.put("EntityPassword", entityPassword);
-            postData.put("ContainerID", Long.toString(containerID));
-            postData.put("BlobIDName", blobIDName);
+            PostQuery postData = newPostQuery()
+                .add("ContainerID", containerID)
+                .add("BlobIDName", blobIDName);
 
-            String result = doHttpPost(url, postData);
+            String result = doHttpPost(Endpoint.READ_ENTITY_CONTAINER_BLOB, postData);
             return BlobReadData.getInstance(result);
         }
         catch (Exception e) {
@@ -504,17 +749,12 @@ class RESTHandler {
         }
     }
 
-    protected boolean removeEntityContainer(Long containerID) throws Exception {
+    protected boolean removeEntityContainer(long containerID) throws Exception {
         try {
-            URL url = new URL(apiUrl.toString() + "RemoveEntityContainer");
+            PostQuery postData = newPostQuery()
+                .add("ContainerID", containerID);
 
-            Map<String, String> postData = new HashMap<>();
-            postData.put("Entity", entity);
-            postData.put("EntityType", entityType.getRESTString());
-            postData.put("EntityPassword", entityPassword);
-            postData.put("ContainerID", Long.toString(containerID));
-
-            String result = doHttpPost(url, postData);
+            String result = doHttpPost(Endpoint.REMOVE_ENTITY_CONTAINER, postData);
             return Boolean.parseBoolean(result);
         }
         catch (Exception e) {
@@ -524,18 +764,13 @@ class RESTHandler {
         }
     }
 
-    protected boolean removeEntityContainerBlob(Long containerID, String blobIDName) throws Exception {
+    protected boolean removeEntityContainerBlob(long containerID, String blobIDName) throws Exception {
         try {
-            URL url = new URL(apiUrl.toString() + "RemoveEntityContainer");
-
-            Map<String, String> postData = new HashMap<>();
-            postData.put("Entity", entity);
-            postData.put("EntityType", entityType.getRESTString());
-            postData.put("EntityPassword", entityPassword);
-            postData.put("ContainerID", Long.toString(containerID));
-            postData.put("BlobIDName", blobIDName);
+            PostQuery postData = newPostQuery()
+                .add("ContainerID", containerID)
+                .add("BlobIDName", blobIDName);
 
-            String result = doHttpPost(url, postData);
+            String result = doHttpPost(Endpoint.REMOVE_ENTITY_CONTAINER_BLOB, postData);
             return Boolean.parseBoolean(result);
         }
         catch (Exception e) {
@@ -545,100 +780,144 @@ class RESTHandler {
         }
     }
 
-    protected boolean uploadBlobWithSharedAccessSignatureUri(File localFile, URI sasURI) throws Exception {
-        if (!localFile.exists() || !localFile.isFile()) {
-            throw new FileNotFoundException(String.format("File not found: '%s'", localFile.getAbsolutePath()));
-        }
-
-	// Cloud storage only allows blocks of max 4MB, and max 50k blocks
-	// so 200 GB max per file
-	int blockSizeMB = 4;
-	int blockSizeBytes = blockSizeMB * 1024 * 1024;
-	logger.info("File size: %d", localFile.length());
-	logger.info("Starting send in %dMB increments", blockSizeMB);
-
-	// Send headers
-        Map<String, String> requestProperties = new HashMap<>();
-        requestProperties.put("content-type", "application/octet-stream");
-        requestProperties.put("x-ms-blob-type", "BlockBlob");
-        requestProperties.put("x-ms-version", "2012-02-12");
-
-	// Open handle to encrypted file and send it in blocks
-	String sasURIBlockPrefix = sasURI.toString() + "&comp=block&blockid=";
-	List<String> blockIDStrings = new ArrayList<>();
-
-        long numBytesSent = 0;
-        int blockCount = 0;
-
-        InputStream in = null;
-        try {
-            in = new FileInputStream(localFile);
-            byte[] buf = new byte[blockSizeBytes];
-            int bytesRead;
-            while ((bytesRead = in.read(buf, 0, buf.length)) != -1) {
-                // Block IDs all have to be the same length, which was NOT documented by MSFT.
-                String blockIDString = String.format("block%08d", blockCount);
-                String blockSASUrl = sasURIBlockPrefix + DatatypeConverter.printBase64Binary(blockIDString.getBytes("UTF-8"));
-
-                if (bytesRead != blockSizeBytes) {
-                    buf = Arrays.copyOf(buf, bytesRead);
-                }
-                // Create a blob block
-                if (!doHttpPut(new URL(blockSASUrl), requestProperties, buf)) {
-                    logger.error("Failed to upload blob block! (block=%d, size=%d)", blockCount, buf.length);
-                    return false;
+    /**
+     * Uploads one block of a block blob.
+     * 
+     * Attempts failing with a transient error are repeated as often as set
+     * by {@link #setMaxBlockRetries}, after a backoff computed by
+     * {@link #getRetryDelayMillis}.
+     * 
+     * @param sasURI Shared access signature URI of the blob.
+     * @param blockIndex Position of the block within the blob.
+     * @param buf The block data.
+     * @param len The number of bytes to send from buf, at most {@link #BLOCK_SIZE}.
+     * @param contentMD5 Base64 encoded MD5 digest of the block for the server to check, or null.
+     * @param retries Counter of the retries, or null.
+     * @return The block ID to pass to {@link #commitBlockList}, or null if the upload failed.
+     * @throws Exception 
+     */
+    protected String putBlock(URI sasURI, int blockIndex, byte[] buf, int len, String contentMD5, AtomicInteger retries) throws Exception {
+        // Block IDs all have to be the same length, which was NOT documented by MSFT.
+        String blockIDString = String.format("block%08d", blockIndex);
+        String blockSASUrl = sasURI.toString() + "&comp=block&blockid="
+            + DatatypeConverter.printBase64Binary(blockIDString.getBytes("UTF-8"));
+
+        Map<String, String> requestProperties = BLOCK_REQUEST_PROPERTIES;
+        if (null != contentMD5) {
+            requestProperties = new HashMap<>(requestProperties);
+            requestProperties.put("Content-MD5", contentMD5);
+        }
+        URL url = new URL(blockSASUrl);
+        int maxRetries = maxBlockRetries;
+        long backoffMillis = blockRetryBackoffMillis;
+        long maxBackoffMillis = maxBlockRetryBackoffMillis;
+
+        // Putting a block again with the same ID replaces it, so failed
+        // attempts can simply be repeated.
+        for (int attempt = 0; ; attempt++) {
+            int rc;
+            try {
+                rc = doHttpPut(MetricsCollector.PUT_BLOCK, url, requestProperties, buf, len);
+            }
+            catch (Exception e) {
+                if (attempt >= maxRetries) {
+                    throw e;
                 }
+                rc = MetricsCollector.NO_RESPONSE;
+            }
+            if (HttpURLConnection.HTTP_CREATED == rc) {
+                return blockIDString;
+            }
+            if (attempt >= maxRetries || !isTransientFailure(rc)) {
+                logger.error("Failed to upload blob block! (block=%d, size=%d)", blockIndex, len);
+                return null;
+            }
 
-                // Block was successfuly sent, record its ID
-                blockIDStrings.add(blockIDString);
-                numBytesSent += bytesRead;
-                blockCount++;
-
-                // Show progress if needed.
-                int done = (int)((50 * numBytesSent) / localFile.length());
-                logger.progress(
-                    "\r[%s%s] %d byte(s) sent",
-                    new String(new char[done]).replace("\0", "="),
-                    new String(new char[50 - done]).replace("\0", " "),
-                    numBytesSent
-                );
+            logger.warn("Retrying upload of block %d after status %d.", blockIndex, rc);
+            metrics.requestRetried(MetricsCollector.PUT_BLOCK);
+            if (null != retries) {
+                retries.incrementAndGet();
             }
-            logger.progressDone();
-        }
-        catch (Exception e) {
-            throw e;
-        }
-        finally {
-            Helper.closeStream(in);
+            Thread.sleep(getRetryDelayMillis(backoffMillis, maxBackoffMillis, attempt));
         }
+    }
+
+    /**
+     * Gets the delay before a retry. The backoff doubles from one attempt to
+     * the next up to the maximum, and the delay is drawn at random from its
+     * upper half, so that blocks failing together are not all repeated at
+     * the same time.
+     * 
+     * @param backoffMillis The backoff before the first retry.
+     * @param maxBackoffMillis The maximum backoff.
+     * @param attempt The number of the failed attempt, from 0.
+     * @return The delay in milliseconds, at most maxBackoffMillis.
+     */
+    static long getRetryDelayMillis(long backoffMillis, long maxBackoffMillis, int attempt) {
+        long ceiling = maxBackoffMillis;
+        if (attempt < Long.SIZE - 1 && backoffMillis <= (maxBackoffMillis >> attempt)) {
+            ceiling = backoffMillis << attempt;
+        }
+        long half = ceiling / 2;
+        return ceiling - ThreadLocalRandom.current().nextLong(half + 1);
+    }
 
-	// Done sending blocks, so commit the blocks into a single one
-	// do the final re-assembly on the storage server side
-	String commitBlockSASUrl = sasURI.toString() + "&comp=blockList";
+    /**
+     * Tells whether a request that failed with the given status may succeed
+     * when repeated.
+     * 
+     * @param statusCode The HTTP status code, or {@link MetricsCollector#NO_RESPONSE}.
+     * @return true for connection failures, timeouts, throttling and server errors
+     */
+    static boolean isTransientFailure(int statusCode) {
+        return MetricsCollector.NO_RESPONSE == statusCode
+            || HttpURLConnection.HTTP_CLIENT_TIMEOUT == statusCode
+            || HTTP_TOO_MANY_REQUESTS == statusCode
+            || statusCode >= HttpURLConnection.HTTP_INTERNAL_ERROR;
+    }
+
+    /**
+     * Commits uploaded blocks into a single block blob, which does the final
+     * re-assembly on the storage server side.
+     * 
+     * @param sasURI Shared access signature URI of the blob.
+     * @param blockIDStrings The block IDs, in blob order.
+     * @return true if successful, false else
+     * @throws Exception 
+     */
+    protected boolean commitBlockList(URI sasURI, List<String> blockIDStrings) throws Exception {
+        String commitBlockSASUrl = sasURI.toString() + "&comp=blockList";
         Map<String, String> commitRequestProperties = new HashMap<>();
         commitRequestProperties.put("content-type", "text/xml");
         commitRequestProperties.put("x-ms-version", "2012-02-12");
 
-	//String blockListBody = "";
         StringBuilder blockListBody = new StringBuilder();
         for (String s : blockIDStrings) {
             String encodedBlockID = DatatypeConverter.printBase64Binary(s.getBytes("UTF-8"));
-	    //Indicate blocks to commit per 2012-02-12 version PUT block list specifications
-	    blockListBody.append(String.format("<Latest>%s</Latest>", encodedBlockID));
+            //Indicate blocks to commit per 2012-02-12 version PUT block list specifications
+            blockListBody.append(String.format("<Latest>%s</Latest>", encodedBlockID));
         }
-	String commitBody = String.format("<?xml version=\"1.0\" encoding=\"utf-8\"?><BlockList>%s</BlockList>", blockListBody.toString());
-        return doHttpPut(new URL(commitBlockSASUrl), commitRequestProperties, commitBody.getBytes("UTF-8"));
+        String commitBody = String.format("<?xml version=\"1.0\" encoding=\"utf-8\"?><BlockList>%s</BlockList>", blockListBody.toString());
+        byte[] commitBytes = commitBody.getBytes("UTF-8");
+        int rc = doHttpPut(MetricsCollector.PUT_BLOCK_LIST, new URL(commitBlockSASUrl), commitRequestProperties, commitBytes, commitBytes.length);
+        return HttpURLConnection.HTTP_CREATED == rc;
     }
 
-    private HttpsURLConnection getConnection(URL url) throws Exception {
-        HttpsURLConnection con = (HttpsURLConnection)url.openConnection();
+    private HttpURLConnection getConnection(URL url) throws Exception {
+        URLConnection connection = url.openConnection();
+        if (!(connection instanceof HttpsURLConnection)) {
+            // Plain HTTP only for local stand-in servers in tests.
+            if (!plainHttpAllowed || !(connection instanceof HttpURLConnection)) {
+                throw new IOException("Not an HTTPS URL: " + url.getProtocol() + "://" + url.getAuthority());
+            }
+            return connectionInterceptor.intercept((HttpURLConnection)connection);
+        }
+        HttpsURLConnection con = (HttpsURLConnection)connection;
         if (!verifySSLCert) {
-            SSLContext sc = SSLContext.getInstance("SSL");
-            sc.init(null, new TrustManager[] {new SSLInvalidCertificateTrustManager()}, new SecureRandom());
-            con.setSSLSocketFactory(sc.getSocketFactory());
-            con.setHostnameVerifier(new SSLInvalidHostnameVerifier());
+            con.setSSLSocketFactory(sslSocketFactory);
+            con.setHostnameVerifier(hostnameVerifier);
         }
-        return con;
+        return connectionInterceptor.intercept(con);
     }
 
 }
@@ -0,0 +1,46 @@
+package com.goironbox.client;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counter that also tells how fast it grew recently.
+ *
+ * The rate is measured between samples taken when it is read, at least a
+ * second apart, so a monitoring tool polling it sees the rate since its
+ * previous poll.
+ *
+ * @since   2.0
+ */
+class RateMeter {
+
+    private static final long MIN_SAMPLE_NANOS = 1000000000L;
+
+    private final AtomicLong total = new AtomicLong();
+    private long sampleTotal = 0;
+    private long sampleNanos = System.nanoTime();
+    private double rate = 0;
+
+    void add(long n) {
+        total.addAndGet(n);
+    }
+
+    long getTotal() {
+        return total.get();
+    }
+
+    /**
+     * @return the growth per second between the two most recent samples
+     */
+    synchronized double getRatePerSecond() {
+        long now = System.nanoTime();
+        long elapsed = now - sampleNanos;
+        if (elapsed >= MIN_SAMPLE_NANOS) {
+            long current = total.get();
+            rate = (current - sampleTotal) * 1e9 / elapsed;
+            sampleTotal = current;
+            sampleNanos = now;
+        }
+        return rate;
+    }
+
+}
@@ -12,17 +12,46 @@ public class SFTContainerConfig {
     private final String friendlyID;
     private final String name;
     
-    private SFTContainerConfig(String jsonString) {
-        JSONObject jo = new JSONObject(jsonString);
-
-        containerID = Long.parseLong(jo.get("ContainerID").toString());
-        description = jo.get("Description").toString();
-        friendlyID = jo.get("FriendlyID").toString();
-        name = jo.get("Name").toString();
+    private SFTContainerConfig(Long containerID, String description, String friendlyID, String name) {
+        this.containerID = containerID;
+        this.description = description;
+        this.friendlyID = friendlyID;
+        this.name = name;
     }
 
     static SFTContainerConfig getInstance(String jsonString) {
-        return new SFTContainerConfig(jsonString);
+        JSONTokener x = new JSONTokener(jsonString);
+        String containerID = null;
+        String description = null;
+        String friendlyID = null;
+        String name = null;
+
+        x.beginObject();
+        for (String key = x.nextKey(); null != key; key = x.nextKey()) {
+            switch (key) {
+                case "ContainerID":
+                    containerID = x.nextScalar();
+                    break;
+                case "Description":
+                    description = x.nextScalar();
+                    break;
+                case "FriendlyID":
+                    friendlyID = x.nextScalar();
+                    break;
+                case "Name":
+                    name = x.nextScalar();
+                    break;
+                default:
+                    x.skipValue();
+            }
+        }
+
+        return new SFTContainerConfig(
+            Long.parseLong(JSONTokener.required(containerID, "ContainerID")),
+            JSONTokener.required(description, "Description"),
+            JSONTokener.required(friendlyID, "FriendlyID"),
+            JSONTokener.required(name, "Name")
+        );
     }
     
     /**
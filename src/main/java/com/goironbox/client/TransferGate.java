@@ -0,0 +1,73 @@
+package com.goironbox.client;
+
+/**
+ * Admits transfers of a client, limiting how many run at once and holding
+ * new ones back while transfers are paused.
+ *
+ * @since   2.0
+ */
+class TransferGate {
+
+    static final int UNLIMITED = Integer.MAX_VALUE;
+
+    private int maxActive = UNLIMITED;
+    private int active = 0;
+    private int waiting = 0;
+    private boolean paused = false;
+
+    /**
+     * Waits until the transfer may start.
+     *
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    synchronized void enter() throws InterruptedException {
+        waiting++;
+        try {
+            while (paused || active >= maxActive) {
+                wait();
+            }
+        }
+        finally {
+            waiting--;
+        }
+        active++;
+    }
+
+    /**
+     * Called when an admitted transfer has ended.
+     */
+    synchronized void exit() {
+        active--;
+        notifyAll();
+    }
+
+    synchronized void setPaused(boolean paused) {
+        this.paused = paused;
+        notifyAll();
+    }
+
+    synchronized boolean isPaused() {
+        return paused;
+    }
+
+    synchronized void setMaxActive(int maxActive) {
+        if (maxActive < 1) {
+            throw new IllegalArgumentException("Transfer limit must be positive: " + maxActive);
+        }
+        this.maxActive = maxActive;
+        notifyAll();
+    }
+
+    synchronized int getMaxActive() {
+        return maxActive;
+    }
+
+    synchronized int getActive() {
+        return active;
+    }
+
+    synchronized int getWaiting() {
+        return waiting;
+    }
+
+}
@@ -0,0 +1,42 @@
+package com.goironbox.client;
+
+/**
+ * Receives progress updates of uploads and downloads.
+ *
+ * Updates are throttled: a listener is called after a minimum number of bytes
+ * and a minimum time have passed since the previous update, and once more
+ * when a transfer completes. Progress counts the encrypted bytes on the wire;
+ * an upload to several containers counts the bytes sent to all of them.
+ * Listeners are called from the transferring threads and should return
+ * quickly.
+ *
+ * @since   2.0
+ */
+public interface TransferProgressListener {
+
+    /**
+     * Direction of a transfer.
+     */
+    enum Direction {
+        UPLOAD,
+        DOWNLOAD
+    }
+
+    /**
+     * Called while a transfer is running.
+     *
+     * @param direction The direction of the transfer.
+     * @param bytesTransferred The number of bytes transferred so far.
+     * @param totalBytes The number of bytes to transfer, or -1 if unknown.
+     */
+    void progressChanged(Direction direction, long bytesTransferred, long totalBytes);
+
+    /**
+     * Called when a transfer has completed.
+     *
+     * @param direction The direction of the transfer.
+     * @param bytesTransferred The number of bytes transferred.
+     */
+    void transferCompleted(Direction direction, long bytesTransferred);
+
+}
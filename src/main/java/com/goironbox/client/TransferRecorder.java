@@ -0,0 +1,68 @@
+package com.goironbox.client;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Collects the measurements of one transfer for its {@link TransferResult}.
+ *
+ * Phases run one after the other, so most are timed by marking where they
+ * end; phases timed elsewhere, like those inside the upload pipeline, are
+ * added with their duration.
+ *
+ * @since   2.0
+ */
+class TransferRecorder {
+
+    private final Map<TransferResult.Phase, Long> phaseNanos = new EnumMap<>(TransferResult.Phase.class);
+    private final long startNanos = System.nanoTime();
+    private long phaseStartNanos = startNanos;
+    private long bytesTransferred = 0;
+    private int blockCount = 0;
+    private int retryCount = 0;
+
+    /**
+     * Adds the time since the previous phase ended to the given phase.
+     *
+     * @param phase The phase that just ended.
+     */
+    void endPhase(TransferResult.Phase phase) {
+        long now = System.nanoTime();
+        addPhaseNanos(phase, now - phaseStartNanos);
+        phaseStartNanos = now;
+    }
+
+    /**
+     * Adds a duration measured elsewhere to a phase, and makes the next
+     * phase start now.
+     *
+     * @param phase The phase.
+     * @param nanos The duration in nanoseconds.
+     */
+    void addPhaseNanos(TransferResult.Phase phase, long nanos) {
+        Long previous = phaseNanos.get(phase);
+        phaseNanos.put(phase, (null == previous) ? nanos : previous + nanos);
+        phaseStartNanos = System.nanoTime();
+    }
+
+    void addBytesTransferred(long bytes) {
+        bytesTransferred += bytes;
+    }
+
+    void addBlocks(int blocks) {
+        blockCount += blocks;
+    }
+
+    void addRetries(int retries) {
+        retryCount += retries;
+    }
+
+    TransferResult toResult(boolean success, long plaintextSize, byte[] plaintextSHA256) {
+        return new TransferResult(
+            success, plaintextSize, plaintextSHA256,
+            bytesTransferred, blockCount, retryCount,
+            phaseNanos, System.nanoTime() - startNanos
+        );
+    }
+
+}
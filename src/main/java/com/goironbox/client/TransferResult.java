@@ -0,0 +1,182 @@
+package com.goironbox.client;
+
+import java.util.EnumMap;
+import java.util.Map;
+import javax.xml.bind.DatatypeConverter;
+
+/**
+ * Outcome of a transfer, with the time spent in each of its phases.
+ *
+ * @since   2.0
+ */
+public class TransferResult {
+
+    /**
+     * Phases of a transfer.
+     */
+    public enum Phase {
+        /** Checking that the API server is accessible. */
+        PING,
+        /** Getting the container key data. */
+        KEY_FETCH,
+        /** Creating the container blob, for uploads. */
+        CREATE,
+        /** Checking out the blob for upload, or getting its read URL for download. */
+        CHECK_OUT,
+        /** Time spent in the cipher for uploads, overlapping {@link #TRANSFER}. */
+        ENCRYPT,
+        /** Time spent in the cipher for downloads, overlapping {@link #TRANSFER}. */
+        DECRYPT,
+        /** Sending the blocks, or receiving the blob. */
+        TRANSFER,
+        /** Committing the block lists, from when the last block was sent. */
+        COMMIT,
+        /** Checking the blob back in, for uploads. */
+        CHECK_IN
+    }
+
+    private final boolean success;
+    private final long plaintextSize;
+    private final byte[] plaintextSHA256;
+    private final long bytesTransferred;
+    private final int blockCount;
+    private final int retryCount;
+    private final Map<Phase, Long> phaseNanos;
+    private final long totalNanos;
+
+    TransferResult(
+        boolean success,
+        long plaintextSize,
+        byte[] plaintextSHA256,
+        long bytesTransferred,
+        int blockCount,
+        int retryCount,
+        Map<Phase, Long> phaseNanos,
+        long totalNanos
+    ) {
+        this.success = success;
+        this.plaintextSize = plaintextSize;
+        this.plaintextSHA256 = plaintextSHA256;
+        this.bytesTransferred = bytesTransferred;
+        this.blockCount = blockCount;
+        this.retryCount = retryCount;
+        this.phaseNanos = new EnumMap<>(phaseNanos);
+        this.totalNanos = totalNanos;
+    }
+
+    /**
+     * Indicates if the transfer succeeded.
+     *
+     * @return true if successful, false else
+     */
+    public boolean isSuccess() {
+        return success;
+    }
+
+    /**
+     * Gets the number of plaintext bytes transferred.
+     *
+     * @return the plaintext size
+     */
+    public long getPlaintextSize() {
+        return plaintextSize;
+    }
+
+    /**
+     * Gets the SHA-256 digest of the plaintext, computed while it was being
+     * uploaded.
+     *
+     * @return the digest, or null if the transfer failed or was a download
+     */
+    public byte[] getPlaintextSHA256() {
+        return (null == plaintextSHA256) ? null : plaintextSHA256.clone();
+    }
+
+    /**
+     * Gets the SHA-256 digest of the plaintext as lower case hex string, as
+     * printed by sha256sum.
+     *
+     * @return the digest, or null if the transfer failed or was a download
+     */
+    public String getPlaintextSHA256Hex() {
+        return (null == plaintextSHA256) ? null : DatatypeConverter.printHexBinary(plaintextSHA256).toLowerCase();
+    }
+
+    /**
+     * Gets the number of encrypted bytes sent or received, summed over all
+     * containers of an upload to several containers.
+     *
+     * @return the number of bytes on the wire
+     */
+    public long getBytesTransferred() {
+        return bytesTransferred;
+    }
+
+    /**
+     * Gets the number of blocks sent, 0 for downloads.
+     *
+     * @return the block count
+     */
+    public int getBlockCount() {
+        return blockCount;
+    }
+
+    /**
+     * Gets the number of requests repeated after a transient failure.
+     *
+     * @return the retry count
+     */
+    public int getRetryCount() {
+        return retryCount;
+    }
+
+    /**
+     * Gets the time spent in a phase.
+     *
+     * @param phase The phase.
+     * @return the duration in nanoseconds, 0 if the transfer did not get to
+     *         or does not have that phase
+     */
+    public long getPhaseNanos(Phase phase) {
+        Long nanos = phaseNanos.get(phase);
+        return (null == nanos) ? 0 : nanos;
+    }
+
+    /**
+     * Gets the time from the start of the transfer until it returned.
+     *
+     * @return the duration in nanoseconds
+     */
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * Gets the rate at which encrypted bytes went over the wire during the
+     * {@link Phase#TRANSFER} phase.
+     *
+     * @return the throughput in bytes per second
+     */
+    public double getThroughput() {
+        long nanos = getPhaseNanos(Phase.TRANSFER);
+        return (0 == nanos) ? 0 : bytesTransferred * 1e9 / nanos;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder phases = new StringBuilder();
+        for (Map.Entry<Phase, Long> e : phaseNanos.entrySet()) {
+            if (phases.length() > 0) {
+                phases.append(", ");
+            }
+            phases.append(String.format("%s=%.1fms", e.getKey(), e.getValue() / 1e6));
+        }
+        return String.format(
+            "TransferResult[success=%b, plaintextSize=%d, bytesTransferred=%d, blocks=%d, retries=%d, "
+                + "throughput=%.2fMB/s, total=%.1fms, phases={%s}, plaintextSHA256=%s]",
+            success, plaintextSize, bytesTransferred, blockCount, retryCount,
+            getThroughput() / 1e6, totalNanos / 1e6, phases, getPlaintextSHA256Hex()
+        );
+    }
+
+}
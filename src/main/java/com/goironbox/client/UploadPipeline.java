@@ -0,0 +1,561 @@
+package com.goironbox.client;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.crypto.Cipher;
+import javax.xml.bind.DatatypeConverter;
+
+/**
+ * Encrypts and uploads a channel as one or more block blobs in overlapping
+ * stages.
+ *
+ * The uploading thread reads the input into plaintext segments. Every target
+ * blob has an encryption stage turning the segments into ciphertext blocks
+ * with its own cipher, and a send stage sending them, so block N+1 is being
+ * read and encrypted while block N is on the wire. The input is read only
+ * once, however many targets there are: a segment goes back to the pool once
+ * all targets have encrypted it.
+ *
+ * The encryption and send stages run as tasks on a thread pool shared by all
+ * uploads, one task at a time per stage, so an upload costs no threads of its
+ * own. Tasks never wait for one another, so the bounded pool cannot deadlock:
+ * the uploading thread takes every buffer a segment needs before handing it
+ * on, and waits for a buffer to come back instead.
+ *
+ * Buffers come from pools of queueCapacity + 2 per upload and per target, and
+ * are only allocated when the pool has none free. The first plaintext segment
+ * is sized to the input when its size is known, and small otherwise, and only
+ * grows to a full block when the input fills it, so a small upload holds
+ * small buffers. An upload holds at most (targets + 1) * (queueCapacity + 2)
+ * blocks in memory.
+ * A slow stage stalls the ones before it instead of letting data pile up. A
+ * failure of any stage cancels all targets.
+ *
+ * The uploading thread hashes the plaintext with SHA-256 and every
+ * encryption stage hashes its blocks with MD5 for the Content-MD5 header,
+ * which the storage server checks, so integrity checking costs no extra pass
+ * over the data.
+ *
+ * Block uploads failing with a transient error are retried by
+ * {@link RESTHandler#putBlock}, if the client allows it; the retries are
+ * counted along with the bytes, blocks and time spent sending and committing,
+ * for the transfer result.
+ *
+ * A pipeline is good for one upload.
+ *
+ * @since   2.0
+ */
+class UploadPipeline {
+
+    static final int DEFAULT_QUEUE_CAPACITY = 1;
+
+    // Plaintext segments leave room for the padding block, so that no
+    // ciphertext block exceeds the storage block size limit.
+    private static final int SEGMENT_SIZE = RESTHandler.BLOCK_SIZE - Crypt.CRYPT_BLOCK_SIZE;
+
+    // Size of the first plaintext segment of an input of unknown size.
+    private static final int FIRST_SEGMENT_SIZE = 64 * 1024;
+
+    // How often the uploading thread waiting for a buffer checks if a stage
+    // failed.
+    private static final long POLL_MILLIS = 100;
+
+    // Sending blocks mostly waits for the network, so the pool has more
+    // threads than there are processors.
+    private static final int MAX_THREADS = Math.max(8, 4 * Runtime.getRuntime().availableProcessors());
+    private static final ThreadPoolExecutor EXECUTOR = newExecutor();
+
+    private final RESTHandler rh;
+    private final Logger logger;
+    private final MetricsCollector metrics;
+    private final PipelineStatistics stats;
+    private final int queueCapacity;
+    private int segmentSize;
+    private final SegmentPool freePlain;
+    private final List<Target> targets = new ArrayList<>();
+    private final AtomicReference<Exception> failure = new AtomicReference<>();
+    private final MessageDigest plaintextDigest;
+    private byte[] plaintextSHA256;
+    private volatile boolean rejected = false;
+    private long inputSize = 0;
+    private int pendingTasks = 0;
+    private final AtomicLong encryptNanos = new AtomicLong();
+    private final AtomicLong bytesSent = new AtomicLong();
+    private final AtomicInteger blocksSent = new AtomicInteger();
+    private final AtomicInteger retries = new AtomicInteger();
+    private final AtomicLong lastBlockSentNanos = new AtomicLong(Long.MIN_VALUE);
+    private long transferNanos = 0;
+    private long commitNanos = 0;
+
+    private static final class Segment {
+        byte[] data;
+        ByteBuffer buffer;
+        final AtomicInteger references = new AtomicInteger();
+        int length;
+        boolean last;
+        String contentMD5;
+
+        Segment(int capacity) {
+            data = new byte[capacity];
+            buffer = ByteBuffer.wrap(data);
+        }
+
+        /**
+         * Enlarges the buffer, keeping the data read into it.
+         */
+        void grow(int capacity) {
+            int position = buffer.position();
+            data = Arrays.copyOf(data, capacity);
+            buffer = ByteBuffer.wrap(data);
+            buffer.position(position);
+        }
+    }
+
+    /**
+     * Buffers allocated when first needed. Only the uploading thread takes
+     * buffers, any thread may give them back.
+     */
+    private final class SegmentPool {
+        final BlockingQueue<Segment> free;
+        int remaining;
+
+        SegmentPool(int size) {
+            free = new ArrayBlockingQueue<>(size);
+            remaining = size;
+        }
+
+        /**
+         * @param capacity The number of bytes the buffer must hold at least.
+         */
+        Segment take(int capacity) throws Exception {
+            Segment segment = free.poll();
+            if (null == segment && remaining > 0) {
+                remaining--;
+                return new Segment(capacity);
+            }
+            while (null == segment) {
+                segment = free.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                checkFailure();
+            }
+            // A buffer too small to reuse makes room for a larger one.
+            return (segment.data.length < capacity) ? new Segment(capacity) : segment;
+        }
+
+        void give(Segment segment) {
+            free.add(segment);
+        }
+    }
+
+    /**
+     * Runs tasks one at a time, in the order they were submitted, on the
+     * shared pool, without holding a thread while it has nothing to run.
+     */
+    private static final class SerialExecutor implements Executor {
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+        private Runnable active;
+
+        @Override
+        public synchronized void execute(final Runnable task) {
+            tasks.add(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        task.run();
+                    }
+                    finally {
+                        scheduleNext();
+                    }
+                }
+            });
+            if (null == active) {
+                scheduleNext();
+            }
+        }
+
+        private synchronized void scheduleNext() {
+            if (null != (active = tasks.poll())) {
+                EXECUTOR.execute(active);
+            }
+        }
+    }
+
+    private final class Target {
+        final Cipher cipher;
+        final URI sasURI;
+        final SegmentPool freeCipher;
+        final Executor encryptor = new SerialExecutor();
+        final Executor sender = new SerialExecutor();
+        final MessageDigest blockDigest;
+        final List<String> blockIDStrings = new ArrayList<>();
+
+        Target(Cipher cipher, URI sasURI) throws GeneralSecurityException {
+            this.cipher = cipher;
+            this.sasURI = sasURI;
+            blockDigest = MessageDigest.getInstance("MD5");
+            // Each stage may hold a buffer on top of the queued ones.
+            freeCipher = new SegmentPool(queueCapacity + 2);
+        }
+    }
+
+    private abstract class Task implements Runnable {
+
+        abstract void work() throws Exception;
+
+        @Override
+        public void run() {
+            try {
+                work();
+            }
+            catch (Exception e) {
+                failure.compareAndSet(null, e);
+            }
+            finally {
+                taskDone();
+            }
+        }
+    }
+
+    /**
+     * @param rh The handler sending the blocks.
+     * @param stats The statistics to update.
+     * @param queueCapacity The number of segments each queue can hold.
+     * @param inputSize The number of bytes that will be uploaded, or -1 if unknown.
+     * @throws GeneralSecurityException If no digest implementation is available.
+     */
+    UploadPipeline(RESTHandler rh, PipelineStatistics stats, int queueCapacity, long inputSize) throws GeneralSecurityException {
+        checkQueueCapacity(queueCapacity);
+        this.rh = rh;
+        this.logger = rh.getLogger();
+        this.metrics = rh.getMetrics();
+        this.stats = stats;
+        this.queueCapacity = queueCapacity;
+        plaintextDigest = MessageDigest.getInstance("SHA-256");
+
+        // One byte more than the input, so that reading the first segment
+        // sees the end of it.
+        segmentSize = (inputSize < 0) ? FIRST_SEGMENT_SIZE : (int) Math.min(SEGMENT_SIZE, inputSize + 1);
+        freePlain = new SegmentPool(queueCapacity + 2);
+    }
+
+    private static ThreadPoolExecutor newExecutor() {
+        final AtomicInteger threads = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+            MAX_THREADS, MAX_THREADS, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+            new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "ironbox-upload-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            }
+        );
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    static void checkQueueCapacity(int queueCapacity) {
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("Queue capacity must be positive: " + queueCapacity);
+        }
+    }
+
+    /**
+     * Gets the number of bytes read from the uploaded channel.
+     *
+     * @return the plaintext size, once {@link #upload} has returned
+     */
+    long getInputSize() {
+        return inputSize;
+    }
+
+    /**
+     * Gets the SHA-256 digest of the data read from the uploaded channel.
+     *
+     * @return the digest, once {@link #upload} has returned successfully
+     */
+    byte[] getPlaintextSHA256() {
+        return plaintextSHA256;
+    }
+
+    /**
+     * @return the time spent in the ciphers, summed over all targets
+     */
+    long getEncryptNanos() {
+        return encryptNanos.get();
+    }
+
+    /**
+     * @return the time from the start of the upload until the last block was sent
+     */
+    long getTransferNanos() {
+        return transferNanos;
+    }
+
+    /**
+     * @return the time from when the last block was sent until all block lists were committed
+     */
+    long getCommitNanos() {
+        return commitNanos;
+    }
+
+    /**
+     * @return the number of encrypted bytes sent, summed over all targets
+     */
+    long getBytesSent() {
+        return bytesSent.get();
+    }
+
+    /**
+     * @return the number of blocks sent, summed over all targets
+     */
+    int getBlocksSent() {
+        return blocksSent.get();
+    }
+
+    /**
+     * @return the number of block uploads repeated after a transient failure
+     */
+    int getRetries() {
+        return retries.get();
+    }
+
+    /**
+     * Encrypts everything read from a channel and uploads it as a block blob.
+     *
+     * @param in The channel to upload, read up to its end.
+     * @param progress The tracker to count the bytes sent with.
+     * @param cipher An initialized encryption cipher owned by the pipeline.
+     * @param sasURI Shared access signature URI of the blob.
+     * @return true if successful, false else
+     * @throws Exception
+     */
+    boolean upload(ReadableByteChannel in, ProgressTracker progress, Cipher cipher, URI sasURI) throws Exception {
+        return upload(in, progress, new Cipher[] {cipher}, new URI[] {sasURI});
+    }
+
+    /**
+     * Encrypts everything read from a channel once for every target and
+     * uploads it as a block blob to each of them.
+     *
+     * @param in The channel to upload, read up to its end.
+     * @param progress The tracker to count the bytes sent with.
+     * @param ciphers An initialized encryption cipher per target, owned by the pipeline.
+     * @param sasURIs Shared access signature URI of the blob per target.
+     * @return true if all uploads succeeded, false else
+     * @throws Exception
+     */
+    boolean upload(final ReadableByteChannel in, final ProgressTracker progress, Cipher[] ciphers, URI[] sasURIs) throws Exception {
+        if (ciphers.length != sasURIs.length || 0 == ciphers.length) {
+            throw new IllegalArgumentException("Need one cipher per target URI.");
+        }
+        if (!targets.isEmpty()) {
+            throw new IllegalStateException("Pipeline was used already.");
+        }
+        for (int i = 0; i < ciphers.length; i++) {
+            targets.add(new Target(ciphers[i], sasURIs[i]));
+        }
+
+        logger.info("Starting send in %dMB increments", RESTHandler.BLOCK_SIZE / (1024 * 1024));
+        stats.addActiveUploads(targets.size());
+        long startNanos = System.nanoTime();
+        try {
+            read(in, progress);
+            awaitTasks();
+            if (rejected) {
+                return false;
+            }
+            if (null != failure.get()) {
+                throw failure.get();
+            }
+            progress.done();
+            return true;
+        }
+        catch (Exception e) {
+            failure.compareAndSet(null, e);
+            String msg = "Unable to upload blob.";
+            logger.error(msg);
+            throw new Exception(msg, failure.get());
+        }
+        finally {
+            // Make the stages give up, if they are still running.
+            failure.compareAndSet(null, new CancellationException());
+            awaitTasks();
+            long endNanos = System.nanoTime();
+            long lastBlockNanos = Math.max(startNanos, lastBlockSentNanos.get());
+            transferNanos = lastBlockNanos - startNanos;
+            commitNanos = endNanos - lastBlockNanos;
+            stats.addActiveUploads(-targets.size());
+        }
+    }
+
+    private void read(ReadableByteChannel in, final ProgressTracker progress) throws Exception {
+        boolean eof = false;
+        while (!eof) {
+            final Segment segment = freePlain.take(segmentSize);
+            long start = System.nanoTime();
+            segment.buffer.clear();
+            while (!eof) {
+                if (!segment.buffer.hasRemaining()) {
+                    if (segment.data.length >= SEGMENT_SIZE) {
+                        break;
+                    }
+                    // More input than the first segment holds; from here on
+                    // segments are full blocks.
+                    segmentSize = SEGMENT_SIZE;
+                    segment.grow(SEGMENT_SIZE);
+                }
+                eof = in.read(segment.buffer) < 0;
+            }
+            segment.length = segment.buffer.position();
+            segment.last = eof;
+            segment.references.set(targets.size());
+            inputSize += segment.length;
+            plaintextDigest.update(segment.data, 0, segment.length);
+            if (eof) {
+                plaintextSHA256 = plaintextDigest.digest();
+            }
+            stats.addReadBusyNanos(System.nanoTime() - start);
+
+            for (final Target target : targets) {
+                // Segments before the last are whole cipher blocks, so the
+                // cipher adds at most the padding block.
+                final Segment block = target.freeCipher.take(segment.length + Crypt.CRYPT_BLOCK_SIZE);
+                stats.addEncryptQueueDepth(1);
+                submit(target.encryptor, new Task() {
+                    @Override
+                    void work() throws Exception {
+                        encrypt(target, segment, block, progress);
+                    }
+                });
+            }
+        }
+    }
+
+    private void encrypt(final Target target, Segment plain, final Segment block, final ProgressTracker progress) throws Exception {
+        stats.addEncryptQueueDepth(-1);
+        checkFailure();
+
+        long start = System.nanoTime();
+        Object event = FlightRecorderEvents.beginCrypt();
+        block.last = plain.last;
+        block.length = plain.last
+            ? target.cipher.doFinal(plain.data, 0, plain.length, block.data)
+            : target.cipher.update(plain.data, 0, plain.length, block.data);
+        long cipherNanos = System.nanoTime() - start;
+        FlightRecorderEvents.endCrypt(event, Cipher.ENCRYPT_MODE, plain.length);
+        metrics.encrypted(plain.length, cipherNanos);
+        encryptNanos.addAndGet(cipherNanos);
+        target.blockDigest.update(block.data, 0, block.length);
+        block.contentMD5 = DatatypeConverter.printBase64Binary(target.blockDigest.digest());
+        stats.addEncryptBusyNanos(System.nanoTime() - start);
+
+        if (0 == plain.references.decrementAndGet()) {
+            freePlain.give(plain);
+        }
+        stats.addUploadQueueDepth(1);
+        submit(target.sender, new Task() {
+            @Override
+            void work() throws Exception {
+                send(target, block, progress);
+            }
+        });
+    }
+
+    private void send(Target target, Segment block, ProgressTracker progress) throws Exception {
+        stats.addUploadQueueDepth(-1);
+        checkFailure();
+
+        if (block.length > 0) {
+            final int blockIndex = target.blockIDStrings.size();
+            final int length = block.length;
+            long start = System.nanoTime();
+            String blockIDString = rh.putBlock(target.sasURI, blockIndex, block.data, length, block.contentMD5, retries);
+            final long nanos = System.nanoTime() - start;
+            stats.addUploadBusyNanos(nanos);
+            logger.debug(new MessageSupplier() {
+                @Override
+                public String get() {
+                    return String.format("Sent block %d (%d bytes) in %d ms, %.1f MB/s", blockIndex, length, nanos / 1000000, length * 1000.0 / Math.max(nanos, 1));
+                }
+            });
+            if (null == blockIDString) {
+                reject();
+                return;
+            }
+            target.blockIDStrings.add(blockIDString);
+            stats.addBlocksUploaded(1);
+            blocksSent.incrementAndGet();
+            bytesSent.addAndGet(block.length);
+            progress.add(block.length);
+        }
+        boolean last = block.last;
+        target.freeCipher.give(block);
+        if (!last) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        long lastSent;
+        while (start > (lastSent = lastBlockSentNanos.get()) && !lastBlockSentNanos.compareAndSet(lastSent, start)) {
+            // Retry with the time another target has set.
+        }
+        boolean committed = rh.commitBlockList(target.sasURI, target.blockIDStrings);
+        stats.addUploadBusyNanos(System.nanoTime() - start);
+        if (!committed) {
+            reject();
+        }
+    }
+
+    private void submit(Executor executor, Task task) {
+        synchronized (this) {
+            pendingTasks++;
+        }
+        executor.execute(task);
+    }
+
+    private synchronized void taskDone() {
+        if (0 == --pendingTasks) {
+            notifyAll();
+        }
+    }
+
+    private synchronized void awaitTasks() throws InterruptedException {
+        while (pendingTasks > 0) {
+            wait();
+        }
+    }
+
+    private void reject() {
+        // The server turned a request down; cancel the other stages and
+        // report the upload as failed rather than raise an error.
+        rejected = true;
+        failure.compareAndSet(null, new CancellationException("Upload rejected."));
+    }
+
+    private void checkFailure() {
+        if (null != failure.get()) {
+            throw new CancellationException("An upload stage failed.");
+        }
+    }
+
+}
@@ -0,0 +1,33 @@
+package com.goironbox.client;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A request to the IronBox API.
+ * 
+ * @since   2.0
+ */
+@Name("com.goironbox.client.ApiCall")
+@Label("IronBox API Call")
+@Category({"IronBox", "Network"})
+@Description("A request to an IronBox API endpoint, such as ContainerKeyData")
+class ApiCallEvent extends Event {
+
+    @Label("Endpoint")
+    String endpoint;
+
+    @Label("Status Code")
+    @Description("HTTP status code, or -1 if there was no response")
+    int statusCode;
+
+    @Label("Bytes")
+    @Description("Request and response body bytes")
+    @DataAmount
+    long bytes;
+
+}
@@ -0,0 +1,33 @@
+package com.goironbox.client;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A request to blob storage, such as a block PUT or a range GET.
+ * 
+ * @since   2.0
+ */
+@Name("com.goironbox.client.BlobRequest")
+@Label("IronBox Blob Request")
+@Category({"IronBox", "Network"})
+@Description("A request to blob storage, such as a block PUT or a range GET")
+class BlobRequestEvent extends Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Status Code")
+    @Description("HTTP status code, or -1 if there was no response")
+    int statusCode;
+
+    @Label("Bytes")
+    @Description("Request and response body bytes")
+    @DataAmount
+    long bytes;
+
+}
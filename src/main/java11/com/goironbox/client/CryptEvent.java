@@ -0,0 +1,26 @@
+package com.goironbox.client;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A segment of a transfer passed through the cipher.
+ * 
+ * @since   2.0
+ */
+@Name("com.goironbox.client.Crypt")
+@Label("IronBox Encrypt/Decrypt")
+@Category({"IronBox", "Crypto"})
+class CryptEvent extends Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+}
@@ -0,0 +1,73 @@
+package com.goironbox.client;
+
+import javax.crypto.Cipher;
+
+/**
+ * Emits Java Flight Recorder events for requests and cipher work.
+ * 
+ * This is the Java 11 version from the multi-release layer of the JAR. Events
+ * are only committed while a recording has them enabled and they exceed its
+ * threshold; otherwise a begin and end cost a small allocation and two clock
+ * reads.
+ * 
+ * @since   2.0
+ */
+class FlightRecorderEvents {
+
+    private FlightRecorderEvents() {
+    }
+
+    static Object beginApiCall() {
+        ApiCallEvent event = new ApiCallEvent();
+        event.begin();
+        return event;
+    }
+
+    static Object beginBlobRequest() {
+        BlobRequestEvent event = new BlobRequestEvent();
+        event.begin();
+        return event;
+    }
+
+    static void endRequest(Object event, String operation, int statusCode, long bytes) {
+        if (event instanceof ApiCallEvent) {
+            ApiCallEvent e = (ApiCallEvent)event;
+            e.end();
+            if (e.shouldCommit()) {
+                e.endpoint = operation;
+                e.statusCode = statusCode;
+                e.bytes = bytes;
+                e.commit();
+            }
+        }
+        else if (event instanceof BlobRequestEvent) {
+            BlobRequestEvent e = (BlobRequestEvent)event;
+            e.end();
+            if (e.shouldCommit()) {
+                e.operation = operation;
+                e.statusCode = statusCode;
+                e.bytes = bytes;
+                e.commit();
+            }
+        }
+    }
+
+    static Object beginCrypt() {
+        CryptEvent event = new CryptEvent();
+        event.begin();
+        return event;
+    }
+
+    static void endCrypt(Object event, int opmode, long bytes) {
+        if (event instanceof CryptEvent) {
+            CryptEvent e = (CryptEvent)event;
+            e.end();
+            if (e.shouldCommit()) {
+                e.operation = (Cipher.ENCRYPT_MODE == opmode) ? "Encrypt" : "Decrypt";
+                e.bytes = bytes;
+                e.commit();
+            }
+        }
+    }
+
+}
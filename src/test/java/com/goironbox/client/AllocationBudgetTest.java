@@ -0,0 +1,184 @@
+package com.goironbox.client;
+
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Guards the allocation rate of the hot paths against a local stand-in
+ * server: bytes allocated per MB uploaded or downloaded, and per record of
+ * the listing responses parsed.
+ *
+ * Each cost is the difference between a large and a small run divided by
+ * the difference in MB or records, so fixed per-call costs, like the
+ * upload pipeline buffers, are budgeted separately. The per-call cost of an
+ * upload is budgeted with a small upload, whose buffers are sized to it. Every measurement is
+ * the minimum over a few runs after a warm-up, to leave out JIT compilation
+ * and class loading.
+ */
+@RunWith(JUnit4.class)
+public class AllocationBudgetTest {
+
+    private static final int MB = 1024 * 1024;
+    // Several blocks each, so that both runs fill the buffer pools of the
+    // upload pipeline, which only allocates buffers as it needs them.
+    private static final int SMALL_TRANSFER = 16 * MB;
+    private static final int LARGE_TRANSFER = 48 * MB;
+    private static final int SMALL_UPLOAD = 1024;
+    private static final int SMALL_LISTING = 500;
+    private static final int LARGE_LISTING = 2500;
+    private static final int WARMUP_RUNS = 3;
+    private static final int MEASURED_RUNS = 3;
+
+    // Budgets, with headroom over the measured values noted.
+    private static final long UPLOAD_BYTES_PER_MB = 16 * 1024;              // 6 KB
+    private static final long UPLOAD_BYTES_PER_CALL = 512 * 1024;           // 390 KB, for a small upload
+    private static final long UPLOAD_BUFFER_BYTES = 6L * RESTHandler.BLOCK_SIZE + MB; // 25 MB, 3 plaintext and 3 ciphertext blocks
+    private static final long DOWNLOAD_BYTES_PER_MB = 16 * 1024;            // 0
+    private static final long DOWNLOAD_BYTES_PER_CALL = 2L * MB;            // 1.3 MB, the cipher chunk buffer
+    private static final long BLOB_INFO_BYTES_PER_RECORD = 1024;            // 550
+    private static final long CONTAINER_ID_BYTES_PER_RECORD = 128;          // 61
+    private static final long LISTING_BYTES_PER_CALL = 64 * 1024;           // 7 KB
+
+    private static final String[] PIPELINE_THREADS = {"ironbox-upload-"};
+
+    private static LocalIronBoxServer server;
+    private static IronBoxClient client;
+    private static long containerID;
+    private static byte[] data;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        Assume.assumeTrue(AllocationMeter.isSupported());
+        server = new LocalIronBoxServer();
+        server.start();
+        client = new IronBoxClient("user@example.com", "password", EntityType.EMAIL_ADDRESS, ApiVersion.LATEST, ContentFormat.JSON, false, false);
+        server.connect(client);
+        containerID = server.createContainer("allocation");
+        data = new byte[LARGE_TRANSFER];
+        new Random(47).nextBytes(data);
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        if (null != server) {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void upload() throws Exception {
+        // Large uploads fill the buffer pools of the pipeline, at the default
+        // queue capacity of one block.
+        assertBudget("upload", uploads(), SMALL_TRANSFER, LARGE_TRANSFER, MB, UPLOAD_BYTES_PER_MB, UPLOAD_BUFFER_BYTES);
+    }
+
+    @Test
+    public void smallUpload() throws Exception {
+        long bytes = uploads().measure(SMALL_UPLOAD);
+        Assert.assertTrue("small upload allocated " + bytes + " bytes, budget " + UPLOAD_BYTES_PER_CALL, bytes <= UPLOAD_BYTES_PER_CALL);
+    }
+
+    private static Measurement uploads() {
+        return new Measurement() {
+            @Override
+            void run(int size) throws Exception {
+                Assert.assertTrue(client.uploadToContainer(containerID, new ByteArrayInputStream(data, 0, size), "upload.bin").isSuccess());
+            }
+        };
+    }
+
+    @Test
+    public void download() throws Exception {
+        final String smallBlobID = server.addBlob(containerID, "small.bin", IronBoxClient.encrypt(
+            Arrays.copyOf(data, SMALL_TRANSFER), client.getContainerKeyData(containerID)));
+        final String largeBlobID = server.addBlob(containerID, "large.bin", IronBoxClient.encrypt(data, client.getContainerKeyData(containerID)));
+        Measurement m = new Measurement() {
+            @Override
+            void run(int size) throws Exception {
+                String blobID = (SMALL_TRANSFER == size) ? smallBlobID : largeBlobID;
+                Assert.assertTrue(client.downloadBlobFromContainer(containerID, blobID, DiscardChannel.INSTANCE).isSuccess());
+            }
+        };
+        assertBudget("download", m, SMALL_TRANSFER, LARGE_TRANSFER, MB, DOWNLOAD_BYTES_PER_MB, DOWNLOAD_BYTES_PER_CALL);
+    }
+
+    @Test
+    public void blobInfoList() throws Exception {
+        final long smallID = createListing(SMALL_LISTING);
+        final long largeID = createListing(LARGE_LISTING);
+        Measurement m = new Measurement() {
+            @Override
+            void run(int records) throws Exception {
+                long id = (SMALL_LISTING == records) ? smallID : largeID;
+                List<BlobInfo> list = client.getContainerBlobInfoListByState(id, BlobState.READY);
+                Assert.assertEquals(records, list.size());
+            }
+        };
+        assertBudget("blob info list", m, SMALL_LISTING, LARGE_LISTING, 1, BLOB_INFO_BYTES_PER_RECORD, LISTING_BYTES_PER_CALL);
+    }
+
+    @Test
+    public void containerIDList() throws Exception {
+        for (int i = 0; i < LARGE_LISTING; i++) {
+            if (i < SMALL_LISTING) {
+                server.createContainer("small");
+            }
+            server.createContainer("large");
+        }
+        Measurement m = new Measurement() {
+            @Override
+            void run(int records) throws Exception {
+                LongList ids = client.getContainerIDListFromName(SMALL_LISTING == records ? "small" : "large");
+                Assert.assertEquals(records, ids.size());
+            }
+        };
+        assertBudget("container ID list", m, SMALL_LISTING, LARGE_LISTING, 1, CONTAINER_ID_BYTES_PER_RECORD, LISTING_BYTES_PER_CALL);
+    }
+
+    private static long createListing(int records) {
+        long id = server.createContainer("listing" + records);
+        for (int i = 0; i < records; i++) {
+            server.addBlob(id, String.format("report-%06d.pdf", i), new byte[0]);
+        }
+        return id;
+    }
+
+    private abstract static class Measurement {
+
+        abstract void run(int size) throws Exception;
+
+        long measure(int size) throws Exception {
+            long min = Long.MAX_VALUE;
+            for (int i = 0; i < WARMUP_RUNS + MEASURED_RUNS; i++) {
+                AllocationMeter meter = new AllocationMeter(PIPELINE_THREADS);
+                meter.start();
+                run(size);
+                long bytes = meter.stop();
+                if (i >= WARMUP_RUNS) {
+                    min = Math.min(min, bytes);
+                }
+            }
+            return min;
+        }
+
+    }
+
+    private static void assertBudget(String name, Measurement m, int small, int large, int unit, long perUnitBudget, long perCallBudget) throws Exception {
+        long smallBytes = m.measure(small);
+        long largeBytes = m.measure(large);
+        long perUnit = Math.max(0, largeBytes - smallBytes) * unit / (large - small);
+        long perCall = Math.max(0, smallBytes - perUnit * small / unit);
+        Assert.assertTrue(name + " allocated " + perUnit + " bytes per unit, budget " + perUnitBudget, perUnit <= perUnitBudget);
+        Assert.assertTrue(name + " allocated " + perCall + " bytes per call, budget " + perCallBudget, perCall <= perCallBudget);
+    }
+
+}
@@ -0,0 +1,125 @@
+package com.goironbox.client;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Measures the heap bytes allocated by the calling thread, plus those of the
+ * threads whose names begin with one of the given prefixes, such as the
+ * thread pool of the upload pipeline.
+ *
+ * Other threads are polled about every millisecond while the meter runs, so
+ * allocations after the last poll of a thread that then exits are missed;
+ * this is negligible next to the transfers measured.
+ */
+class AllocationMeter {
+
+    private static final com.sun.management.ThreadMXBean THREADS = getThreadMXBean();
+
+    private final String[] threadNamePrefixes;
+    private final Map<Long, long[]> tracked = new HashMap<>();
+    private final Thread[] threads = new Thread[1024];
+    private volatile boolean running;
+    private Thread sampler;
+    private long callerStart;
+
+    AllocationMeter(String... threadNamePrefixes) {
+        this.threadNamePrefixes = threadNamePrefixes;
+    }
+
+    private static com.sun.management.ThreadMXBean getThreadMXBean() {
+        try {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            if (threads.isThreadAllocatedMemorySupported()) {
+                threads.setThreadAllocatedMemoryEnabled(true);
+                return threads;
+            }
+        }
+        catch (RuntimeException | LinkageError e) {
+            // Not a HotSpot compatible JVM.
+        }
+        return null;
+    }
+
+    /**
+     * @return true if the JVM can measure allocations per thread
+     */
+    static boolean isSupported() {
+        return null != THREADS;
+    }
+
+    void start() {
+        tracked.clear();
+        poll(true);
+        running = true;
+        sampler = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (running) {
+                    poll(false);
+                    try {
+                        Thread.sleep(1);
+                    }
+                    catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }
+        }, "allocation-meter");
+        sampler.setDaemon(true);
+        sampler.start();
+        callerStart = THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * @return the bytes allocated since {@link #start()}
+     */
+    long stop() throws InterruptedException {
+        long caller = THREADS.getThreadAllocatedBytes(Thread.currentThread().getId()) - callerStart;
+        running = false;
+        sampler.join();
+        poll(false);
+        long others = 0;
+        for (long[] startAndLast : tracked.values()) {
+            others += startAndLast[1] - startAndLast[0];
+        }
+        return caller + others;
+    }
+
+    /**
+     * Records the allocated bytes of the matching threads. Threads first seen
+     * at start are measured from their current count, later ones from zero.
+     */
+    private synchronized void poll(boolean baseline) {
+        int n = Thread.enumerate(threads);
+        for (int i = 0; i < n; i++) {
+            Thread t = threads[i];
+            threads[i] = null;
+            if (!matches(t.getName())) {
+                continue;
+            }
+            long bytes = THREADS.getThreadAllocatedBytes(t.getId());
+            if (bytes < 0) {
+                continue;
+            }
+            long[] startAndLast = tracked.get(t.getId());
+            if (null == startAndLast) {
+                tracked.put(t.getId(), new long[] {baseline ? bytes : 0, bytes});
+            }
+            else {
+                startAndLast[1] = bytes;
+            }
+        }
+    }
+
+    private boolean matches(String name) {
+        for (String prefix : threadNamePrefixes) {
+            if (name.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,232 @@
+package com.goironbox.client;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import javax.crypto.Cipher;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class CryptTest {
+
+    private static final ContainerKeyData KEY_DATA = new ContainerKeyData(LocalIronBoxServer.CONTAINER_KEY_DATA);
+    private static final int CHUNK_SIZE = 64;
+    private static final int[] SIZES = {0, 1, 15, 16, 17, CHUNK_SIZE - 1, CHUNK_SIZE, CHUNK_SIZE + 1, 3 * CHUNK_SIZE + 7};
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private static byte[] randomBytes(int size) {
+        byte[] data = new byte[size];
+        new Random(size).nextBytes(data);
+        return data;
+    }
+
+    private static byte[] reference(int mode, byte[] input) throws Exception {
+        Cipher cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
+        cipher.init(mode, KEY_DATA.getSessionKey(), KEY_DATA.getSessionIV());
+        return cipher.doFinal(input);
+    }
+
+    private static byte[] transform(int mode, byte[] input, long inputSize, boolean direct) throws Exception {
+        ByteArrayOutputStream dest = new ByteArrayOutputStream();
+        Cipher cipher = Crypt.newCipher(mode, KEY_DATA.getSessionKey(), KEY_DATA.getSessionIV());
+        Crypt.transform(Channels.newChannel(new ByteArrayInputStream(input)), Channels.newChannel(dest), cipher, mode, CHUNK_SIZE, inputSize, direct);
+        return dest.toByteArray();
+    }
+
+    @Test
+    public void transformAtChunkBoundaries() throws Exception {
+        for (int size : SIZES) {
+            byte[] data = randomBytes(size);
+            byte[] expected = reference(Cipher.ENCRYPT_MODE, data);
+            for (long inputSize : new long[] {-1, size}) {
+                for (boolean direct : new boolean[] {false, true}) {
+                    String what = "size " + size + ", inputSize " + inputSize + ", direct " + direct;
+                    byte[] ciphertext = transform(Cipher.ENCRYPT_MODE, data, inputSize, direct);
+                    Assert.assertArrayEquals(what, expected, ciphertext);
+                    long ciphertextSize = (inputSize < 0) ? -1 : ciphertext.length;
+                    Assert.assertArrayEquals(what, data, transform(Cipher.DECRYPT_MODE, ciphertext, ciphertextSize, direct));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void filesAtChunkBoundaries() throws Exception {
+        File plain = tmp.newFile("plain.bin");
+        File encrypted = tmp.newFile("encrypted.bin");
+        File decrypted = tmp.newFile("decrypted.bin");
+        for (int size : SIZES) {
+            byte[] data = randomBytes(size);
+            FileUtils.writeByteArrayToFile(plain, data);
+            IronBoxClient.encryptFile(plain, encrypted, KEY_DATA, CHUNK_SIZE);
+            Assert.assertArrayEquals(reference(Cipher.ENCRYPT_MODE, data), FileUtils.readFileToByteArray(encrypted));
+            IronBoxClient.decryptFile(encrypted, decrypted, KEY_DATA, CHUNK_SIZE);
+            Assert.assertArrayEquals(data, FileUtils.readFileToByteArray(decrypted));
+        }
+    }
+
+    private static byte[] readAll(ReadableByteChannel channel, int bufferSize) throws IOException {
+        ByteArrayOutputStream dest = new ByteArrayOutputStream();
+        ByteBuffer buffer = ByteBuffer.allocate(bufferSize);
+        while (channel.read(buffer) >= 0) {
+            dest.write(buffer.array(), 0, buffer.position());
+            buffer.clear();
+        }
+        channel.close();
+        return dest.toByteArray();
+    }
+
+    @Test
+    public void readableChannelsAtChunkBoundaries() throws Exception {
+        for (int size : SIZES) {
+            byte[] data = randomBytes(size);
+            byte[] expected = reference(Cipher.ENCRYPT_MODE, data);
+            // Reads smaller and larger than a chunk.
+            for (int bufferSize : new int[] {7, 5 * CHUNK_SIZE}) {
+                String what = "size " + size + ", buffer " + bufferSize;
+                Cipher encrypt = Crypt.newCipher(Cipher.ENCRYPT_MODE, KEY_DATA.getSessionKey(), KEY_DATA.getSessionIV());
+                byte[] ciphertext = readAll(new CipherReadableByteChannel(Channels.newChannel(new ByteArrayInputStream(data)), encrypt, Cipher.ENCRYPT_MODE, CHUNK_SIZE), bufferSize);
+                Assert.assertArrayEquals(what, expected, ciphertext);
+                Cipher decrypt = Crypt.newCipher(Cipher.DECRYPT_MODE, KEY_DATA.getSessionKey(), KEY_DATA.getSessionIV());
+                Assert.assertArrayEquals(what, data, readAll(new CipherReadableByteChannel(Channels.newChannel(new ByteArrayInputStream(ciphertext)), decrypt, Cipher.DECRYPT_MODE, CHUNK_SIZE), bufferSize));
+            }
+        }
+    }
+
+    @Test
+    public void encryptingAndDecryptingChannels() throws Exception {
+        byte[] data = randomBytes(2 * Crypt.CHANNEL_CHUNK_SIZE + 3);
+        byte[] ciphertext = readAll(IronBoxClient.newEncryptingChannel(Channels.newChannel(new ByteArrayInputStream(data)), KEY_DATA), 8192);
+        Assert.assertArrayEquals(reference(Cipher.ENCRYPT_MODE, data), ciphertext);
+        Assert.assertArrayEquals(data, readAll(IronBoxClient.newDecryptingChannel(Channels.newChannel(new ByteArrayInputStream(ciphertext)), KEY_DATA), 8192));
+    }
+
+    @Test
+    public void encryptingAndDecryptingStreams() throws Exception {
+        byte[] data = randomBytes(2 * Crypt.CHANNEL_CHUNK_SIZE + 3);
+        ByteArrayOutputStream dest = new ByteArrayOutputStream();
+        try (OutputStream out = IronBoxClient.newEncryptingOutputStream(dest, KEY_DATA)) {
+            out.write(data[0]);
+            out.write(data, 1, data.length - 2);
+            out.flush();
+            out.write(data[data.length - 1]);
+        }
+        byte[] ciphertext = dest.toByteArray();
+        Assert.assertArrayEquals(reference(Cipher.ENCRYPT_MODE, data), ciphertext);
+
+        try (InputStream in = IronBoxClient.newDecryptingInputStream(new ByteArrayInputStream(ciphertext), KEY_DATA)) {
+            Assert.assertArrayEquals(data, IOUtils.toByteArray(in));
+        }
+        try (InputStream in = IronBoxClient.newDecryptingInputStream(new ByteArrayInputStream(ciphertext, 0, 5), KEY_DATA)) {
+            IOUtils.toByteArray(in);
+            Assert.fail("Decrypted a truncated block");
+        }
+        catch (IOException e) {
+            // Expected.
+        }
+    }
+
+    @Test
+    public void readingAClosedChannel() throws Exception {
+        ReadableByteChannel channel = IronBoxClient.newEncryptingChannel(Channels.newChannel(new ByteArrayInputStream(new byte[10])), KEY_DATA);
+        channel.close();
+        Assert.assertFalse(channel.isOpen());
+        try {
+            channel.read(ByteBuffer.allocate(16));
+            Assert.fail("Read a closed channel");
+        }
+        catch (ClosedChannelException e) {
+            // Expected.
+        }
+    }
+
+    @Test
+    public void channelsCallingBackIntoTheClient() throws Exception {
+        final byte[] data = randomBytes(3 * Crypt.DEFAULT_CHUNK_SIZE + 5);
+        final ByteArrayOutputStream dest = new ByteArrayOutputStream();
+        final WritableByteChannel sink = Channels.newChannel(dest);
+
+        // Encrypting something else from within the output channel uses
+        // the cipher of this thread, and another channel encryption, neither
+        // of which may disturb the one in progress.
+        WritableByteChannel reentrant = new WritableByteChannel() {
+            @Override
+            public int write(ByteBuffer src) throws IOException {
+                try {
+                    IronBoxClient.encrypt(new byte[100], KEY_DATA);
+                    IronBoxClient.encrypt(Channels.newChannel(new ByteArrayInputStream(new byte[100])), Channels.newChannel(new ByteArrayOutputStream()), KEY_DATA);
+                }
+                catch (Exception e) {
+                    throw new IOException(e);
+                }
+                return sink.write(src);
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        IronBoxClient.encrypt(Channels.newChannel(new ByteArrayInputStream(data)), reentrant, KEY_DATA);
+        Assert.assertArrayEquals(reference(Cipher.ENCRYPT_MODE, data), dest.toByteArray());
+
+        byte[] ciphertext = dest.toByteArray();
+        dest.reset();
+        IronBoxClient.decrypt(Channels.newChannel(new ByteArrayInputStream(ciphertext)), reentrant, KEY_DATA);
+        Assert.assertArrayEquals(data, dest.toByteArray());
+    }
+
+    @Test
+    public void staticMethodsLogToTheDefaultSink() throws Exception {
+        final List<String> messages = new ArrayList<>();
+        IronBoxClient.setDefaultLogSink(new LogSink() {
+            @Override
+            public boolean isEnabled(LogLevel level) {
+                return true;
+            }
+
+            @Override
+            public void log(LogLevel level, String msg, Throwable thrown) {
+                messages.add(level + " " + msg);
+            }
+        });
+        try {
+            IronBoxClient.decrypt(Channels.newChannel(new ByteArrayInputStream(new byte[5])), Channels.newChannel(new ByteArrayOutputStream()), KEY_DATA);
+            Assert.fail("Decrypted a truncated block");
+        }
+        catch (Exception e) {
+            // Expected.
+        }
+        finally {
+            IronBoxClient.setDefaultLogSink(new ConsoleLogSink(LogLevel.ERROR));
+        }
+        Assert.assertEquals(Arrays.asList("ERROR Unable to decrypt data."), messages);
+    }
+
+}
@@ -0,0 +1,30 @@
+package com.goironbox.client;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Channel dropping everything written to it, to download without measuring
+ * a destination.
+ */
+class DiscardChannel implements WritableByteChannel {
+
+    static final DiscardChannel INSTANCE = new DiscardChannel();
+
+    @Override
+    public int write(ByteBuffer src) {
+        int n = src.remaining();
+        src.position(src.limit());
+        return n;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return true;
+    }
+
+    @Override
+    public void close() {
+    }
+
+}
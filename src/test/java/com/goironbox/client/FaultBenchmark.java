@@ -0,0 +1,190 @@
+package com.goironbox.client;
+
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Measures how uploads and downloads hold up under the fault profiles of
+ * {@link FaultSchedule}: for each profile it runs transfers one after the
+ * other against a fresh {@link LocalIronBoxServer}, with a
+ * {@link FaultInjector} disturbing every blob storage request, and reports
+ * the transfers completed, the retries and faults, the goodput, which counts
+ * the bytes of completed transfers only, and the completion times.
+ *
+ * Options are key=value arguments:
+ * <ul>
+ * <li>profiles: the comma separated profile names, default all of them</li>
+ * <li>transfers: the number of uploads and of downloads per profile, default 10</li>
+ * <li>size: the size of each transfer, with an optional k, m or g suffix, default 16m</li>
+ * <li>latency: the latency the server adds to every request in ms, default 0</li>
+ * <li>bandwidth: the bandwidth of the server in bytes per second, default unlimited</li>
+ * <li>seed: the seed of the fault schedules and the data, default 1</li>
+ * <li>retries: the number of retries per block upload, default 3</li>
+ * <li>backoff: the delay before the first retry of a block in ms, default 500</li>
+ * </ul>
+ *
+ * As the transfers are sequential, the same seed gives the same faults.
+ */
+public class FaultBenchmark {
+
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+
+    static {
+        DEFAULTS.put("profiles", "none,loss,slow-drain,resets,storms,mixed");
+        DEFAULTS.put("transfers", "10");
+        DEFAULTS.put("size", "16m");
+        DEFAULTS.put("latency", "0");
+        DEFAULTS.put("bandwidth", "0");
+        DEFAULTS.put("seed", "1");
+        DEFAULTS.put("retries", "3");
+        DEFAULTS.put("backoff", "500");
+    }
+
+    private final int transfers;
+    private final long latencyMillis;
+    private final long bandwidth;
+    private final long seed;
+    private final int retries;
+    private final long backoffMillis;
+    private final byte[] data;
+
+    /**
+     * Outcome of the transfers in one direction under one profile.
+     */
+    private static final class Stats {
+        final long[] completionNanos;
+        int successes = 0;
+        long retries = 0;
+        long bytes = 0;
+        long elapsedNanos = 0;
+
+        Stats(int transfers) {
+            completionNanos = new long[transfers];
+        }
+    }
+
+    FaultBenchmark(int transfers, long size, long latencyMillis, long bandwidth, long seed, int retries, long backoffMillis) {
+        this.transfers = transfers;
+        this.latencyMillis = latencyMillis;
+        this.bandwidth = bandwidth;
+        this.seed = seed;
+        this.retries = retries;
+        this.backoffMillis = backoffMillis;
+        this.data = new byte[(int) size];
+        new Random(seed).nextBytes(data);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>(DEFAULTS);
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 1 || !DEFAULTS.containsKey(arg.substring(0, eq))) {
+                throw new IllegalArgumentException("Unknown option: " + arg + ", expected one of " + DEFAULTS.keySet());
+            }
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        long size = LoadProfile.parseSize(options.get("size"));
+        if (size < 1 || size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("size must be between 1 byte and 2 GB");
+        }
+        FaultBenchmark benchmark = new FaultBenchmark(
+            Integer.parseInt(options.get("transfers")), size,
+            Long.parseLong(options.get("latency")), LoadProfile.parseSize(options.get("bandwidth")),
+            Long.parseLong(options.get("seed")),
+            Integer.parseInt(options.get("retries")), Long.parseLong(options.get("backoff"))
+        );
+
+        System.out.println("Fault benchmark: " + options);
+        System.out.println(String.format(
+            "%-10s %-9s %9s %8s %8s %9s %9s %9s %9s",
+            "profile", "direction", "completed", "retries", "faults", "MB/s", "mean ms", "p50 ms", "max ms"
+        ));
+        for (String name : options.get("profiles").split(",")) {
+            benchmark.run(name.trim());
+        }
+    }
+
+    /**
+     * Runs the uploads, then the downloads, under one profile and prints
+     * a line for each.
+     *
+     * @param name The profile name.
+     */
+    void run(String name) throws Exception {
+        LocalIronBoxServer server = new LocalIronBoxServer();
+        server.setLatencyMillis(latencyMillis);
+        server.setBandwidth(bandwidth);
+        server.start();
+        try {
+            IronBoxClient client = new IronBoxClient("faults@example.com", "password", EntityType.EMAIL_ADDRESS, ApiVersion.LATEST, ContentFormat.JSON, false, false);
+            server.connect(client);
+            client.setMaxBlockRetries(retries);
+            client.setBlockRetryBackoffMillis(backoffMillis);
+            long containerID = server.createContainer("faults");
+            String blobID = server.addBlob(containerID, "download.bin", IronBoxClient.encrypt(data, client.getContainerKeyData(containerID)));
+            server.setDiscardUploads(true);
+
+            FaultInjector uploadFaults = new FaultInjector(FaultSchedule.profile(name, seed));
+            client.setConnectionInterceptor(uploadFaults);
+            Stats uploads = new Stats(transfers);
+            for (int i = 0; i < transfers; i++) {
+                long start = System.nanoTime();
+                try {
+                    record(uploads, i, start, client.uploadToContainer(containerID, new ByteArrayInputStream(data), "upload-" + i + ".bin"));
+                }
+                catch (Exception e) {
+                    record(uploads, i, start, null);
+                }
+            }
+            report(name, "upload", uploads, uploadFaults);
+
+            FaultInjector downloadFaults = new FaultInjector(FaultSchedule.profile(name, seed));
+            client.setConnectionInterceptor(downloadFaults);
+            Stats downloads = new Stats(transfers);
+            for (int i = 0; i < transfers; i++) {
+                long start = System.nanoTime();
+                try {
+                    record(downloads, i, start, client.downloadBlobFromContainer(containerID, blobID, DiscardChannel.INSTANCE));
+                }
+                catch (Exception e) {
+                    record(downloads, i, start, null);
+                }
+            }
+            report(name, "download", downloads, downloadFaults);
+        }
+        finally {
+            server.stop();
+        }
+    }
+
+    private void record(Stats stats, int i, long start, TransferResult result) {
+        long nanos = System.nanoTime() - start;
+        stats.completionNanos[i] = nanos;
+        stats.elapsedNanos += nanos;
+        if (null != result) {
+            stats.retries += result.getRetryCount();
+            if (result.isSuccess()) {
+                stats.successes++;
+                stats.bytes += data.length;
+            }
+        }
+    }
+
+    private void report(String name, String direction, Stats stats, FaultInjector injector) {
+        long[] sorted = stats.completionNanos.clone();
+        Arrays.sort(sorted);
+        double seconds = stats.elapsedNanos / 1e9;
+        System.out.println(String.format(
+            "%-10s %-9s %9s %8d %8d %9.1f %9.1f %9.1f %9.1f",
+            name, direction, stats.successes + "/" + transfers, stats.retries, injector.getFaults(),
+            (seconds > 0) ? stats.bytes / seconds / 1e6 : 0.0,
+            (transfers > 0) ? stats.elapsedNanos / 1e6 / transfers : 0.0,
+            (transfers > 0) ? sorted[(transfers - 1) / 2] / 1e6 : 0.0,
+            (transfers > 0) ? sorted[transfers - 1] / 1e6 : 0.0
+        ));
+    }
+
+}
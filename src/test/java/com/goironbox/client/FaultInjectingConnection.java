@@ -0,0 +1,412 @@
+package com.goironbox.client;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.ProtocolException;
+import java.net.SocketException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Connection delegating to a real one, disturbed by one fault.
+ *
+ * A 503 never reaches the server: the request body is dropped and the
+ * response made up. A reset cuts the request body if there is one, and the
+ * response body else, at the share of its length given by the fault; with
+ * no body either way the response is lost. Slow drains pace both bodies,
+ * and loss delays the response.
+ */
+class FaultInjectingConnection extends HttpURLConnection {
+
+    private static final int PACING_CHUNK_SIZE = 8 * 1024;
+
+    private final HttpURLConnection delegate;
+    private final FaultSchedule.Fault fault;
+    private long requestLength = -1;
+    private boolean responseDelayed = false;
+
+    FaultInjectingConnection(HttpURLConnection delegate, FaultSchedule.Fault fault) {
+        super(delegate.getURL());
+        this.delegate = delegate;
+        this.fault = fault;
+    }
+
+    private boolean is(FaultSchedule.Kind kind) {
+        return kind == fault.kind;
+    }
+
+    // ---------------------------------------------------
+    // Request
+    // ---------------------------------------------------
+
+    @Override
+    public void setRequestMethod(String method) throws ProtocolException {
+        delegate.setRequestMethod(method);
+    }
+
+    @Override
+    public String getRequestMethod() {
+        return delegate.getRequestMethod();
+    }
+
+    @Override
+    public void setRequestProperty(String key, String value) {
+        delegate.setRequestProperty(key, value);
+    }
+
+    @Override
+    public void addRequestProperty(String key, String value) {
+        delegate.addRequestProperty(key, value);
+    }
+
+    @Override
+    public String getRequestProperty(String key) {
+        return delegate.getRequestProperty(key);
+    }
+
+    @Override
+    public void setDoOutput(boolean doOutput) {
+        delegate.setDoOutput(doOutput);
+    }
+
+    @Override
+    public boolean getDoOutput() {
+        return delegate.getDoOutput();
+    }
+
+    @Override
+    public void setDoInput(boolean doInput) {
+        delegate.setDoInput(doInput);
+    }
+
+    @Override
+    public boolean getDoInput() {
+        return delegate.getDoInput();
+    }
+
+    @Override
+    public void setUseCaches(boolean useCaches) {
+        delegate.setUseCaches(useCaches);
+    }
+
+    @Override
+    public void setFixedLengthStreamingMode(int contentLength) {
+        requestLength = contentLength;
+        delegate.setFixedLengthStreamingMode(contentLength);
+    }
+
+    @Override
+    public void setFixedLengthStreamingMode(long contentLength) {
+        requestLength = contentLength;
+        delegate.setFixedLengthStreamingMode(contentLength);
+    }
+
+    @Override
+    public void setChunkedStreamingMode(int chunkLength) {
+        delegate.setChunkedStreamingMode(chunkLength);
+    }
+
+    @Override
+    public void setConnectTimeout(int timeout) {
+        delegate.setConnectTimeout(timeout);
+    }
+
+    @Override
+    public int getConnectTimeout() {
+        return delegate.getConnectTimeout();
+    }
+
+    @Override
+    public void setReadTimeout(int timeout) {
+        delegate.setReadTimeout(timeout);
+    }
+
+    @Override
+    public int getReadTimeout() {
+        return delegate.getReadTimeout();
+    }
+
+    @Override
+    public void connect() throws IOException {
+        if (!is(FaultSchedule.Kind.UNAVAILABLE)) {
+            delegate.connect();
+        }
+    }
+
+    @Override
+    public void disconnect() {
+        delegate.disconnect();
+    }
+
+    @Override
+    public boolean usingProxy() {
+        return delegate.usingProxy();
+    }
+
+    @Override
+    public OutputStream getOutputStream() throws IOException {
+        if (is(FaultSchedule.Kind.UNAVAILABLE)) {
+            return new OutputStream() {
+                @Override
+                public void write(int b) {
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) {
+                }
+            };
+        }
+        OutputStream os = delegate.getOutputStream();
+        if (is(FaultSchedule.Kind.SLOW_DRAIN)) {
+            return new PacedOutputStream(os, fault.bytesPerSecond);
+        }
+        if (is(FaultSchedule.Kind.RESET) && requestLength > 0) {
+            return new ResettingOutputStream(os, (long) (fault.resetFraction * requestLength));
+        }
+        return os;
+    }
+
+    // ---------------------------------------------------
+    // Response
+    // ---------------------------------------------------
+
+    private void delayResponse() {
+        if (is(FaultSchedule.Kind.LOSS) && !responseDelayed) {
+            responseDelayed = true;
+            sleep(fault.delayMillis);
+        }
+    }
+
+    private SocketException connectionReset() {
+        delegate.disconnect();
+        return new SocketException("Connection reset (injected)");
+    }
+
+    @Override
+    public int getResponseCode() throws IOException {
+        if (is(FaultSchedule.Kind.UNAVAILABLE)) {
+            return HttpURLConnection.HTTP_UNAVAILABLE;
+        }
+        delayResponse();
+        int rc = delegate.getResponseCode();
+        if (is(FaultSchedule.Kind.RESET) && requestLength <= 0 && delegate.getContentLengthLong() <= 0) {
+            throw connectionReset();
+        }
+        return rc;
+    }
+
+    @Override
+    public String getResponseMessage() throws IOException {
+        return is(FaultSchedule.Kind.UNAVAILABLE) ? "Server Busy" : delegate.getResponseMessage();
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        if (is(FaultSchedule.Kind.UNAVAILABLE)) {
+            throw new IOException("Server returned HTTP response code: 503 for URL: " + url);
+        }
+        delayResponse();
+        InputStream in = delegate.getInputStream();
+        if (is(FaultSchedule.Kind.SLOW_DRAIN)) {
+            return new PacedInputStream(in, fault.bytesPerSecond);
+        }
+        if (is(FaultSchedule.Kind.RESET) && requestLength <= 0) {
+            return new ResettingInputStream(in, (long) (fault.resetFraction * delegate.getContentLengthLong()));
+        }
+        return in;
+    }
+
+    @Override
+    public InputStream getErrorStream() {
+        return is(FaultSchedule.Kind.UNAVAILABLE) ? null : delegate.getErrorStream();
+    }
+
+    @Override
+    public int getContentLength() {
+        return is(FaultSchedule.Kind.UNAVAILABLE) ? 0 : delegate.getContentLength();
+    }
+
+    @Override
+    public long getContentLengthLong() {
+        return is(FaultSchedule.Kind.UNAVAILABLE) ? 0 : delegate.getContentLengthLong();
+    }
+
+    @Override
+    public String getContentEncoding() {
+        return is(FaultSchedule.Kind.UNAVAILABLE) ? null : delegate.getContentEncoding();
+    }
+
+    @Override
+    public String getContentType() {
+        return is(FaultSchedule.Kind.UNAVAILABLE) ? null : delegate.getContentType();
+    }
+
+    @Override
+    public String getHeaderField(String name) {
+        return is(FaultSchedule.Kind.UNAVAILABLE) ? null : delegate.getHeaderField(name);
+    }
+
+    @Override
+    public String getHeaderField(int n) {
+        return is(FaultSchedule.Kind.UNAVAILABLE) ? null : delegate.getHeaderField(n);
+    }
+
+    @Override
+    public String getHeaderFieldKey(int n) {
+        return is(FaultSchedule.Kind.UNAVAILABLE) ? null : delegate.getHeaderFieldKey(n);
+    }
+
+    @Override
+    public Map<String, List<String>> getHeaderFields() {
+        return is(FaultSchedule.Kind.UNAVAILABLE) ? Collections.<String, List<String>>emptyMap() : delegate.getHeaderFields();
+    }
+
+    // ---------------------------------------------------
+    // Disturbed streams
+    // ---------------------------------------------------
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Keeps a stream to a rate by sleeping until its bytes are due.
+     */
+    private static final class Pacer {
+        private final long bytesPerSecond;
+        private final long startNanos = System.nanoTime();
+        private long bytes = 0;
+
+        Pacer(long bytesPerSecond) {
+            this.bytesPerSecond = bytesPerSecond;
+        }
+
+        void pace(int n) {
+            bytes += n;
+            long dueNanos = startNanos + bytes * 1000000000L / bytesPerSecond;
+            long millis = (dueNanos - System.nanoTime()) / 1000000L;
+            if (millis > 0) {
+                sleep(millis);
+            }
+        }
+    }
+
+    private static final class PacedOutputStream extends FilterOutputStream {
+        private final Pacer pacer;
+
+        PacedOutputStream(OutputStream out, long bytesPerSecond) {
+            super(out);
+            pacer = new Pacer(bytesPerSecond);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            for (int end = off + len; off < end; ) {
+                int n = Math.min(PACING_CHUNK_SIZE, end - off);
+                pacer.pace(n);
+                out.write(b, off, n);
+                off += n;
+            }
+        }
+    }
+
+    private static final class PacedInputStream extends FilterInputStream {
+        private final Pacer pacer;
+
+        PacedInputStream(InputStream in, long bytesPerSecond) {
+            super(in);
+            pacer = new Pacer(bytesPerSecond);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b >= 0) {
+                pacer.pace(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = in.read(b, off, Math.min(len, PACING_CHUNK_SIZE));
+            if (n > 0) {
+                pacer.pace(n);
+            }
+            return n;
+        }
+    }
+
+    private final class ResettingOutputStream extends FilterOutputStream {
+        private long remaining;
+
+        ResettingOutputStream(OutputStream out, long resetAfter) {
+            super(out);
+            remaining = resetAfter;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len > remaining) {
+                out.write(b, off, (int) remaining);
+                out.flush();
+                remaining = 0;
+                throw connectionReset();
+            }
+            out.write(b, off, len);
+            remaining -= len;
+        }
+    }
+
+    private final class ResettingInputStream extends FilterInputStream {
+        private long remaining;
+
+        ResettingInputStream(InputStream in, long resetAfter) {
+            super(in);
+            remaining = resetAfter;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (0 == remaining) {
+                throw connectionReset();
+            }
+            int b = in.read();
+            remaining--;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (0 == remaining && len > 0) {
+                throw connectionReset();
+            }
+            int n = in.read(b, off, (int) Math.min(len, remaining));
+            if (n > 0) {
+                remaining -= n;
+            }
+            return n;
+        }
+    }
+
+}
@@ -0,0 +1,211 @@
+package com.goironbox.client;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.util.Random;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Checks that the client recovers from the faults it is meant to retry,
+ * using {@link FaultInjector} against {@link LocalIronBoxServer}.
+ */
+@RunWith(JUnit4.class)
+public class FaultInjectionTest {
+
+    private static final int MB = 1024 * 1024;
+
+    private LocalIronBoxServer server;
+    private IronBoxClient client;
+    private long containerID;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new LocalIronBoxServer();
+        server.start();
+        client = new IronBoxClient("user@example.com", "password", EntityType.EMAIL_ADDRESS, ApiVersion.LATEST, ContentFormat.JSON, false, false);
+        server.connect(client);
+        containerID = server.createContainer("faults");
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    public void scheduleIsDeterministic() {
+        FaultSchedule a = FaultSchedule.profile("mixed", 50);
+        FaultSchedule b = FaultSchedule.profile("mixed", 50);
+        FaultSchedule c = FaultSchedule.profile("mixed", 51);
+        StringBuilder sa = new StringBuilder();
+        StringBuilder sb = new StringBuilder();
+        StringBuilder sc = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            sa.append(a.next()).append(' ');
+            sb.append(b.next()).append(' ');
+            sc.append(c.next()).append(' ');
+        }
+        Assert.assertEquals(sa.toString(), sb.toString());
+        Assert.assertNotEquals(sa.toString(), sc.toString());
+    }
+
+    @Test
+    public void uploadFailsOnThrottling() throws Exception {
+        FaultInjector injector = new FaultInjector(
+            new FaultSchedule(66).withStorms(1, 1, 1),
+            FaultInjector.BLOCK_REQUESTS
+        );
+        client.setConnectionInterceptor(injector);
+
+        TransferResult result = client.uploadToContainer(containerID, new ByteArrayInputStream(randomBytes(MB)), "faults.bin");
+        Assert.assertFalse(result.isSuccess());
+        Assert.assertEquals(1, injector.getInjected(FaultSchedule.Kind.UNAVAILABLE));
+        Assert.assertEquals(0, result.getRetryCount());
+        Assert.assertTrue(client.getContainerBlobInfoListByState(containerID, BlobState.READY).isEmpty());
+    }
+
+    @Test
+    public void uploadRetriesBlocksAfterResetsAndThrottling() throws Exception {
+        FaultInjector injector = new FaultInjector(
+            new FaultSchedule(66).withResets(0.25).withStorms(0.15, 1, 2),
+            FaultInjector.BLOCK_REQUESTS
+        );
+        client.setConnectionInterceptor(injector);
+        client.setMaxBlockRetries(3);
+        client.setBlockRetryBackoffMillis(1);
+        byte[] data = randomBytes(24 * MB);
+
+        TransferResult result = client.uploadToContainer(containerID, new ByteArrayInputStream(data), "faults.bin");
+        Assert.assertTrue(result.isSuccess());
+        Assert.assertTrue(injector.getInjected(FaultSchedule.Kind.RESET) > 0);
+        Assert.assertTrue(injector.getInjected(FaultSchedule.Kind.UNAVAILABLE) > 0);
+        Assert.assertEquals(injector.getFaults(), result.getRetryCount());
+
+        String blobID = client.getContainerBlobInfoListByState(containerID, BlobState.READY).get(0).getBlobID();
+        Assert.assertArrayEquals(data, IronBoxClient.decrypt(server.getBlobContent(blobID), client.getContainerKeyData(containerID)));
+    }
+
+    @Test
+    public void uploadGivesUpAfterTheLastRetry() throws Exception {
+        FaultInjector injector = new FaultInjector(
+            new FaultSchedule(66).withStorms(1, 3, 3),
+            FaultInjector.BLOCK_REQUESTS
+        );
+        client.setConnectionInterceptor(injector);
+        client.setMaxBlockRetries(2);
+        client.setBlockRetryBackoffMillis(1);
+
+        TransferResult result = client.uploadToContainer(containerID, new ByteArrayInputStream(randomBytes(MB)), "faults.bin");
+        Assert.assertFalse(result.isSuccess());
+        Assert.assertEquals(3, injector.getInjected(FaultSchedule.Kind.UNAVAILABLE));
+        Assert.assertEquals(2, result.getRetryCount());
+    }
+
+    @Test
+    public void retryDelaysAreCapped() throws Exception {
+        FaultInjector injector = new FaultInjector(
+            new FaultSchedule(66).withStorms(1, 3, 3),
+            FaultInjector.BLOCK_REQUESTS
+        );
+        client.setConnectionInterceptor(injector);
+        client.setMaxBlockRetries(2);
+        client.setBlockRetryBackoffMillis(60 * 1000);
+        client.setMaxBlockRetryBackoffMillis(10);
+
+        long start = System.nanoTime();
+        TransferResult result = client.uploadToContainer(containerID, new ByteArrayInputStream(randomBytes(MB)), "faults.bin");
+        Assert.assertFalse(result.isSuccess());
+        Assert.assertEquals(2, result.getRetryCount());
+        Assert.assertTrue((System.nanoTime() - start) / 1000000 < 30 * 1000);
+    }
+
+    @Test
+    public void retryDelaysDoubleUpToTheMaximumWithJitter() {
+        for (int i = 0; i < 100; i++) {
+            assertDelayBetween(250, 500, RESTHandler.getRetryDelayMillis(500, 30000, 0));
+            assertDelayBetween(1000, 2000, RESTHandler.getRetryDelayMillis(500, 30000, 2));
+            assertDelayBetween(15000, 30000, RESTHandler.getRetryDelayMillis(500, 30000, 6));
+            // 500 ms doubled 20 times would be about 6 days.
+            assertDelayBetween(15000, 30000, RESTHandler.getRetryDelayMillis(500, 30000, 20));
+            assertDelayBetween(15000, 30000, RESTHandler.getRetryDelayMillis(500, 30000, Integer.MAX_VALUE));
+            assertDelayBetween(15000, 30000, RESTHandler.getRetryDelayMillis(Long.MAX_VALUE, 30000, 1));
+        }
+        Assert.assertEquals(0, RESTHandler.getRetryDelayMillis(0, 30000, 5));
+        Assert.assertEquals(1, RESTHandler.getRetryDelayMillis(1, 30000, 0));
+    }
+
+    private static void assertDelayBetween(long min, long max, long delay) {
+        Assert.assertTrue("delay " + delay + " not in [" + min + ", " + max + "]", min <= delay && delay <= max);
+    }
+
+        @Test
+    public void onlyTransientFailuresAreRetried() {
+        for (int status : new int[] {MetricsCollector.NO_RESPONSE, 408, 429, 500, 503}) {
+            Assert.assertTrue(String.valueOf(status), RESTHandler.isTransientFailure(status));
+        }
+        for (int status : new int[] {200, 400, 403, 404, 413}) {
+            Assert.assertFalse(String.valueOf(status), RESTHandler.isTransientFailure(status));
+        }
+    }
+
+    @Test
+    public void retrySettingsAreChecked() {
+        Assert.assertEquals(0, client.getMaxBlockRetries());
+        Assert.assertEquals(500, client.getBlockRetryBackoffMillis());
+        Assert.assertEquals(30000, client.getMaxBlockRetryBackoffMillis());
+        try {
+            client.setMaxBlockRetries(-1);
+            Assert.fail();
+        }
+        catch (IllegalArgumentException e) {
+            // Expected.
+        }
+        try {
+            client.setBlockRetryBackoffMillis(-1);
+            Assert.fail();
+        }
+        catch (IllegalArgumentException e) {
+            // Expected.
+        }
+        try {
+            client.setMaxBlockRetryBackoffMillis(-1);
+            Assert.fail();
+        }
+        catch (IllegalArgumentException e) {
+            // Expected.
+        }
+    }
+
+    @Test
+    public void downloadCompletesUnderLossAndSlowDrains() throws Exception {
+        byte[] data = randomBytes(MB);
+        String blobID = server.addBlob(containerID, "slow.bin", IronBoxClient.encrypt(data, client.getContainerKeyData(containerID)));
+
+        client.setConnectionInterceptor(new FaultInjector(new FaultSchedule(50).withSlowDrains(1, 4 * MB)));
+        ByteArrayOutputStream dest = new ByteArrayOutputStream();
+        long start = System.nanoTime();
+        Assert.assertTrue(client.downloadBlobFromContainer(containerID, blobID, Channels.newChannel(dest)).isSuccess());
+        Assert.assertTrue(System.nanoTime() - start >= 200 * 1000000L);
+        Assert.assertArrayEquals(data, dest.toByteArray());
+
+        client.setConnectionInterceptor(new FaultInjector(new FaultSchedule(50).withLoss(1, 10)));
+        dest.reset();
+        start = System.nanoTime();
+        Assert.assertTrue(client.downloadBlobFromContainer(containerID, blobID, Channels.newChannel(dest)).isSuccess());
+        Assert.assertTrue(System.nanoTime() - start >= 630 * 1000000L);
+        Assert.assertArrayEquals(data, dest.toByteArray());
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] data = new byte[size];
+        new Random(size).nextBytes(data);
+        return data;
+    }
+
+}
@@ -0,0 +1,80 @@
+package com.goironbox.client;
+
+import java.net.HttpURLConnection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Connection interceptor disturbing requests with the faults of a
+ * {@link FaultSchedule}, for tests and benchmarks of retry and recovery.
+ *
+ * Only requests whose URL contains a given string draw a fault, by default
+ * those to blob storage, which carry a shared access signature.
+ *
+ * @see IronBoxClient#setConnectionInterceptor(ConnectionInterceptor)
+ */
+class FaultInjector implements ConnectionInterceptor {
+
+    /**
+     * Selects the blob storage requests.
+     */
+    static final String STORAGE_REQUESTS = "sig=";
+
+    /**
+     * Selects the block PUTs, leaving out block list commits and GETs.
+     */
+    static final String BLOCK_REQUESTS = "comp=block&";
+
+    private final FaultSchedule schedule;
+    private final String urlFilter;
+    private final Map<FaultSchedule.Kind, AtomicInteger> injected = new EnumMap<>(FaultSchedule.Kind.class);
+
+    FaultInjector(FaultSchedule schedule) {
+        this(schedule, STORAGE_REQUESTS);
+    }
+
+    /**
+     * @param schedule The faults to inject.
+     * @param urlFilter The string the URLs of the disturbed requests contain.
+     */
+    FaultInjector(FaultSchedule schedule, String urlFilter) {
+        this.schedule = schedule;
+        this.urlFilter = urlFilter;
+        for (FaultSchedule.Kind kind : FaultSchedule.Kind.values()) {
+            injected.put(kind, new AtomicInteger());
+        }
+    }
+
+    @Override
+    public HttpURLConnection intercept(HttpURLConnection con) {
+        if (!con.getURL().toString().contains(urlFilter)) {
+            return con;
+        }
+        FaultSchedule.Fault fault = schedule.next();
+        injected.get(fault.kind).incrementAndGet();
+        return (FaultSchedule.Kind.NONE == fault.kind) ? con : new FaultInjectingConnection(con, fault);
+    }
+
+    /**
+     * @param kind The kind of fault.
+     * @return the number of requests that drew it so far
+     */
+    int getInjected(FaultSchedule.Kind kind) {
+        return injected.get(kind).get();
+    }
+
+    /**
+     * @return the number of requests disturbed so far
+     */
+    int getFaults() {
+        int faults = 0;
+        for (Map.Entry<FaultSchedule.Kind, AtomicInteger> e : injected.entrySet()) {
+            if (FaultSchedule.Kind.NONE != e.getKey()) {
+                faults += e.getValue().get();
+            }
+        }
+        return faults;
+    }
+
+}
@@ -0,0 +1,183 @@
+package com.goironbox.client;
+
+import java.util.Random;
+
+/**
+ * Seeded sequence of network faults for {@link FaultInjector}, one drawn per
+ * request in the order the requests are made, so that a client making its
+ * requests one after the other meets the same faults on every run.
+ *
+ * Faults are packet loss, seen as a response delayed by retransmission
+ * timeouts; slow drains, where the peer reads or sends the body slowly;
+ * connection resets part way through the body; and storms of consecutive
+ * 503 Server Busy responses, like storage throttling.
+ */
+class FaultSchedule {
+
+    /**
+     * Kinds of fault.
+     */
+    enum Kind {
+        NONE, LOSS, SLOW_DRAIN, RESET, UNAVAILABLE
+    }
+
+    /**
+     * A fault for one request.
+     */
+    static final class Fault {
+        static final Fault NONE = new Fault(Kind.NONE, 0, 0, 0);
+        static final Fault UNAVAILABLE = new Fault(Kind.UNAVAILABLE, 0, 0, 0);
+
+        final Kind kind;
+        /** For {@link Kind#LOSS}, the delay of the response. */
+        final long delayMillis;
+        /** For {@link Kind#SLOW_DRAIN}, the rate of the body in either direction. */
+        final long bytesPerSecond;
+        /** For {@link Kind#RESET}, the share of the body transferred before the reset. */
+        final double resetFraction;
+
+        Fault(Kind kind, long delayMillis, long bytesPerSecond, double resetFraction) {
+            this.kind = kind;
+            this.delayMillis = delayMillis;
+            this.bytesPerSecond = bytesPerSecond;
+            this.resetFraction = resetFraction;
+        }
+
+        @Override
+        public String toString() {
+            switch (kind) {
+                case LOSS:
+                    return "LOSS(" + delayMillis + "ms)";
+                case SLOW_DRAIN:
+                    return "SLOW_DRAIN(" + bytesPerSecond + "B/s)";
+                case RESET:
+                    return String.format("RESET(%.2f)", resetFraction);
+                default:
+                    return kind.name();
+            }
+        }
+    }
+
+    /**
+     * Maximum number of consecutive retransmissions of a lost segment.
+     */
+    private static final int MAX_RETRANSMISSIONS = 6;
+
+    private final Random random;
+    private double lossRate = 0;
+    private long retransmissionTimeoutMillis = 200;
+    private double slowDrainRate = 0;
+    private long slowDrainBytesPerSecond = 256 * 1024;
+    private double resetRate = 0;
+    private double stormRate = 0;
+    private int minStormLength = 0;
+    private int maxStormLength = 0;
+    private int stormRemaining = 0;
+
+    FaultSchedule(long seed) {
+        random = new Random(seed);
+    }
+
+    /**
+     * Gets a schedule by name, for benchmarks: none, loss, slow-drain,
+     * resets, storms or mixed.
+     *
+     * @param name The profile name.
+     * @param seed The seed.
+     * @return the schedule
+     */
+    static FaultSchedule profile(String name, long seed) {
+        FaultSchedule schedule = new FaultSchedule(seed);
+        switch (name) {
+            case "none":
+                return schedule;
+            case "loss":
+                return schedule.withLoss(0.05, 200);
+            case "slow-drain":
+                return schedule.withSlowDrains(0.1, 256 * 1024);
+            case "resets":
+                return schedule.withResets(0.05);
+            case "storms":
+                return schedule.withStorms(0.02, 5, 20);
+            case "mixed":
+                return schedule.withLoss(0.02, 200).withSlowDrains(0.05, 256 * 1024).withResets(0.02).withStorms(0.01, 3, 10);
+            default:
+                throw new IllegalArgumentException("Unknown fault profile: " + name);
+        }
+    }
+
+    /**
+     * @param rate The share of requests losing a segment.
+     * @param retransmissionTimeoutMillis The delay of the first retransmission, doubling with every further loss.
+     * @return this schedule
+     */
+    FaultSchedule withLoss(double rate, long retransmissionTimeoutMillis) {
+        this.lossRate = rate;
+        this.retransmissionTimeoutMillis = retransmissionTimeoutMillis;
+        return this;
+    }
+
+    /**
+     * @param rate The share of requests drained slowly.
+     * @param bytesPerSecond The rate of their bodies.
+     * @return this schedule
+     */
+    FaultSchedule withSlowDrains(double rate, long bytesPerSecond) {
+        this.slowDrainRate = rate;
+        this.slowDrainBytesPerSecond = bytesPerSecond;
+        return this;
+    }
+
+    /**
+     * @param rate The share of requests whose connection is reset.
+     * @return this schedule
+     */
+    FaultSchedule withResets(double rate) {
+        this.resetRate = rate;
+        return this;
+    }
+
+    /**
+     * @param startRate The chance of a storm starting at each request.
+     * @param minLength The minimum number of requests answered with 503.
+     * @param maxLength The maximum number of requests answered with 503.
+     * @return this schedule
+     */
+    FaultSchedule withStorms(double startRate, int minLength, int maxLength) {
+        this.stormRate = startRate;
+        this.minStormLength = minLength;
+        this.maxStormLength = maxLength;
+        return this;
+    }
+
+    /**
+     * @return the fault for the next request
+     */
+    synchronized Fault next() {
+        if (stormRemaining > 0) {
+            stormRemaining--;
+            return Fault.UNAVAILABLE;
+        }
+        if (random.nextDouble() < stormRate) {
+            stormRemaining = minStormLength + random.nextInt(maxStormLength - minStormLength + 1) - 1;
+            return Fault.UNAVAILABLE;
+        }
+
+        double r = random.nextDouble();
+        if ((r -= lossRate) < 0) {
+            int losses = 1;
+            while (losses < MAX_RETRANSMISSIONS && random.nextDouble() < lossRate) {
+                losses++;
+            }
+            return new Fault(Kind.LOSS, retransmissionTimeoutMillis * ((1L << losses) - 1), 0, 0);
+        }
+        if ((r -= slowDrainRate) < 0) {
+            return new Fault(Kind.SLOW_DRAIN, 0, slowDrainBytesPerSecond, 0);
+        }
+        if ((r -= resetRate) < 0) {
+            return new Fault(Kind.RESET, 0, 0, random.nextDouble());
+        }
+        return Fault.NONE;
+    }
+
+}
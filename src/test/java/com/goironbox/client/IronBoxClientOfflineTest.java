@@ -0,0 +1,230 @@
+package com.goironbox.client;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Runs the client against {@link LocalIronBoxServer}, so unlike
+ * {@link IronBoxClientTest} it needs no API property files or network.
+ */
+@RunWith(JUnit4.class)
+public class IronBoxClientOfflineTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private LocalIronBoxServer server;
+    private IronBoxClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new LocalIronBoxServer();
+        server.start();
+        client = new IronBoxClient("user@example.com", "password", EntityType.EMAIL_ADDRESS, ApiVersion.LATEST, ContentFormat.JSON, false, false);
+        server.connect(client);
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    public void uploadAndDownload() throws Exception {
+        long containerID = server.createContainer("offline");
+        byte[] data = randomBytes(5 * 1024 * 1024 + 123);
+        File src = tmp.newFile("src.bin");
+        FileUtils.writeByteArrayToFile(src, data);
+
+        Assert.assertTrue(client.ping());
+        TransferResult upload = client.uploadFileToContainer(containerID, src, "src.bin");
+        Assert.assertTrue(upload.isSuccess());
+        Assert.assertEquals(data.length, upload.getPlaintextSize());
+
+        List<BlobInfo> blobs = client.getContainerBlobInfoListByState(containerID, BlobState.READY);
+        Assert.assertEquals(1, blobs.size());
+        Assert.assertEquals("src.bin", blobs.get(0).getBlobName());
+        String blobID = blobs.get(0).getBlobID();
+
+        File dest = new File(tmp.getRoot(), "dest.bin");
+        Assert.assertTrue(client.downloadBlobFromContainer(containerID, blobID, dest).isSuccess());
+        Assert.assertArrayEquals(data, FileUtils.readFileToByteArray(dest));
+
+        Assert.assertTrue(client.removeEntityContainerBlob(containerID, blobID));
+        Assert.assertTrue(client.getContainerBlobInfoListByState(containerID, BlobState.READY).isEmpty());
+    }
+
+    @Test
+    public void uploadToSeveralContainers() throws Exception {
+        long first = server.createContainer("first");
+        long second = server.createContainer("second");
+        byte[] data = randomBytes(1024 * 1024);
+        File src = tmp.newFile("src.bin");
+        FileUtils.writeByteArrayToFile(src, data);
+
+        Assert.assertTrue(client.uploadFileToContainers(LongList.of(first, second), src, "src.bin").isSuccess());
+        for (long containerID : new long[] {first, second}) {
+            String blobID = client.getContainerBlobInfoListByState(containerID, BlobState.READY).get(0).getBlobID();
+            byte[] plaintext = IronBoxClient.decrypt(server.getBlobContent(blobID), client.getContainerKeyData(containerID));
+            Assert.assertArrayEquals(data, plaintext);
+        }
+    }
+
+    @Test
+    public void failedCheckInCancelsTheUploadToAllContainers() throws Exception {
+        long first = server.createContainer("first");
+        long second = server.createContainer("second");
+        long third = server.createContainer("third");
+        server.refuseCheckIns(second);
+
+        TransferResult result = client.uploadToContainers(LongList.of(first, second, third), new ByteArrayInputStream(randomBytes(1024)), "src.bin");
+        Assert.assertFalse(result.isSuccess());
+        for (long containerID : new long[] {first, second, third}) {
+            Assert.assertTrue(client.getContainerBlobInfoListByState(containerID, BlobState.READY).isEmpty());
+        }
+    }
+
+    @Test
+    public void uploadsAcrossSegmentBoundaries() throws Exception {
+        long containerID = server.createContainer("boundaries");
+        ContainerKeyData keyData = client.getContainerKeyData(containerID);
+        // Around the first segment of an input of unknown size, and around
+        // the plaintext held by a block.
+        int segment = RESTHandler.BLOCK_SIZE - 16;
+        int[] sizes = {0, 1, 64 * 1024 - 1, 64 * 1024, 64 * 1024 + 1, segment, segment + 1};
+        File src = tmp.newFile("src.bin");
+        for (int size : sizes) {
+            byte[] data = randomBytes(size);
+            FileUtils.writeByteArrayToFile(src, data);
+            TransferResult fromFile = client.uploadFileToContainer(containerID, src, "file-" + size);
+            TransferResult fromStream = client.uploadToContainer(containerID, new ByteArrayInputStream(data), "stream-" + size);
+            for (TransferResult result : new TransferResult[] {fromFile, fromStream}) {
+                Assert.assertTrue(result.isSuccess());
+                Assert.assertEquals(size, result.getPlaintextSize());
+            }
+            for (BlobInfo blob : client.getContainerBlobInfoListByState(containerID, BlobState.READY)) {
+                if (blob.getBlobName().endsWith("-" + size)) {
+                    byte[] plaintext = IronBoxClient.decrypt(server.getBlobContent(blob.getBlobID()), keyData);
+                    Assert.assertArrayEquals(blob.getBlobName(), data, plaintext);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void plainHttpIsRefusedByDefault() throws Exception {
+        IronBoxClient https = new IronBoxClient("user@example.com", "password", EntityType.EMAIL_ADDRESS, ApiVersion.LATEST, ContentFormat.JSON, false, false);
+        https.setAPIBaseURL(server.getAPIBaseURL());
+        try {
+            https.ping();
+            Assert.fail("Pinged over plain HTTP");
+        }
+        catch (Exception e) {
+            Assert.assertTrue(e.getCause().getMessage().startsWith("Not an HTTPS URL"));
+        }
+    }
+
+    @Test
+    public void defaultEndpointsUseTheVersionPath() throws Exception {
+        final List<String> urls = new ArrayList<>();
+        IronBoxClient remote = new IronBoxClient("user@example.com", "password", EntityType.EMAIL_ADDRESS, ApiVersion.LATEST, ContentFormat.JSON, false, false);
+        remote.setConnectionInterceptor(new ConnectionInterceptor() {
+            @Override
+            public HttpURLConnection intercept(HttpURLConnection con) throws IOException {
+                urls.add(con.getURL().toString());
+                throw new IOException("Not connecting");
+            }
+        });
+        try {
+            remote.ping();
+            Assert.fail("Pinged without a connection");
+        }
+        catch (Exception e) {
+            // Expected.
+        }
+        Assert.assertEquals(Arrays.asList("https://api.goironcloud.com/latest/Ping"), urls);
+    }
+
+    @Test
+    public void rangedReads() throws Exception {
+        long containerID = server.createContainer("ranges");
+        byte[] data = randomBytes(300 * 1024 + 7);
+        String blobID = server.addBlob(containerID, "ranges.bin", IronBoxClient.encrypt(data, client.getContainerKeyData(containerID)));
+
+        Assert.assertArrayEquals(Arrays.copyOfRange(data, 1000, 71000), client.readBlobRange(containerID, blobID, 1000, 70000));
+        Assert.assertArrayEquals(Arrays.copyOfRange(data, data.length - 10, data.length), client.readBlobRange(containerID, blobID, data.length - 10, 100));
+        Assert.assertEquals(0, client.readBlobRange(containerID, blobID, data.length + 100, 10).length);
+
+        try (SeekableByteChannel channel = client.openBlobChannel(containerID, blobID)) {
+            Assert.assertEquals(data.length, channel.size());
+            ByteBuffer buf = ByteBuffer.allocate(4096);
+            channel.position(200000);
+            while (buf.hasRemaining() && channel.read(buf) > 0) {
+                // Fill the buffer.
+            }
+            Assert.assertArrayEquals(Arrays.copyOfRange(data, 200000, 204096), buf.array());
+        }
+    }
+
+    @Test
+    public void containers() throws Exception {
+        SFTContainerConfig config = client.createEntitySFTContainer("offline.goironbox.com", "Reports", "Quarterly reports");
+        Assert.assertEquals("Reports", config.getName());
+        Assert.assertEquals("Quarterly reports", config.getDescription());
+        long containerID = config.getContainerID();
+
+        Assert.assertEquals(containerID, client.getContainerIDFromFriendlyID(config.getFriendlyID()).longValue());
+        Assert.assertEquals(LongList.of(containerID), client.getContainerIDsFromName("Reports"));
+
+        List<ContainerInfo> infos = client.getContainerInfoListByContext("offline.goironbox.com", ContainerType.DEFAULT);
+        Assert.assertEquals(1, infos.size());
+        Assert.assertEquals("Reports", infos.get(0).getContainerName());
+
+        server.setContextSetting(ContextSetting.COMPANY_NAME, "Example Corp");
+        Assert.assertEquals("Example Corp", client.getContextSetting("offline.goironbox.com", ContextSetting.COMPANY_NAME));
+
+        Assert.assertTrue(client.removeEntityContainer(containerID));
+        Assert.assertFalse(client.removeEntityContainer(containerID));
+        Assert.assertTrue(client.getContainerIDsFromName("Reports").isEmpty());
+    }
+
+    @Test
+    public void latencyAndBandwidth() throws Exception {
+        long containerID = server.createContainer("slow");
+        server.setLatencyMillis(50);
+        long start = System.nanoTime();
+        Assert.assertTrue(client.ping());
+        Assert.assertTrue(System.nanoTime() - start >= 50 * 1000000L);
+
+        server.setLatencyMillis(0);
+        server.setBandwidth(4 * 1024 * 1024);
+        byte[] data = randomBytes(2 * 1024 * 1024);
+        start = System.nanoTime();
+        Assert.assertTrue(client.uploadToContainer(containerID, new ByteArrayInputStream(data), "slow.bin").isSuccess());
+        Assert.assertTrue(System.nanoTime() - start >= 400 * 1000000L);
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] data = new byte[size];
+        new Random(size).nextBytes(data);
+        return data;
+    }
+
+}
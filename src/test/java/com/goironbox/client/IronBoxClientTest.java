@@ -181,7 +181,7 @@ public class IronBoxClientTest {
     // Unit Test: Upload file
     // -------------------------------------------------------------
     private boolean testUploadFile(IronBoxClient ibc, Long containerID, File f, String blobName) throws Exception {
-        boolean success = ibc.uploadFileToContainer(containerID, f, blobName);
+        boolean success = ibc.uploadFileToContainer(containerID, f, blobName).isSuccess();
         Assert.assertTrue("Unable to upload file", success);
         if (success) {
             logInfo("File uploading = PASSED");
@@ -198,7 +198,7 @@ public class IronBoxClientTest {
             f.deleteOnExit();
         }
 
-        boolean success = ibc.downloadBlobFromContainer(containerID, blobID, f);
+        boolean success = ibc.downloadBlobFromContainer(containerID, blobID, f).isSuccess();
         Assert.assertTrue("Unable to download file", success);
         return f;
     }
@@ -0,0 +1,131 @@
+package com.goironbox.client;
+
+import java.util.Arrays;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class JSONTokenerTest {
+
+    private static String repeat(char c, int n) {
+        char[] chars = new char[n];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+
+    private static String nextQuoted(JSONTokener x) {
+        return x.nextString(x.nextClean());
+    }
+
+    @Test
+    public void shortStringsShareOneInstance() {
+        String s = repeat('k', 32);
+        JSONTokener x = new JSONTokener("\"" + s + "\" \"" + s + "\"");
+        String first = nextQuoted(x);
+        String second = nextQuoted(x);
+        Assert.assertEquals(s, first);
+        Assert.assertSame(first, second);
+    }
+
+    @Test
+    public void longStringsAreNotShared() {
+        String s = repeat('k', 33);
+        JSONTokener x = new JSONTokener("\"" + s + "\" \"" + s + "\"");
+        String first = nextQuoted(x);
+        String second = nextQuoted(x);
+        Assert.assertEquals(s, first);
+        Assert.assertEquals(s, second);
+        Assert.assertNotSame(first, second);
+    }
+
+    @Test
+    public void collidingStringsAreToldApart() {
+        // "Aa" and "BB" have the same hash code and land in the same slot.
+        JSONTokener x = new JSONTokener("'Aa' 'BB' 'Aa' 'Ab'");
+        Assert.assertEquals("Aa", nextQuoted(x));
+        Assert.assertEquals("BB", nextQuoted(x));
+        Assert.assertEquals("Aa", nextQuoted(x));
+        Assert.assertEquals("Ab", nextQuoted(x));
+    }
+
+    @Test
+    public void escapesAndBufferGrowth() {
+        String s = repeat('v', 100);
+        JSONTokener x = new JSONTokener("\"a\\tb\\u0041\" \"" + s + "\" \"\"");
+        Assert.assertEquals("a\tbA", nextQuoted(x));
+        Assert.assertEquals(s, nextQuoted(x));
+        Assert.assertEquals("", nextQuoted(x));
+    }
+
+    @Test(expected = JSONException.class)
+    public void unterminatedString() {
+        nextQuoted(new JSONTokener("\"abc"));
+    }
+
+    @Test
+    public void bindSkippingUnknownValues() {
+        JSONTokener x = new JSONTokener(
+            "{\"skip\": {\"a\": [1, {\"b\": \"]}\"}], \"c\": null}, \"list\": [true, 'x'], \"id\": 42, \"name\": \"n\"}"
+        );
+        String id = null;
+        String name = null;
+        x.beginObject();
+        for (String key = x.nextKey(); key != null; key = x.nextKey()) {
+            switch (key) {
+            case "id":
+                id = x.nextScalar();
+                break;
+            case "name":
+                name = x.nextScalar();
+                break;
+            default:
+                x.skipValue();
+            }
+        }
+        Assert.assertEquals("42", JSONTokener.required(id, "id"));
+        Assert.assertEquals("n", JSONTokener.required(name, "name"));
+        Assert.assertFalse(x.more());
+    }
+
+    @Test
+    public void skipValueOfEmptyContainersAndScalars() {
+        JSONTokener x = new JSONTokener("[{}, [], \"s\", -1.5e3, null, 7]");
+        x.beginArray();
+        for (int i = 0; i < 5; i++) {
+            Assert.assertTrue(x.nextElement());
+            x.skipValue();
+        }
+        Assert.assertTrue(x.nextElement());
+        Assert.assertEquals("7", x.nextScalar());
+        Assert.assertFalse(x.nextElement());
+    }
+
+    @Test(expected = JSONException.class)
+    public void skipValueOfUnterminatedObject() {
+        new JSONTokener("{\"a\": [1, 2}").skipValue();
+    }
+
+    @Test(expected = JSONException.class)
+    public void skipValueOfUnterminatedString() {
+        new JSONTokener("[\"abc]").skipValue();
+    }
+
+    @Test(expected = JSONException.class)
+    public void nextScalarRejectsObjects() {
+        new JSONTokener("{}").nextScalar();
+    }
+
+    @Test
+    public void requiredReportsTheMissingKey() {
+        try {
+            JSONTokener.required(null, "BlobID");
+            Assert.fail();
+        }
+        catch (JSONException e) {
+            Assert.assertEquals("JSONObject[\"BlobID\"] not found.", e.getMessage());
+        }
+    }
+
+}
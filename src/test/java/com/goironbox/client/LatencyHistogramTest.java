@@ -0,0 +1,84 @@
+package com.goironbox.client;
+
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class LatencyHistogramTest {
+
+    private static void assertBucketHolds(long value) {
+        int index = LatencyHistogram.bucketIndex(value);
+        long upper = LatencyHistogram.bucketUpperBound(index);
+        Assert.assertTrue("value " + value + " above its bucket", value <= upper);
+        if (index > 0) {
+            Assert.assertTrue("value " + value + " below its bucket", value > LatencyHistogram.bucketUpperBound(index - 1));
+        }
+        Assert.assertTrue("value " + value + " recorded as " + upper, upper - value < Math.max(value, 8) / 8);
+    }
+
+    private static void assertClose(long expected, long actual) {
+        Assert.assertTrue("expected about " + expected + ", got " + actual, Math.abs(actual - expected) <= 0.125 * expected);
+    }
+
+    @Test
+    public void bucketsAreContiguousWithBoundedError() {
+        for (long value = 0; value < 4096; value++) {
+            assertBucketHolds(value);
+        }
+        for (int exponent = 3; exponent < 63; exponent++) {
+            long power = 1L << exponent;
+            assertBucketHolds(power - 1);
+            assertBucketHolds(power);
+            assertBucketHolds(power + 1);
+        }
+        assertBucketHolds(Long.MAX_VALUE);
+        Random random = new Random(43);
+        for (int i = 0; i < 10000; i++) {
+            assertBucketHolds(random.nextLong() >>> (1 + random.nextInt(63)));
+        }
+    }
+
+    @Test
+    public void percentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int micros = 1000; micros >= 1; micros--) {
+            histogram.record(micros * 1000L);
+        }
+        Assert.assertEquals(1000, histogram.getCount());
+        Assert.assertEquals(500500 * 1000L, histogram.getTotalNanos());
+        Assert.assertEquals(500500, histogram.getMeanNanos());
+        Assert.assertEquals(1000000, histogram.getMaxNanos());
+        assertClose(1000, histogram.getPercentileNanos(0));
+        assertClose(500000, histogram.getPercentileNanos(50));
+        assertClose(990000, histogram.getPercentileNanos(99));
+        Assert.assertEquals(1000000, histogram.getPercentileNanos(100));
+    }
+
+    @Test
+    public void percentilesNeverExceedTheMaximum() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1000001);
+        Assert.assertEquals(1000001, histogram.getPercentileNanos(50));
+    }
+
+    @Test
+    public void emptyAndNegative() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Assert.assertEquals(0, histogram.getMeanNanos());
+        Assert.assertEquals(0, histogram.getPercentileNanos(99));
+
+        histogram.record(-5);
+        Assert.assertEquals(1, histogram.getCount());
+        Assert.assertEquals(0, histogram.getTotalNanos());
+        Assert.assertEquals(0, histogram.getPercentileNanos(100));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void percentileOutOfRange() {
+        new LatencyHistogram().getPercentileNanos(100.5);
+    }
+
+}
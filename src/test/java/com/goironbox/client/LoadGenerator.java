@@ -0,0 +1,357 @@
+package com.goironbox.client;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs concurrent upload, download and list workloads through one
+ * {@link IronBoxClient} and reports throughput and latency percentiles per
+ * operation, CPU time per GB transferred and the heap high-water mark.
+ *
+ * Without an apiBaseURL it starts an embedded {@link LocalIronBoxServer},
+ * whose work is then included in the CPU time. Against a real endpoint it
+ * needs credentials and the ID of a container to work in; the blobs it
+ * uploads there are removed at the end. For the options and their defaults
+ * see {@link LoadProfile}, and the README for how to run it.
+ *
+ * Downloads read blobs uploaded for that purpose before the run, one or
+ * more per size. Operations started during the warm-up are not counted.
+ */
+public class LoadGenerator {
+
+    private static final String BLOB_PREFIX = "load-";
+    private static final int PATTERN_SIZE = 1024 * 1024;
+    private static final long HEAP_SAMPLE_MILLIS = 10;
+
+    private final LoadProfile profile;
+    private final IronBoxClient client;
+    private final long containerID;
+    private final byte[] pattern = new byte[PATTERN_SIZE];
+    private final String runID = Long.toString(System.currentTimeMillis(), 36);
+    private final Map<Long, List<String>> seedBlobIDs = new HashMap<>();
+    private final Map<LoadProfile.Operation, Stats> stats = new EnumMap<>(LoadProfile.Operation.class);
+    private final AtomicLong uploadCount = new AtomicLong();
+    private volatile long measureStartNanos;
+
+    /**
+     * Outcome of the measured operations of one kind.
+     */
+    private static final class Stats {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final AtomicLong errors = new AtomicLong();
+        final AtomicLong bytes = new AtomicLong();
+    }
+
+    LoadGenerator(LoadProfile profile, IronBoxClient client, long containerID) {
+        this.profile = profile;
+        this.client = client;
+        this.containerID = containerID;
+        new Random(profile.seed).nextBytes(pattern);
+        for (LoadProfile.Operation op : LoadProfile.Operation.values()) {
+            stats.put(op, new Stats());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadProfile profile = LoadProfile.parse(args);
+        LocalIronBoxServer server = null;
+        try {
+            IronBoxClient client;
+            long containerID;
+            if (profile.isEmbedded()) {
+                server = new LocalIronBoxServer();
+                server.setLatencyMillis(profile.latencyMillis);
+                server.setBandwidth(profile.bandwidth);
+                server.start();
+                client = new IronBoxClient("load@example.com", "password", EntityType.EMAIL_ADDRESS, ApiVersion.LATEST, ContentFormat.JSON, false, false);
+                server.connect(client);
+                containerID = server.createContainer("load");
+            }
+            else {
+                client = new IronBoxClient(profile.email, profile.password, EntityType.EMAIL_ADDRESS, ApiVersion.LATEST, ContentFormat.JSON, false, profile.verifySSLCert);
+                client.setAPIBaseURL(profile.apiBaseURL);
+                containerID = profile.containerID;
+            }
+
+            LoadGenerator generator = new LoadGenerator(profile, client, containerID);
+            generator.seed();
+            if (null != server) {
+                server.setDiscardUploads(true);
+            }
+            try {
+                generator.run();
+            }
+            finally {
+                if (null == server) {
+                    generator.removeUploads();
+                }
+            }
+        }
+        finally {
+            if (null != server) {
+                server.stop();
+            }
+        }
+    }
+
+    /**
+     * Uploads the blobs that downloads will read.
+     */
+    void seed() throws Exception {
+        long[] sizes = profile.getSizes();
+        Map<String, Long> names = new HashMap<>();
+        for (long size : sizes) {
+            seedBlobIDs.put(size, new ArrayList<String>());
+            for (int i = 0; i < profile.seedBlobs; i++) {
+                String name = BLOB_PREFIX + runID + "-seed-" + size + "-" + i;
+                upload(size, name);
+                names.put(name, size);
+            }
+        }
+        for (BlobInfo blob : client.getContainerBlobInfoListByState(containerID, BlobState.READY)) {
+            Long size = names.get(blob.getBlobName());
+            if (null != size) {
+                seedBlobIDs.get(size).add(blob.getBlobID());
+            }
+        }
+    }
+
+    /**
+     * Runs the workers through the warm-up and the measured period, then
+     * prints the report.
+     */
+    void run() throws Exception {
+        System.out.println("Load profile: " + profile);
+        long startNanos = System.nanoTime();
+        measureStartNanos = startNanos + profile.warmupSeconds * 1000000000L;
+        final long endNanos = measureStartNanos + profile.durationSeconds * 1000000000L;
+
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < profile.concurrency; i++) {
+            final Random random = new Random(profile.seed + i);
+            Thread t = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    while (System.nanoTime() < endNanos) {
+                        runOperation(random);
+                    }
+                }
+            }, "load-worker-" + i);
+            t.setDaemon(true);
+            workers.add(t);
+            t.start();
+        }
+
+        sleepUntil(measureStartNanos);
+        Resources resources = new Resources();
+        for (Thread t : workers) {
+            t.join();
+        }
+        long measuredNanos = System.nanoTime() - measureStartNanos;
+        resources.stop();
+        report(measuredNanos, resources);
+    }
+
+    private void runOperation(Random random) {
+        LoadProfile.Operation op = profile.nextOperation(random);
+        long start = System.nanoTime();
+        long bytes = 0;
+        boolean success = false;
+        try {
+            switch (op) {
+                case UPLOAD: {
+                    long size = profile.nextSize(random);
+                    success = upload(size, BLOB_PREFIX + runID + "-" + uploadCount.incrementAndGet()).isSuccess();
+                    bytes = size;
+                    break;
+                }
+                case DOWNLOAD: {
+                    List<String> blobIDs = seedBlobIDs.get(profile.nextSize(random));
+                    String blobID = blobIDs.get(random.nextInt(blobIDs.size()));
+                    TransferResult result = client.downloadBlobFromContainer(containerID, blobID, DiscardChannel.INSTANCE);
+                    success = result.isSuccess();
+                    bytes = result.getPlaintextSize();
+                    break;
+                }
+                case LIST: {
+                    client.getContainerBlobInfoListByState(containerID, BlobState.READY);
+                    success = true;
+                    break;
+                }
+            }
+        }
+        catch (Exception e) {
+            success = false;
+        }
+        if (start >= measureStartNanos) {
+            Stats s = stats.get(op);
+            s.latency.record(System.nanoTime() - start);
+            s.bytes.addAndGet(bytes);
+            if (!success) {
+                s.errors.incrementAndGet();
+            }
+        }
+    }
+
+    private TransferResult upload(long size, String name) throws Exception {
+        return client.uploadToContainer(containerID, new PatternChannel(pattern, size), name);
+    }
+
+    /**
+     * Removes the blobs of this run from the container.
+     */
+    void removeUploads() throws Exception {
+        for (BlobInfo blob : client.getContainerBlobInfoListByState(containerID, BlobState.READY)) {
+            if (blob.getBlobName().startsWith(BLOB_PREFIX + runID + "-")) {
+                client.removeEntityContainerBlob(containerID, blob.getBlobID());
+            }
+        }
+    }
+
+    private void report(long measuredNanos, Resources resources) {
+        double seconds = measuredNanos / 1e9;
+        System.out.println(String.format(
+            "%-9s %8s %7s %9s %9s %9s %9s %9s %9s",
+            "operation", "ops", "errors", "ops/s", "MB/s", "p50 ms", "p99 ms", "p999 ms", "max ms"
+        ));
+        long totalBytes = 0;
+        for (Map.Entry<LoadProfile.Operation, Stats> e : stats.entrySet()) {
+            Stats s = e.getValue();
+            totalBytes += s.bytes.get();
+            System.out.println(String.format(
+                "%-9s %8d %7d %9.1f %9.1f %9.2f %9.2f %9.2f %9.2f",
+                e.getKey().name().toLowerCase(), s.latency.getCount(), s.errors.get(),
+                s.latency.getCount() / seconds, s.bytes.get() / seconds / 1e6,
+                s.latency.getPercentileNanos(50) / 1e6, s.latency.getPercentileNanos(99) / 1e6,
+                s.latency.getPercentileNanos(99.9) / 1e6, s.latency.getMaxNanos() / 1e6
+            ));
+        }
+        double gb = totalBytes / 1e9;
+        System.out.println(String.format("Transferred %.1f MB in %.1f s: %.1f MB/s", totalBytes / 1e6, seconds, totalBytes / 1e6 / seconds));
+        System.out.println(String.format(
+            "CPU %.1f s, %s per GB%s",
+            resources.cpuNanos / 1e9, (gb > 0) ? String.format("%.2f s", resources.cpuNanos / 1e9 / gb) : "n/a",
+            profile.isEmbedded() ? ", including the embedded server" : ""
+        ));
+        System.out.println(String.format(
+            "Heap high-water mark %.1f MB of %.1f MB, %d collections taking %d ms",
+            resources.maxHeapUsed / 1e6, resources.heapMax / 1e6, resources.gcCount, resources.gcMillis
+        ));
+    }
+
+    /**
+     * CPU, heap and GC use from its creation until {@link #stop()}.
+     */
+    private static final class Resources implements Runnable {
+        private final com.sun.management.OperatingSystemMXBean os =
+            (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        private final Thread sampler = new Thread(this, "load-heap-sampler");
+        private final long cpuStart = os.getProcessCpuTime();
+        private final long gcCountStart = gcCount();
+        private final long gcMillisStart = gcMillis();
+        private volatile boolean running = true;
+        volatile long maxHeapUsed;
+        long heapMax = memory.getHeapMemoryUsage().getMax();
+        long cpuNanos;
+        long gcCount;
+        long gcMillis;
+
+        Resources() {
+            sampler.setDaemon(true);
+            sampler.start();
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                maxHeapUsed = Math.max(maxHeapUsed, memory.getHeapMemoryUsage().getUsed());
+                try {
+                    Thread.sleep(HEAP_SAMPLE_MILLIS);
+                }
+                catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+
+        void stop() throws InterruptedException {
+            cpuNanos = os.getProcessCpuTime() - cpuStart;
+            gcCount = gcCount() - gcCountStart;
+            gcMillis = gcMillis() - gcMillisStart;
+            running = false;
+            sampler.join();
+        }
+
+        private static long gcCount() {
+            long count = 0;
+            for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+                count += Math.max(0, gc.getCollectionCount());
+            }
+            return count;
+        }
+
+        private static long gcMillis() {
+            long millis = 0;
+            for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+                millis += Math.max(0, gc.getCollectionTime());
+            }
+            return millis;
+        }
+    }
+
+    /**
+     * Channel reading a given number of bytes by repeating a pattern, so
+     * that uploads of any size need no memory of their own.
+     */
+    private static final class PatternChannel implements ReadableByteChannel {
+        private final byte[] pattern;
+        private long remaining;
+        private int offset = 0;
+
+        PatternChannel(byte[] pattern, long size) {
+            this.pattern = pattern;
+            this.remaining = size;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) {
+            if (0 == remaining) {
+                return -1;
+            }
+            int n = (int) Math.min(Math.min(dst.remaining(), remaining), pattern.length - offset);
+            dst.put(pattern, offset, n);
+            offset = (offset + n) % pattern.length;
+            remaining -= n;
+            return n;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+        }
+    }
+
+    private static void sleepUntil(long nanos) throws InterruptedException {
+        long millis = (nanos - System.nanoTime()) / 1000000L;
+        if (millis > 0) {
+            Thread.sleep(millis);
+        }
+    }
+
+}
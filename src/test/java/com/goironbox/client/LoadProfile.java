@@ -0,0 +1,207 @@
+package com.goironbox.client;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Settings of a {@link LoadGenerator} run, parsed from key=value arguments.
+ *
+ * Weighted lists are comma separated value:weight pairs, e.g. the size
+ * distribution "64k:5,1m:3,16m:1" picks 64 KB for five in nine uploads and
+ * downloads. Sizes take a k, m or g suffix.
+ */
+class LoadProfile {
+
+    /**
+     * Operations run by the load generator.
+     */
+    enum Operation {
+        UPLOAD, DOWNLOAD, LIST
+    }
+
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+
+    static {
+        DEFAULTS.put("apiBaseURL", "");
+        DEFAULTS.put("email", "");
+        DEFAULTS.put("password", "");
+        DEFAULTS.put("verifySSLCert", "true");
+        DEFAULTS.put("containerID", "0");
+        DEFAULTS.put("concurrency", "8");
+        DEFAULTS.put("warmup", "5");
+        DEFAULTS.put("duration", "30");
+        DEFAULTS.put("mix", "upload:1,download:1,list:1");
+        DEFAULTS.put("sizes", "64k:5,1m:3,16m:1");
+        DEFAULTS.put("seedBlobs", "2");
+        DEFAULTS.put("latency", "0");
+        DEFAULTS.put("bandwidth", "0");
+        DEFAULTS.put("seed", "49");
+    }
+
+    private final Map<String, String> options;
+
+    final String apiBaseURL;
+    final String email;
+    final String password;
+    final boolean verifySSLCert;
+    final long containerID;
+    final int concurrency;
+    final int warmupSeconds;
+    final int durationSeconds;
+    final int seedBlobs;
+    final long latencyMillis;
+    final long bandwidth;
+    final long seed;
+
+    private final Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+    private final long[] sizes;
+    private final int[] sizeWeights;
+    private final int totalMixWeight;
+    private final int totalSizeWeight;
+
+    private LoadProfile(Map<String, String> options) {
+        this.options = options;
+        apiBaseURL = options.get("apiBaseURL").isEmpty() ? null : options.get("apiBaseURL");
+        email = options.get("email");
+        password = options.get("password");
+        verifySSLCert = Boolean.parseBoolean(options.get("verifySSLCert"));
+        containerID = Long.parseLong(options.get("containerID"));
+        concurrency = Integer.parseInt(options.get("concurrency"));
+        warmupSeconds = Integer.parseInt(options.get("warmup"));
+        durationSeconds = Integer.parseInt(options.get("duration"));
+        seedBlobs = Integer.parseInt(options.get("seedBlobs"));
+        latencyMillis = Long.parseLong(options.get("latency"));
+        bandwidth = parseSize(options.get("bandwidth"));
+        seed = Long.parseLong(options.get("seed"));
+
+        int weights = 0;
+        for (Map.Entry<String, Integer> e : parseWeights(options.get("mix")).entrySet()) {
+            mix.put(Operation.valueOf(e.getKey().toUpperCase(Locale.ROOT)), e.getValue());
+            weights += e.getValue();
+        }
+        totalMixWeight = weights;
+
+        Map<String, Integer> sizeMap = parseWeights(options.get("sizes"));
+        sizes = new long[sizeMap.size()];
+        sizeWeights = new int[sizeMap.size()];
+        weights = 0;
+        int i = 0;
+        for (Map.Entry<String, Integer> e : sizeMap.entrySet()) {
+            sizes[i] = parseSize(e.getKey());
+            sizeWeights[i++] = e.getValue();
+            weights += e.getValue();
+        }
+        totalSizeWeight = weights;
+
+        if (concurrency < 1 || totalMixWeight < 1 || totalSizeWeight < 1) {
+            throw new IllegalArgumentException("Concurrency, mix and sizes need at least one positive value");
+        }
+        if (null != apiBaseURL && 0 == containerID) {
+            throw new IllegalArgumentException("containerID is required with apiBaseURL");
+        }
+    }
+
+    /**
+     * @param args The key=value arguments.
+     * @return the profile, with defaults for the missing settings
+     */
+    static LoadProfile parse(String... args) {
+        Map<String, String> options = new LinkedHashMap<>(DEFAULTS);
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 1 || !DEFAULTS.containsKey(arg.substring(0, eq))) {
+                throw new IllegalArgumentException("Unknown option: " + arg + ", expected one of " + DEFAULTS.keySet());
+            }
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        return new LoadProfile(options);
+    }
+
+    /**
+     * @return true to run against an embedded {@link LocalIronBoxServer}
+     */
+    boolean isEmbedded() {
+        return null == apiBaseURL;
+    }
+
+    /**
+     * @return the distinct sizes uploaded and downloaded
+     */
+    long[] getSizes() {
+        return sizes.clone();
+    }
+
+    Operation nextOperation(Random random) {
+        int r = random.nextInt(totalMixWeight);
+        for (Map.Entry<Operation, Integer> e : mix.entrySet()) {
+            r -= e.getValue();
+            if (r < 0) {
+                return e.getKey();
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    long nextSize(Random random) {
+        int r = random.nextInt(totalSizeWeight);
+        for (int i = 0; i < sizes.length; i++) {
+            r -= sizeWeights[i];
+            if (r < 0) {
+                return sizes[i];
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    static long parseSize(String size) {
+        String s = size.trim().toLowerCase(Locale.ROOT);
+        long unit = 1;
+        switch (s.isEmpty() ? ' ' : s.charAt(s.length() - 1)) {
+            case 'k':
+                unit = 1024L;
+                break;
+            case 'm':
+                unit = 1024L * 1024;
+                break;
+            case 'g':
+                unit = 1024L * 1024 * 1024;
+                break;
+            default:
+                return Long.parseLong(s);
+        }
+        return Long.parseLong(s.substring(0, s.length() - 1)) * unit;
+    }
+
+    private static Map<String, Integer> parseWeights(String list) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String pair : list.split(",")) {
+            int colon = pair.lastIndexOf(':');
+            if (colon < 1) {
+                throw new IllegalArgumentException("Expected value:weight, got " + pair);
+            }
+            int weight = Integer.parseInt(pair.substring(colon + 1).trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Negative weight in " + pair);
+            }
+            weights.put(pair.substring(0, colon).trim(), weight);
+        }
+        return weights;
+    }
+
+    @Override
+    public String toString() {
+        List<String> settings = new ArrayList<>();
+        for (Map.Entry<String, String> e : options.entrySet()) {
+            if (!e.getKey().equals("password") && !e.getValue().isEmpty()) {
+                settings.add(e.getKey() + "=" + e.getValue());
+            }
+        }
+        return settings.toString();
+    }
+
+}
@@ -0,0 +1,650 @@
+package com.goironbox.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.security.MessageDigest;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.xml.bind.DatatypeConverter;
+
+/**
+ * In-process stand-in for the IronBox API and its block blob storage, so
+ * that the client can be tested without network access or credentials.
+ *
+ * The API is served below {@link #getAPIBaseURL()}, over plain HTTP, and
+ * accepts any credentials; {@link #connect(IronBoxClient)} sets a client up
+ * for it.
+ * Blobs are kept in memory and reached through shared access signature URLs
+ * pointing back at this server, which speaks enough of the block blob
+ * protocol for the client: block and block list PUTs, ranged GETs and HEAD.
+ *
+ * A latency can be added to every request and the bandwidth limited, so
+ * that benchmarks see something closer to a remote service than loopback.
+ * The bandwidth is shared by all connections, like a single network link.
+ */
+class LocalIronBoxServer {
+
+    /**
+     * Key data of every container: AES-256 with a fixed key and IV.
+     */
+    static final String CONTAINER_KEY_DATA =
+        "{\"SessionIVBase64\":\"AAECAwQFBgcICQoLDA0ODw==\","
+        + "\"SessionKeyBase64\":\"AAECAwQFBgcICQoLDA0ODxAREhMUFRYXGBkaGxwdHh8=\","
+        + "\"SymmetricKeyStrength\":2}";
+
+    /**
+     * Context of the containers created by {@link #createContainer(String)}.
+     */
+    static final String DEFAULT_CONTEXT = "local.goironbox.com";
+
+    /**
+     * Bandwidth meaning no limit.
+     */
+    static final long UNLIMITED = 0;
+
+    private static final Pattern LATEST_BLOCK = Pattern.compile("<Latest>([^<]*)</Latest>");
+    private static final Pattern BYTE_RANGE = Pattern.compile("bytes=(\\d+)-(\\d*)");
+    private static final int PACING_CHUNK_SIZE = 16 * 1024;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Map<Long, Container> containers = new ConcurrentHashMap<>();
+    private final Map<String, Blob> blobs = new ConcurrentHashMap<>();
+    private final Map<String, String> contextSettings = new ConcurrentHashMap<>();
+    private final AtomicLong nextID = new AtomicLong(1000);
+    private volatile long latencyMillis = 0;
+    private volatile long bandwidth = UNLIMITED;
+    private volatile boolean discardUploads = false;
+    private final Set<Long> refusedCheckIns = Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+    private long linkFreeNanos = System.nanoTime(); // guarded by this
+
+    private static final class Container {
+        final long id;
+        final String context;
+        final String name;
+        final String description;
+        final String friendlyID;
+
+        Container(long id, String context, String name, String description) {
+            this.id = id;
+            this.context = context;
+            this.name = name;
+            this.description = description;
+            this.friendlyID = "F" + Long.toString(id, 36).toUpperCase();
+        }
+    }
+
+    private static final class Blob {
+        final String id;
+        final long containerID;
+        final String name;
+        final String signature;
+        final Map<String, byte[]> blocks = new ConcurrentHashMap<>();
+        volatile BlobState state = BlobState.BLOB_CREATED;
+        volatile byte[] content;
+        volatile String checkInToken;
+
+        Blob(String id, long containerID, String name) {
+            this.id = id;
+            this.containerID = containerID;
+            this.name = name;
+            this.signature = "sig" + id;
+        }
+    }
+
+    LocalIronBoxServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/api/", new ApiHandler());
+        server.createContext("/storage/", new StorageHandler());
+        executor = Executors.newCachedThreadPool(new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "local-ironbox-" + count.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        server.setExecutor(executor);
+        contextSettings.put(ContextSetting.COMPANY_NAME.getRESTString(), "IronBox Local");
+        contextSettings.put(ContextSetting.COMPANY_LOGO_URL.getRESTString(), "");
+    }
+
+    void start() {
+        server.start();
+    }
+
+    void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * @return the URL to pass to {@link IronBoxClient#setAPIBaseURL(String)}
+     */
+    String getAPIBaseURL() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/api";
+    }
+
+    /**
+     * Points a client at this server, allowing it the plain HTTP this server
+     * speaks.
+     *
+     * @param client The client to set up.
+     */
+    void connect(IronBoxClient client) throws Exception {
+        client.setPlainHttpAllowed(true);
+        client.setAPIBaseURL(getAPIBaseURL());
+    }
+
+    private String getStorageURL(Blob blob) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/storage/" + blob.id;
+    }
+
+    /**
+     * Sets a delay added to every request before it is answered.
+     *
+     * @param latencyMillis The delay in milliseconds, 0 for none.
+     */
+    void setLatencyMillis(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    /**
+     * Limits the rate at which request and response bodies are transferred,
+     * in both directions together.
+     *
+     * @param bytesPerSecond The bandwidth, or {@link #UNLIMITED}.
+     */
+    void setBandwidth(long bytesPerSecond) {
+        this.bandwidth = bytesPerSecond;
+    }
+
+    /**
+     * Makes blobs disappear when they are checked in from now on, so that
+     * load tests can upload more than fits in memory. Blobs already stored
+     * stay readable.
+     *
+     * @param discardUploads true to discard uploaded blobs
+     */
+    void setDiscardUploads(boolean discardUploads) {
+        this.discardUploads = discardUploads;
+    }
+
+    /**
+     * Makes check-ins of blobs into a container fail from now on.
+     *
+     * @param containerID The container ID.
+     */
+    void refuseCheckIns(long containerID) {
+        refusedCheckIns.add(containerID);
+    }
+
+    /**
+     * @param contextSetting The setting.
+     * @param value The value returned for it in every context.
+     */
+    void setContextSetting(ContextSetting contextSetting, String value) {
+        contextSettings.put(contextSetting.getRESTString(), value);
+    }
+
+    /**
+     * @param name The container name.
+     * @return the ID of the new container, in {@link #DEFAULT_CONTEXT}
+     */
+    long createContainer(String name) {
+        return createContainer(DEFAULT_CONTEXT, name, "").id;
+    }
+
+    private Container createContainer(String context, String name, String description) {
+        Container container = new Container(nextID.incrementAndGet(), context, name, description);
+        containers.put(container.id, container);
+        return container;
+    }
+
+    /**
+     * @param containerID The container ID.
+     * @return the friendly ID of the container
+     */
+    String getFriendlyID(long containerID) {
+        return containers.get(containerID).friendlyID;
+    }
+
+    /**
+     * Stores a blob that is ready to download, as if it had been uploaded.
+     *
+     * @param containerID The container ID.
+     * @param name The blob name.
+     * @param ciphertext The encrypted blob content.
+     * @return the blob ID
+     */
+    String addBlob(long containerID, String name, byte[] ciphertext) {
+        Blob blob = newBlob(containerID, name);
+        blob.content = ciphertext;
+        blob.state = BlobState.READY;
+        return blob.id;
+    }
+
+    /**
+     * @param blobID The blob ID.
+     * @return the committed, encrypted content of the blob, or null
+     */
+    byte[] getBlobContent(String blobID) {
+        Blob blob = blobs.get(blobID);
+        return (null == blob) ? null : blob.content;
+    }
+
+    private Blob newBlob(long containerID, String name) {
+        Blob blob = new Blob(containerID + "-" + nextID.incrementAndGet(), containerID, name);
+        blobs.put(blob.id, blob);
+        return blob;
+    }
+
+    private Blob getBlob(Map<String, String> form) {
+        Blob blob = blobs.get(form.get("BlobIDName"));
+        if (null == blob || blob.containerID != Long.parseLong(form.get("ContainerID"))) {
+            return null;
+        }
+        return blob;
+    }
+
+    /**
+     * Serves the IronBox API: POST /api/{version}/{endpoint} with form
+     * parameters, answering in JSON.
+     */
+    private final class ApiHandler implements HttpHandler {
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            try {
+                String path = exchange.getRequestURI().getPath();
+                String endpoint = path.substring(path.lastIndexOf('/') + 1);
+                Map<String, String> form = parseQuery(new String(readBody(exchange), "UTF-8"));
+                delay();
+                String response = call(endpoint, form);
+                if (null == response) {
+                    sendStatus(exchange, 404);
+                }
+                else {
+                    exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+                    byte[] body = response.getBytes("UTF-8");
+                    send(exchange, 200, body, 0, body.length);
+                }
+            }
+            catch (RuntimeException e) {
+                sendStatus(exchange, 400);
+            }
+            finally {
+                exchange.close();
+            }
+        }
+
+        private String call(String endpoint, Map<String, String> form) {
+            switch (endpoint) {
+                case "Ping":
+                    return "true";
+                case "ContainerKeyData": {
+                    return containers.containsKey(Long.parseLong(form.get("ContainerID"))) ? CONTAINER_KEY_DATA : null;
+                }
+                case "CreateEntityContainerBlob": {
+                    long containerID = Long.parseLong(form.get("ContainerID"));
+                    if (!containers.containsKey(containerID)) {
+                        return null;
+                    }
+                    return quote(newBlob(containerID, form.get("BlobName")).id);
+                }
+                case "CheckOutEntityContainerBlob": {
+                    Blob blob = getBlob(form);
+                    if (null == blob) {
+                        return null;
+                    }
+                    blob.checkInToken = "token" + nextID.incrementAndGet();
+                    blob.state = BlobState.CHECKED_OUT;
+                    return "{\"CheckInToken\":" + quote(blob.checkInToken) + "," + accessData(blob) + "}";
+                }
+                case "CheckInEntityContainerBlob": {
+                    Blob blob = getBlob(form);
+                    boolean checkedIn = null != blob
+                        && !refusedCheckIns.contains(blob.containerID)
+                        && null != blob.content
+                        && form.get("BlobCheckInToken").equals(blob.checkInToken);
+                    if (checkedIn) {
+                        blob.state = BlobState.READY;
+                        if (discardUploads) {
+                            blobs.remove(blob.id);
+                        }
+                    }
+                    return String.valueOf(checkedIn);
+                }
+                case "ReadEntityContainerBlob": {
+                    Blob blob = getBlob(form);
+                    if (null == blob || BlobState.READY != blob.state) {
+                        return null;
+                    }
+                    return "{" + accessData(blob) + "}";
+                }
+                case "GetContainerBlobInfoListByState": {
+                    long containerID = Long.parseLong(form.get("ContainerID"));
+                    String state = form.get("BlobState");
+                    StringBuilder sb = new StringBuilder("{\"BlobInfoArray\":[");
+                    for (Blob blob : blobs.values()) {
+                        if (blob.containerID == containerID && blob.state.getRESTString().equals(state)) {
+                            if (sb.charAt(sb.length() - 1) != '[') {
+                                sb.append(',');
+                            }
+                            sb.append("{\"BlobID\":").append(quote(blob.id))
+                                .append(",\"BlobName\":").append(quote(blob.name)).append('}');
+                        }
+                    }
+                    return sb.append("]}").toString();
+                }
+                case "GetContainerIDsFromName": {
+                    String name = form.get("ContainerName");
+                    StringBuilder sb = new StringBuilder();
+                    for (Container container : containers.values()) {
+                        if (container.name.equals(name)) {
+                            if (sb.length() > 0) {
+                                sb.append(',');
+                            }
+                            sb.append('"').append(container.id).append('"');
+                        }
+                    }
+                    return sb.toString();
+                }
+                case "CreateEntitySFTContainer": {
+                    Container container = createContainer(form.get("Context"), form.get("Name"), form.get("Description"));
+                    return "{\"ContainerID\":" + container.id
+                        + ",\"Description\":" + quote(container.description)
+                        + ",\"FriendlyID\":" + quote(container.friendlyID)
+                        + ",\"Name\":" + quote(container.name) + "}";
+                }
+                case "GetContainerInfoListByContext": {
+                    String context = form.get("Context");
+                    StringBuilder sb = new StringBuilder("{\"ContainerInfoArray\":[");
+                    for (Container container : containers.values()) {
+                        if (container.context.equals(context)) {
+                            if (sb.charAt(sb.length() - 1) != '[') {
+                                sb.append(',');
+                            }
+                            sb.append("{\"ContainerID\":").append(container.id)
+                                .append(",\"ContainerName\":").append(quote(container.name)).append('}');
+                        }
+                    }
+                    return sb.append("]}").toString();
+                }
+                case "GetContainerIDFromFriendlyID": {
+                    String friendlyID = form.get("ContainerFriendlyID");
+                    for (Container container : containers.values()) {
+                        if (container.friendlyID.equals(friendlyID)) {
+                            return String.valueOf(container.id);
+                        }
+                    }
+                    return null;
+                }
+                case "GetContextSetting": {
+                    String value = contextSettings.get(form.get("ContextSetting"));
+                    return (null == value) ? null : quote(value);
+                }
+                case "RemoveEntityContainer": {
+                    long containerID = Long.parseLong(form.get("ContainerID"));
+                    boolean removed = null != containers.remove(containerID);
+                    for (Blob blob : blobs.values()) {
+                        if (blob.containerID == containerID) {
+                            blobs.remove(blob.id);
+                        }
+                    }
+                    return String.valueOf(removed);
+                }
+                case "RemoveEntityContainerBlob": {
+                    Blob blob = getBlob(form);
+                    return String.valueOf(null != blob && null != blobs.remove(blob.id));
+                }
+                default:
+                    return null;
+            }
+        }
+
+        private String accessData(Blob blob) {
+            String signature = "sv=local&sig=" + blob.signature;
+            return "\"ContainerStorageName\":" + quote("container" + blob.containerID)
+                + ",\"SharedAccessSignature\":" + quote("?" + signature)
+                + ",\"SharedAccessSignatureUri\":" + quote(getStorageURL(blob) + "?" + signature)
+                + ",\"StorageType\":\"1\""
+                + ",\"StorageUri\":" + quote(getStorageURL(blob));
+        }
+
+    }
+
+    /**
+     * Serves block blob storage: PUT with comp=block or comp=blockList, and
+     * GET, optionally of a range, or HEAD of the committed content.
+     */
+    private final class StorageHandler implements HttpHandler {
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            try {
+                String path = exchange.getRequestURI().getPath();
+                Blob blob = blobs.get(path.substring(path.lastIndexOf('/') + 1));
+                Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+                byte[] body = readBody(exchange);
+                delay();
+                if (null == blob || !blob.signature.equals(query.get("sig"))) {
+                    sendStatus(exchange, 403);
+                    return;
+                }
+
+                String method = exchange.getRequestMethod();
+                if ("PUT".equals(method) && "block".equals(query.get("comp"))) {
+                    putBlock(exchange, blob, query.get("blockid"), body);
+                }
+                else if ("PUT".equals(method) && "blockList".equals(query.get("comp"))) {
+                    putBlockList(exchange, blob, new String(body, "UTF-8"));
+                }
+                else if ("GET".equals(method)) {
+                    getBlob(exchange, blob);
+                }
+                else if ("HEAD".equals(method)) {
+                    getBlobProperties(exchange, blob);
+                }
+                else {
+                    sendStatus(exchange, 405);
+                }
+            }
+            catch (RuntimeException e) {
+                sendStatus(exchange, 400);
+            }
+            finally {
+                exchange.close();
+            }
+        }
+
+        private void putBlock(HttpExchange exchange, Blob blob, String blockID, byte[] body) throws IOException {
+            String contentMD5 = exchange.getRequestHeaders().getFirst("Content-MD5");
+            if (null != contentMD5 && !contentMD5.equals(DatatypeConverter.printBase64Binary(md5(body)))) {
+                sendStatus(exchange, 400);
+                return;
+            }
+            blob.blocks.put(blockID, body);
+            sendStatus(exchange, 201);
+        }
+
+        private void putBlockList(HttpExchange exchange, Blob blob, String blockList) throws IOException {
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            Matcher m = LATEST_BLOCK.matcher(blockList);
+            while (m.find()) {
+                byte[] block = blob.blocks.get(m.group(1));
+                if (null == block) {
+                    sendStatus(exchange, 400);
+                    return;
+                }
+                content.write(block);
+            }
+            blob.content = content.toByteArray();
+            blob.blocks.clear();
+            sendStatus(exchange, 201);
+        }
+
+        private void getBlob(HttpExchange exchange, Blob blob) throws IOException {
+            byte[] content = blob.content;
+            if (null == content) {
+                sendStatus(exchange, 404);
+                return;
+            }
+            String range = exchange.getRequestHeaders().getFirst("x-ms-range");
+            if (null == range) {
+                range = exchange.getRequestHeaders().getFirst("Range");
+            }
+            if (null == range) {
+                send(exchange, 200, content, 0, content.length);
+                return;
+            }
+
+            Matcher m = BYTE_RANGE.matcher(range);
+            if (!m.matches()) {
+                sendStatus(exchange, 400);
+                return;
+            }
+            long start = Long.parseLong(m.group(1));
+            long end = m.group(2).isEmpty() ? content.length - 1 : Math.min(Long.parseLong(m.group(2)), content.length - 1);
+            if (start >= content.length || end < start) {
+                exchange.getResponseHeaders().set("Content-Range", "bytes */" + content.length);
+                sendStatus(exchange, 416);
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Range", "bytes " + start + "-" + end + "/" + content.length);
+            send(exchange, 206, content, (int) start, (int) (end - start + 1));
+        }
+
+        private void getBlobProperties(HttpExchange exchange, Blob blob) throws IOException {
+            byte[] content = blob.content;
+            if (null == content) {
+                sendStatus(exchange, 404);
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Length", String.valueOf(content.length));
+            sendStatus(exchange, 200);
+        }
+
+    }
+
+    private byte[] readBody(HttpExchange exchange) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        InputStream is = exchange.getRequestBody();
+        byte[] buf = new byte[PACING_CHUNK_SIZE];
+        int n;
+        while ((n = is.read(buf)) != -1) {
+            pace(n);
+            body.write(buf, 0, n);
+        }
+        return body.toByteArray();
+    }
+
+    private void send(HttpExchange exchange, int status, byte[] body, int off, int len) throws IOException {
+        if (0 == len) {
+            sendStatus(exchange, status);
+            return;
+        }
+        exchange.sendResponseHeaders(status, len);
+        OutputStream os = exchange.getResponseBody();
+        for (int end = off + len; off < end; ) {
+            int n = Math.min(PACING_CHUNK_SIZE, end - off);
+            pace(n);
+            os.write(body, off, n);
+            off += n;
+        }
+        os.flush();
+    }
+
+    private static void sendStatus(HttpExchange exchange, int status) throws IOException {
+        exchange.sendResponseHeaders(status, -1);
+    }
+
+    private void delay() {
+        sleepNanos(latencyMillis * 1000000L);
+    }
+
+    /**
+     * Waits until the link has carried the given number of bytes after
+     * those already scheduled on it.
+     */
+    private void pace(int bytes) {
+        long bytesPerSecond = bandwidth;
+        if (UNLIMITED == bytesPerSecond) {
+            return;
+        }
+        long done;
+        synchronized (this) {
+            linkFreeNanos = Math.max(linkFreeNanos, System.nanoTime()) + bytes * 1000000000L / bytesPerSecond;
+            done = linkFreeNanos;
+        }
+        sleepNanos(done - System.nanoTime());
+    }
+
+    private static void sleepNanos(long nanos) {
+        if (nanos <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(nanos / 1000000L, (int) (nanos % 1000000L));
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Map<String, String> parseQuery(String query) throws IOException {
+        Map<String, String> params = new HashMap<>();
+        if (null == query || query.isEmpty()) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                params.put(URLDecoder.decode(pair.substring(0, eq), "UTF-8"), URLDecoder.decode(pair.substring(eq + 1), "UTF-8"));
+            }
+        }
+        return params;
+    }
+
+    private static byte[] md5(byte[] data) {
+        try {
+            return MessageDigest.getInstance("MD5").digest(data);
+        }
+        catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static String quote(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if ('"' == c || '\\' == c) {
+                sb.append('\\');
+            }
+            sb.append(c);
+        }
+        return sb.append('"').toString();
+    }
+
+}
@@ -0,0 +1,77 @@
+package com.goironbox.client;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class LoggerTest {
+
+    private static final class RecordingSink implements LogSink {
+
+        final LogLevel threshold;
+        final List<String> messages = new ArrayList<>();
+
+        RecordingSink(LogLevel threshold) {
+            this.threshold = threshold;
+        }
+
+        @Override
+        public boolean isEnabled(LogLevel level) {
+            return threshold.includes(level);
+        }
+
+        @Override
+        public void log(LogLevel level, String msg, Throwable thrown) {
+            messages.add(level + " " + msg);
+        }
+
+    }
+
+    private static final class CountingSupplier implements MessageSupplier {
+
+        int calls = 0;
+
+        @Override
+        public String get() {
+            calls++;
+            return "built";
+        }
+
+    }
+
+    @Test
+    public void suppliersAreOnlyCalledWhenEnabled() {
+        RecordingSink sink = new RecordingSink(LogLevel.INFO);
+        Logger logger = new Logger(sink);
+        CountingSupplier supplier = new CountingSupplier();
+
+        logger.debug(supplier);
+        Assert.assertEquals(0, supplier.calls);
+        logger.info(supplier);
+        Assert.assertEquals(1, supplier.calls);
+        Assert.assertEquals(Arrays.asList("INFO built"), sink.messages);
+    }
+
+    @Test
+    public void formatsOnlyWhenEnabled() {
+        RecordingSink sink = new RecordingSink(LogLevel.WARN);
+        Logger logger = new Logger(sink);
+        Object unformattable = new Object() {
+            @Override
+            public String toString() {
+                throw new AssertionError("Formatted a disabled message");
+            }
+        };
+
+        logger.info("%s", unformattable);
+        logger.debug("%s %s", unformattable, unformattable);
+        logger.warn("%s of %s", 1, 2);
+        Assert.assertEquals(Arrays.asList("WARN 1 of 2"), sink.messages);
+    }
+
+}
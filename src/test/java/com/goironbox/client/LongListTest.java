@@ -0,0 +1,91 @@
+package com.goironbox.client;
+
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class LongListTest {
+
+    private static LongList parse(String s) throws Exception {
+        return LongList.parse(new ByteArrayInputStream(s.getBytes("UTF-8")));
+    }
+
+    private static void assertRejected(String s) throws Exception {
+        try {
+            parse(s);
+            Assert.fail("Parsed " + s);
+        }
+        catch (NumberFormatException e) {
+            // Expected.
+        }
+    }
+
+    @Test
+    public void parseEmpty() throws Exception {
+        Assert.assertTrue(parse("").isEmpty());
+        Assert.assertTrue(parse("\r\n").isEmpty());
+    }
+
+    @Test
+    public void parseQuotedList() throws Exception {
+        LongList ids = parse("\"1\",\"-2\",\"9223372036854775807\",\"-9223372036854775808\",");
+        Assert.assertArrayEquals(new long[] {1, -2, Long.MAX_VALUE, Long.MIN_VALUE}, ids.toLongArray());
+        Assert.assertEquals(Arrays.asList(1L, -2L, Long.MAX_VALUE, Long.MIN_VALUE), ids);
+    }
+
+    @Test
+    public void parseWithWhitespace() throws Exception {
+        Assert.assertEquals(LongList.of(1, 2, 3), parse(" \"1\" , 2\t,\r\n3 \r\n"));
+    }
+
+    @Test
+    public void parseAcrossReadBuffers() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        long[] expected = new long[1000];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = 1234567L * i - 1;
+            sb.append('"').append(expected[i]).append("\",");
+        }
+        Assert.assertArrayEquals(expected, parse(sb.toString()).toLongArray());
+    }
+
+    @Test
+    public void rejectOverflow() throws Exception {
+        assertRejected("9223372036854775808");
+        assertRejected("-9223372036854775809");
+        assertRejected("99999999999999999999");
+    }
+
+    @Test
+    public void rejectMalformed() throws Exception {
+        assertRejected("-");
+        assertRejected("1,,2");
+        assertRejected("1 2");
+        assertRejected("\"1\"2");
+        assertRejected("1-2");
+        assertRejected("[1]");
+        assertRejected("1.5");
+    }
+
+    @Test
+    public void unboxedAccess() {
+        LongList ids = LongList.of(5, -7, 5);
+        Assert.assertEquals(-7, ids.getLong(1));
+        Assert.assertEquals(0, ids.indexOf(5L));
+        Assert.assertEquals(2, ids.lastIndexOf(Long.valueOf(5)));
+        Assert.assertTrue(ids.contains(-7L));
+        Assert.assertFalse(ids.contains(Integer.valueOf(5)));
+        try {
+            ids.getLong(3);
+            Assert.fail();
+        }
+        catch (IndexOutOfBoundsException e) {
+            // Expected.
+        }
+    }
+
+}
@@ -0,0 +1,31 @@
+package com.goironbox.client;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class PostQueryTest {
+
+    @Test
+    public void encodesPrefixAndValues() throws Exception {
+        String prefix = PostQuery.encode("Entity", "a+b@example.com")
+            + "&" + PostQuery.encode("EntityPassword", "p&ss=wörd");
+        Assert.assertEquals("Entity=a%2Bb%40example.com&EntityPassword=p%26ss%3Dw%C3%B6rd", prefix);
+
+        PostQuery query = new PostQuery(prefix)
+            .add("ContainerID", -42L)
+            .add("BlobName", "report 2024/q1.pdf");
+        Assert.assertEquals(prefix + "&ContainerID=-42&BlobName=report+2024%2Fq1.pdf", query.toString());
+    }
+
+    @Test
+    public void bodyIsTheUTF8EncodingOfTheQuery() throws Exception {
+        PostQuery query = new PostQuery(PostQuery.encode("Entity", "ü"))
+            .add("Name", "Ünïcödé €")
+            .add("ContainerID", Long.MAX_VALUE);
+        Assert.assertArrayEquals(query.toString().getBytes("UTF-8"), query.toBytes());
+    }
+
+}
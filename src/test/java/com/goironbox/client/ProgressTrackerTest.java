@@ -0,0 +1,92 @@
+package com.goironbox.client;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class ProgressTrackerTest {
+
+    private static final long HOUR_MILLIS = 60 * 60 * 1000;
+
+    private static final class RecordingListener implements TransferProgressListener {
+
+        final List<String> updates = new ArrayList<>();
+
+        @Override
+        public void progressChanged(Direction direction, long bytesTransferred, long totalBytes) {
+            updates.add(direction + " " + bytesTransferred + "/" + totalBytes);
+        }
+
+        @Override
+        public void transferCompleted(Direction direction, long bytesTransferred) {
+            updates.add(direction + " done " + bytesTransferred);
+        }
+
+    }
+
+    @Test
+    public void withoutListenerNothingIsTracked() {
+        Assert.assertSame(ProgressTracker.NONE, ProgressTracker.create(null, TransferProgressListener.Direction.UPLOAD, 0, 0));
+        ProgressTracker.NONE.add(100);
+        ProgressTracker.NONE.done();
+    }
+
+    @Test
+    public void updatesWaitForEnoughBytes() {
+        RecordingListener listener = new RecordingListener();
+        ProgressTracker progress = ProgressTracker.create(listener, TransferProgressListener.Direction.UPLOAD, 100, 0);
+        for (int i = 0; i < 7; i++) {
+            progress.add(30);
+        }
+        progress.done();
+        Assert.assertEquals(
+            Arrays.asList("UPLOAD 120/-1", "UPLOAD 210/-1", "UPLOAD done 210"),
+            listener.updates
+        );
+    }
+
+    @Test
+    public void updatesWaitForEnoughTime() throws Exception {
+        RecordingListener listener = new RecordingListener();
+        ProgressTracker progress = ProgressTracker.create(listener, TransferProgressListener.Direction.DOWNLOAD, 0, HOUR_MILLIS);
+        for (int i = 0; i < 1000; i++) {
+            progress.add(1);
+        }
+        Assert.assertTrue(listener.updates.isEmpty());
+
+        listener = new RecordingListener();
+        progress = ProgressTracker.create(listener, TransferProgressListener.Direction.DOWNLOAD, 0, 20);
+        progress.add(1);
+        Thread.sleep(50);
+        progress.add(1);
+        progress.add(1);
+        Assert.assertEquals(Arrays.asList("DOWNLOAD 2/-1"), listener.updates);
+    }
+
+    @Test
+    public void lastByteIsAlwaysReported() {
+        RecordingListener listener = new RecordingListener();
+        ProgressTracker progress = ProgressTracker.create(listener, TransferProgressListener.Direction.UPLOAD, 1000, HOUR_MILLIS);
+        progress.setTotalBytes(50);
+        progress.add(25);
+        progress.add(25);
+        progress.done();
+        Assert.assertEquals(Arrays.asList("UPLOAD 50/50", "UPLOAD done 50"), listener.updates);
+    }
+
+    @Test
+    public void doneReportsTheRemainingBytes() {
+        RecordingListener listener = new RecordingListener();
+        ProgressTracker progress = ProgressTracker.create(listener, TransferProgressListener.Direction.UPLOAD, 1000, HOUR_MILLIS);
+        progress.setTotalBytes(100);
+        progress.add(40);
+        progress.done();
+        Assert.assertEquals(Arrays.asList("UPLOAD 40/100", "UPLOAD done 40"), listener.updates);
+    }
+
+}
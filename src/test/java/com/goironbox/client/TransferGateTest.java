@@ -0,0 +1,138 @@
+package com.goironbox.client;
+
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class TransferGateTest {
+
+    private static final long TIMEOUT_MILLIS = 10000;
+
+    // Enters the gate on a new thread, recording whether it got in.
+    private static final class Entrant extends Thread {
+
+        final TransferGate gate;
+        final AtomicReference<Object> outcome = new AtomicReference<>();
+
+        Entrant(TransferGate gate) {
+            this.gate = gate;
+            setDaemon(true);
+            start();
+        }
+
+        @Override
+        public void run() {
+            try {
+                gate.enter();
+                outcome.set("entered");
+            }
+            catch (InterruptedException e) {
+                outcome.set(e);
+            }
+        }
+
+        Object await() throws InterruptedException {
+            join(TIMEOUT_MILLIS);
+            Assert.assertFalse("Still waiting at the gate", isAlive());
+            return outcome.get();
+        }
+
+    }
+
+    private static void awaitWaiting(TransferGate gate, int waiting) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (gate.getWaiting() != waiting) {
+            Assert.assertTrue("Expected " + waiting + " waiting, got " + gate.getWaiting(), System.currentTimeMillis() < deadline);
+            Thread.sleep(1);
+        }
+    }
+
+    @Test
+    public void unlimitedByDefault() throws Exception {
+        TransferGate gate = new TransferGate();
+        for (int i = 0; i < 100; i++) {
+            gate.enter();
+        }
+        Assert.assertEquals(100, gate.getActive());
+        Assert.assertEquals(TransferGate.UNLIMITED, gate.getMaxActive());
+        gate.exit();
+        Assert.assertEquals(99, gate.getActive());
+    }
+
+    @Test
+    public void limitHoldsBackTransfers() throws Exception {
+        TransferGate gate = new TransferGate();
+        gate.setMaxActive(2);
+        gate.enter();
+        gate.enter();
+        Entrant third = new Entrant(gate);
+        Entrant fourth = new Entrant(gate);
+        awaitWaiting(gate, 2);
+        Assert.assertEquals(2, gate.getActive());
+
+        gate.exit();
+        awaitWaiting(gate, 1);
+        Assert.assertEquals(2, gate.getActive());
+
+        // Raising the limit lets the rest in without anyone leaving.
+        gate.setMaxActive(3);
+        Assert.assertEquals("entered", third.await());
+        Assert.assertEquals("entered", fourth.await());
+        Assert.assertEquals(0, gate.getWaiting());
+        Assert.assertEquals(3, gate.getActive());
+    }
+
+    @Test
+    public void pauseHoldsBackNewTransfersOnly() throws Exception {
+        TransferGate gate = new TransferGate();
+        gate.enter();
+        gate.setPaused(true);
+        Assert.assertTrue(gate.isPaused());
+        Entrant entrant = new Entrant(gate);
+        awaitWaiting(gate, 1);
+
+        // Leaving does not let anyone in while paused.
+        gate.exit();
+        Assert.assertEquals(0, gate.getActive());
+        Assert.assertEquals(1, gate.getWaiting());
+
+        gate.setPaused(false);
+        Assert.assertEquals("entered", entrant.await());
+        Assert.assertFalse(gate.isPaused());
+        Assert.assertEquals(1, gate.getActive());
+    }
+
+    @Test
+    public void interruptedWaiterLeavesNoTrace() throws Exception {
+        TransferGate gate = new TransferGate();
+        gate.setPaused(true);
+        Entrant entrant = new Entrant(gate);
+        awaitWaiting(gate, 1);
+        entrant.interrupt();
+        Assert.assertTrue(entrant.await() instanceof InterruptedException);
+        Assert.assertEquals(0, gate.getWaiting());
+        Assert.assertEquals(0, gate.getActive());
+
+        gate.setPaused(false);
+        gate.setMaxActive(1);
+        gate.enter();
+        Assert.assertEquals(1, gate.getActive());
+    }
+
+    @Test
+    public void limitMustBePositive() {
+        TransferGate gate = new TransferGate();
+        try {
+            gate.setMaxActive(0);
+            Assert.fail();
+        }
+        catch (IllegalArgumentException e) {
+            // Expected.
+        }
+        Assert.assertEquals(TransferGate.UNLIMITED, gate.getMaxActive());
+    }
+
+}